@@ -0,0 +1,140 @@
+package rmi.calculator.bench;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.server.ArrayComputeEngine;
+import rmi.calculator.server.CompiledExpression;
+import rmi.calculator.server.ExpressionCompiler;
+
+/**
+ * {@link ArrayComputeEngine} by array size and pool size; {@code cores=1} is the sequential
+ * engine. The {@code *Loop} benchmarks are the straightforward one-accumulator loops the
+ * engine is compared against.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArrayComputeBenchmark {
+    @Param({"1000", "100000", "4000000"})
+    public int size;
+
+    @Param({"1", "2", "4"})
+    public int cores;
+
+    private ForkJoinPool pool;
+    private ArrayComputeEngine engine;
+    private double[] a;
+    private double[] b;
+    private final double[] coefficients = {0.5, -1.25, 2.0, 0.75, -3.0, 1.0};
+    private final CompiledExpression function = new ExpressionCompiler().compile("sin(x) * cos(2 * x)", "x");
+    private final double[] noFixed = new double[0];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (cores == 1) {
+            engine = ArrayComputeEngine.sequential();
+        } else {
+            pool = new ForkJoinPool(cores);
+            engine = new ArrayComputeEngine(pool, ArrayComputeEngine.DEFAULT_THRESHOLD);
+        }
+        Random rnd = new Random(42);
+        a = new double[size];
+        b = new double[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = rnd.nextDouble() * 100;
+            b[i] = 1 + rnd.nextDouble() * 10;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public BatchResult add() {
+        return engine.elementWise(OpCode.ADD, a, b);
+    }
+
+    @Benchmark
+    public BatchResult div() {
+        return engine.elementWise(OpCode.DIV, a, b);
+    }
+
+    @Benchmark
+    public BatchResult sqrt() {
+        return engine.elementWise(OpCode.SQRT, a, null);
+    }
+
+    @Benchmark
+    public BatchResult sin() {
+        return engine.elementWise(OpCode.SIN, a, null);
+    }
+
+    @Benchmark
+    public double sum() {
+        return engine.sum(a);
+    }
+
+    @Benchmark
+    public double sumLoop() {
+        double s = 0;
+        for (double v : a) s += v;
+        return s;
+    }
+
+    @Benchmark
+    public double dot() {
+        return engine.dot(a, b);
+    }
+
+    @Benchmark
+    public double dotLoop() {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    @Benchmark
+    public double max() {
+        return engine.max(a);
+    }
+
+    @Benchmark
+    public double[] polyval() {
+        return engine.polyval(coefficients, a);
+    }
+
+    /** A registered function over {@code size} points, as {@code FunctionService.tabulate} runs it. */
+    @Benchmark
+    public BatchResult tabulate() {
+        return engine.tabulate(function, 0, 10, size - 1, noFixed, 0, size);
+    }
+
+    @Benchmark
+    public double[] tabulateLoop() {
+        double[] out = new double[size];
+        int steps = size - 1;
+        for (int i = 0; i < size; i++) out[i] = function.evaluate(10.0 * i / steps);
+        return out;
+    }
+}
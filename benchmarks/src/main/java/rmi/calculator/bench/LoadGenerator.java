@@ -0,0 +1,376 @@
+package rmi.calculator.bench;
+
+import java.io.PrintStream;
+import java.lang.reflect.Method;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import rmi.calculator.client.BinaryCalculatorClient;
+import rmi.calculator.client.EndpointPool;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.BinaryProtocol;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.LogLevel;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.ServerBusyException;
+import rmi.calculator.server.LatencyHistogram;
+import rmi.calculator.server.ServerConfig;
+import rmi.calculator.server.ServerLogger;
+import rmi.calculator.server.ServerRuntime;
+
+/**
+ * Headless load generator: N simulated clients, each on its own thread (virtual threads on
+ * Java 21+), call a weighted mix of operations for a fixed time; then throughput, error rate
+ * and latency percentiles are reported per op.
+ *
+ * <p>Closed loop ({@code --rate=0}) a client calls, pauses {@code --think} ms and calls again,
+ * so a slow server also lowers the offered load. Open loop ({@code --rate=R}) every client
+ * follows a fixed schedule of R / clients calls per second, and latency is also measured from
+ * when each call was due instead of when it was sent: that counts the time calls queued behind
+ * a stall, which the plain numbers hide (coordinated omission). In closed loop with a think time
+ * the corrected numbers back-fill the calls a stalled client would have made.
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar rmi.calculator.bench.LoadGenerator host:5050 --clients=200 --rate=5000
+ * java -cp benchmarks/target/benchmarks.jar rmi.calculator.bench.LoadGenerator --local --mix=sin:3,evaluate:1 \
+ *      -- --admission.maxConcurrent=8
+ * </pre>
+ * Arguments after {@code --} configure the {@code --local} loopback server, as for
+ * {@code CalculatorServer}.
+ */
+public final class LoadGenerator {
+    private static final String DEFAULT_MIX = "add:30,mul:20,div:10,sqrt:10,sin:15,cos:5,evaluate:10";
+    private static final int LOCAL_PORT = 15099;
+    private static final int LOCAL_BINARY_PORT = 15060;
+    private static final int BATCH_SIZE = 16;
+    private static final String[] EXPRESSIONS = new String[64];
+
+    static {
+        for (int i = 0; i < EXPRESSIONS.length; i++) {
+            EXPRESSIONS[i] = "sin(" + (i + 1) / 8.0 + ")^2 + cos(" + (i + 1) / 8.0 + ")^2 * " + i;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        double run(CalculatorService service, String clientId, ThreadLocalRandom rnd) throws RemoteException;
+    }
+
+    private static final class OpStats {
+        final String name;
+        final Call call;
+        final int weight;
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+        final LongAdder busy = new LongAdder();
+
+        OpStats(String name, Call call, int weight) {
+            this.name = name;
+            this.call = call;
+            this.weight = weight;
+        }
+    }
+
+    private final List<OpStats> mix;
+    private final int totalWeight;
+    private final int clients;
+    private final long intervalNanos; // open loop: per-client gap between scheduled calls; 0 = closed loop
+    private final long thinkNanos;
+    private final OpStats all = new OpStats("all", null, 0);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private LoadGenerator(List<OpStats> mix, int clients, double rate, long thinkMillis) {
+        this.mix = mix;
+        int w = 0;
+        for (OpStats op : mix) w += op.weight;
+        this.totalWeight = w;
+        this.clients = clients;
+        this.intervalNanos = rate > 0 ? (long) (clients * 1e9 / rate) : 0;
+        this.thinkNanos = TimeUnit.MILLISECONDS.toNanos(thinkMillis);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String target = null;
+        int clients = 50;
+        int duration = 30;
+        int warmup = 5;
+        double rate = 0;
+        long think = 0;
+        String mixSpec = DEFAULT_MIX;
+        String transport = "rmi";
+        String binding = "CalculatorService";
+        int binaryPort = BinaryProtocol.DEFAULT_PORT;
+        List<String> serverArgs = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("--")) {
+                serverArgs.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            }
+            if (a.equals("--local")) target = "";
+            else if (a.startsWith("--clients=")) clients = Integer.parseInt(a.substring(10));
+            else if (a.startsWith("--duration=")) duration = Integer.parseInt(a.substring(11));
+            else if (a.startsWith("--warmup=")) warmup = Integer.parseInt(a.substring(9));
+            else if (a.startsWith("--rate=")) rate = Double.parseDouble(a.substring(7));
+            else if (a.startsWith("--think=")) think = Long.parseLong(a.substring(8));
+            else if (a.startsWith("--mix=")) mixSpec = a.substring(6);
+            else if (a.startsWith("--transport=")) transport = a.substring(12).toLowerCase(Locale.ROOT);
+            else if (a.startsWith("--binding=")) binding = a.substring(10);
+            else if (a.startsWith("--binaryPort=")) binaryPort = Integer.parseInt(a.substring(13));
+            else if (!a.startsWith("--") && target == null) target = a;
+            else throw new IllegalArgumentException("Unrecognized argument: " + a);
+        }
+        if (target == null || clients < 1 || duration < 1) {
+            System.err.println("usage: LoadGenerator host[:port][,host...] | --local [--clients=50] [--duration=30]"
+                    + " [--warmup=5] [--rate=0] [--think=0] [--mix=" + DEFAULT_MIX + "]"
+                    + " [--transport=rmi|binary] [--binding=name] [--binaryPort=5060] [-- server args]");
+            System.exit(2);
+        }
+        boolean binary = transport.equals("binary");
+
+        ServerLogger serverLogger = null;
+        ServerRuntime local = null;
+        if (target.isEmpty()) {
+            List<String> all = new ArrayList<>(List.of("--headless", "--port=" + LOCAL_PORT, "--hostname=127.0.0.1",
+                    "--binding=" + binding, "--binary.port=" + (binary ? LOCAL_BINARY_PORT : 0)));
+            all.addAll(serverArgs);
+            serverLogger = new ServerLogger(lines -> { });
+            serverLogger.setLevel(LogLevel.OFF);
+            local = new ServerRuntime(ServerConfig.load(all.toArray(new String[0])), serverLogger);
+            local.start();
+            target = "127.0.0.1:" + LOCAL_PORT;
+            if (binary) binaryPort = LOCAL_BINARY_PORT;
+        }
+
+        EndpointPool pool = null;
+        CalculatorService[] services = new CalculatorService[clients];
+        if (binary) {
+            String host = target.split(",")[0].split(":")[0];
+            for (int i = 0; i < clients; i++) services[i] = new BinaryCalculatorClient(host, binaryPort, "load-" + i);
+        } else {
+            pool = EndpointPool.fromSpec(target, 5050, binding, EndpointPool.Policy.ROUND_ROBIN);
+            if (pool.connectAll() == 0) throw new RemoteException("No server reachable at " + target);
+            Arrays.fill(services, pool.asService());
+        }
+        try {
+            LoadGenerator gen = new LoadGenerator(parseMix(mixSpec, services[0]), clients, rate, think);
+            System.out.println("Load: " + clients + " clients, " + (rate > 0 ? "open loop at " + rate + " calls/s"
+                    : "closed loop, think " + think + " ms") + ", mix " + mixSpec + ", " + transport + " to " + target
+                    + ", warmup " + warmup + " s, measuring " + duration + " s");
+            gen.run(services, warmup, duration, System.out);
+            gen.report(duration, System.out);
+        } finally {
+            for (CalculatorService s : services) {
+                if (s instanceof BinaryCalculatorClient) ((BinaryCalculatorClient) s).close();
+            }
+            if (pool != null) pool.close();
+            if (local != null) local.stop();
+            if (serverLogger != null) serverLogger.close();
+        }
+        System.exit(0);
+    }
+
+    private void run(CalculatorService[] services, int warmupSeconds, int durationSeconds, PrintStream out)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService threads = clientThreads();
+        for (int i = 0; i < clients; i++) {
+            final int index = i;
+            threads.execute(() -> runClient(index, services[index], start, measureFrom, end));
+        }
+        threads.shutdown();
+        long lastCount = 0;
+        long lastAt = start;
+        while (!threads.awaitTermination(5, TimeUnit.SECONDS)) {
+            long now = System.nanoTime();
+            long count = completed.sum();
+            out.printf(Locale.ROOT, "  %4d s  %9.0f calls/s  %d errors%s%n", (now - start) / 1_000_000_000,
+                    (count - lastCount) * 1e9 / (now - lastAt), failed.sum(), now < measureFrom ? "  (warmup)" : "");
+            lastCount = count;
+            lastAt = now;
+        }
+    }
+
+    private void runClient(int index, CalculatorService service, long start, long measureFrom, long end) {
+        String clientId = "load-" + index;
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        boolean openLoop = intervalNanos > 0;
+        long due = start + (openLoop ? intervalNanos * index / clients : 0); // stagger the schedules
+        while (true) {
+            long now = System.nanoTime();
+            if (openLoop) {
+                if (due >= end) return;
+                if (due > now) LockSupport.parkNanos(due - now);
+            } else if (now >= end) {
+                return;
+            }
+            OpStats op = pick(rnd);
+            long sent = System.nanoTime();
+            if (!openLoop) due = sent;
+            RemoteException failure = null;
+            try {
+                op.call.run(service, clientId, rnd);
+            } catch (RemoteException ex) {
+                failure = ex;
+            }
+            long done = System.nanoTime();
+            completed.increment();
+            if (failure != null) failed.increment();
+            if (due >= measureFrom && due < end) record(op, failure, done - sent, done - due);
+            if (openLoop) due += intervalNanos;
+            else if (thinkNanos > 0) LockSupport.parkNanos(thinkNanos);
+        }
+    }
+
+    private void record(OpStats op, RemoteException failure, long latency, long sinceDue) {
+        for (OpStats s : new OpStats[] {op, all}) {
+            s.latency.record(latency);
+            if (intervalNanos > 0) s.corrected.record(sinceDue);
+            else s.corrected.recordCorrected(latency, thinkNanos);
+            if (failure != null) {
+                s.errors.increment();
+                if (isBusy(failure)) s.busy.increment();
+            }
+        }
+    }
+
+    private static boolean isBusy(RemoteException ex) {
+        return ex instanceof ServerBusyException
+                || (ex instanceof ServerException && ex.getCause() instanceof ServerBusyException);
+    }
+
+    private OpStats pick(ThreadLocalRandom rnd) {
+        int r = rnd.nextInt(totalWeight);
+        for (OpStats op : mix) {
+            r -= op.weight;
+            if (r < 0) return op;
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private void report(int durationSeconds, PrintStream out) {
+        out.println();
+        out.println("Latency in microseconds; 'corrected' counts from when each call was due"
+                + (intervalNanos > 0 ? "" : thinkNanos > 0 ? " (closed loop: back-filled at the think time)"
+                : " (closed loop without think time: same as measured)"));
+        out.printf(Locale.ROOT, "%-10s %9s %9s %6s %6s %8s %8s %8s %8s %8s | %-9s %8s %8s %8s %8s%n",
+                "op", "calls", "calls/s", "err%", "busy%", "p50", "p90", "p99", "p99.9", "max",
+                "corrected", "p50", "p99", "p99.9", "max");
+        for (OpStats op : mix) row(op, durationSeconds, out);
+        row(all, durationSeconds, out);
+    }
+
+    private static void row(OpStats op, int durationSeconds, PrintStream out) {
+        long n = op.latency.count();
+        if (n == 0) {
+            out.printf(Locale.ROOT, "%-10s %9d%n", op.name, 0);
+            return;
+        }
+        LatencyHistogram h = op.latency;
+        LatencyHistogram c = op.corrected;
+        out.printf(Locale.ROOT, "%-10s %9d %9.0f %6.2f %6.2f %8s %8s %8s %8s %8s | %-9s %8s %8s %8s %8s%n",
+                op.name, n, n / (double) durationSeconds, 100.0 * op.errors.sum() / n, 100.0 * op.busy.sum() / n,
+                micros(h.percentile(50)), micros(h.percentile(90)), micros(h.percentile(99)),
+                micros(h.percentile(99.9)), micros(h.max()), "",
+                micros(c.percentile(50)), micros(c.percentile(99)), micros(c.percentile(99.9)), micros(c.max()));
+    }
+
+    private static String micros(long nanos) {
+        return nanos >= 100_000 ? Long.toString(nanos / 1000) : String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+    }
+
+    /**
+     * {@code name:weight,...}. Names are {@link OpCode} ops, {@code evaluate}, {@code batch}, or
+     * any other operation in the server's catalog, which is called through {@code invoke}.
+     */
+    private static List<OpStats> parseMix(String spec, CalculatorService service) throws RemoteException {
+        List<OpStats> mix = new ArrayList<>();
+        List<OperationInfo> catalog = null;
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            String name = kv[0].trim().toLowerCase(Locale.ROOT);
+            int weight = kv.length > 1 ? Integer.parseInt(kv[1].trim()) : 1;
+            if (weight <= 0) continue;
+            Call call = builtIn(name);
+            if (call == null) {
+                if (catalog == null) catalog = service.operations();
+                for (OperationInfo info : catalog) {
+                    if (info.getName().equals(name)) call = invoke(info);
+                }
+            }
+            if (call == null) throw new IllegalArgumentException("Unknown op '" + name + "' in mix");
+            mix.add(new OpStats(name, call, weight));
+        }
+        if (mix.isEmpty()) throw new IllegalArgumentException("Empty mix");
+        return mix;
+    }
+
+    /** Operands stay inside every op's domain: a in [1, 1000), b in [1, 10). */
+    private static Call builtIn(String name) {
+        switch (name) {
+            case "add": return (s, id, r) -> s.add(a(r), b(r), id);
+            case "sub": return (s, id, r) -> s.sub(a(r), b(r), id);
+            case "mul": return (s, id, r) -> s.mul(a(r), b(r), id);
+            case "div": return (s, id, r) -> s.div(a(r), b(r), id);
+            case "pow": return (s, id, r) -> s.pow(b(r), b(r), id);
+            case "sqrt": return (s, id, r) -> s.sqrt(a(r), id);
+            case "sin": return (s, id, r) -> s.sin(a(r), id);
+            case "cos": return (s, id, r) -> s.cos(a(r), id);
+            case "tan": return (s, id, r) -> s.tan(a(r), id);
+            case "evaluate": return (s, id, r) -> s.evaluate(EXPRESSIONS[r.nextInt(EXPRESSIONS.length)], id);
+            case "batch":
+                return (s, id, r) -> {
+                    List<BatchOp> ops = new ArrayList<>(BATCH_SIZE);
+                    for (int i = 0; i < BATCH_SIZE; i++) ops.add(new BatchOp(i % 2 == 0 ? OpCode.ADD : OpCode.SIN, a(r), b(r)));
+                    return s.batch(ops, id).size();
+                };
+            default: return null;
+        }
+    }
+
+    private static Call invoke(OperationInfo info) {
+        return (s, id, r) -> {
+            double[] args = new double[info.getArity()];
+            for (int i = 0; i < args.length; i++) args[i] = i == 0 ? a(r) / 1000 : b(r);
+            return s.invoke(info.getCode(), args, id);
+        };
+    }
+
+    private static double a(ThreadLocalRandom r) {
+        return 1 + r.nextDouble() * 999;
+    }
+
+    private static double b(ThreadLocalRandom r) {
+        return 1 + r.nextDouble() * 9;
+    }
+
+    /** One thread per client: virtual threads when the runtime has them, platform threads otherwise. */
+    private static ExecutorService clientThreads() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "load-client-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
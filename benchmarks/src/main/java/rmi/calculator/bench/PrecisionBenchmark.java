@@ -0,0 +1,69 @@
+package rmi.calculator.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.PrecisionMode;
+import rmi.calculator.server.CalculatorServiceImpl;
+import rmi.calculator.server.DecimalMath;
+import rmi.calculator.server.FastMath;
+
+/**
+ * The three precision tiers over the same operands, one row of {@code ROWS} per invocation.
+ * {@code integers=true} draws whole-number operands, which {@link DecimalMath} answers without
+ * going through {@code BigDecimal}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrecisionBenchmark {
+    private static final int ROWS = 1024;
+
+    @Param({"ADD", "DIV", "SIN", "POW"})
+    public OpCode op;
+
+    @Param({"STRICT", "FAST", "DECIMAL"})
+    public PrecisionMode precision;
+
+    @Param({"false", "true"})
+    public boolean integers;
+
+    private final double[] a = new double[ROWS];
+    private final double[] b = new double[ROWS];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rnd = new Random(42);
+        for (int i = 0; i < ROWS; i++) {
+            a[i] = integers ? rnd.nextInt(2000) - 1000 : (rnd.nextDouble() - 0.5) * 2000;
+            b[i] = integers || op == OpCode.POW ? 1 + rnd.nextInt(12) : 1 + rnd.nextDouble() * 10;
+        }
+    }
+
+    @Benchmark
+    public void rows(Blackhole bh) {
+        for (int i = 0; i < ROWS; i++) {
+            switch (precision) {
+                case FAST: bh.consume(FastMath.apply(op, a[i], b[i])); break;
+                case DECIMAL: bh.consume(DecimalMath.apply(op, a[i], b[i])); break;
+                default: bh.consume(CalculatorServiceImpl.apply(op, a[i], b[i]));
+            }
+        }
+    }
+}
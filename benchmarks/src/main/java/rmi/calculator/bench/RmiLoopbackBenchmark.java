@@ -0,0 +1,155 @@
+package rmi.calculator.bench;
+
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import rmi.calculator.client.CachingCalculatorService;
+import rmi.calculator.client.CoalescingCalculatorService;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.LogLevel;
+import rmi.calculator.server.CalculatorServiceImpl;
+import rmi.calculator.server.ServerLogger;
+
+/**
+ * {@link ServiceImplBenchmark}'s add, sin and evaluate calls, with its cycling
+ * {@link ServiceImplBenchmark.Operands}, made through a stub looked up from a loopback registry,
+ * so the difference is serialization plus RMI transport and dispatch. The coalescing variants
+ * cycle operands too; only the {@code *Cached} variants repeat one operand, measuring a hit in
+ * the client-side {@link CachingCalculatorService}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.rmi.server.hostname=127.0.0.1")
+@State(Scope.Benchmark)
+public class RmiLoopbackBenchmark {
+    private static final String CLIENT = "bench 127.0.0.1";
+    private static final String BINDING = "CalculatorServiceBench";
+
+    @Param({"OFF", "INFO"})
+    public String logLevel;
+
+    @Param({"15099"})
+    public int port;
+
+    private ServerLogger logger;
+    private CalculatorServiceImpl impl;
+    private Registry registry;
+    private CalculatorService stub;
+    private CalculatorService coalescing;
+    private CalculatorService cached;
+    private double[] vectorA;
+    private double[] vectorB;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        logger = new ServerLogger(lines -> { });
+        logger.setLevel(LogLevel.valueOf(logLevel));
+        impl = new CalculatorServiceImpl(logger);
+        registry = LocateRegistry.createRegistry(port);
+        registry.rebind(BINDING, impl);
+        stub = (CalculatorService) LocateRegistry.getRegistry("127.0.0.1", port).lookup(BINDING);
+        coalescing = new CoalescingCalculatorService(stub);
+        cached = new CachingCalculatorService(stub);
+        vectorA = new double[100];
+        vectorB = new double[100];
+        for (int i = 0; i < vectorA.length; i++) {
+            vectorA[i] = i * 0.5;
+            vectorB[i] = i + 1;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws RemoteException {
+        try {
+            registry.unbind(BINDING);
+        } catch (NotBoundException ignored) {
+        }
+        UnicastRemoteObject.unexportObject(impl, true);
+        UnicastRemoteObject.unexportObject(registry, true);
+        logger.close();
+    }
+
+    @Benchmark
+    public double add(ServiceImplBenchmark.Operands o) throws RemoteException {
+        int k = o.next();
+        return stub.add(o.a[k], o.b[k], CLIENT);
+    }
+
+    @Benchmark
+    public double sin(ServiceImplBenchmark.Operands o) throws RemoteException {
+        return stub.sin(o.a[o.next()], CLIENT);
+    }
+
+    @Benchmark
+    public double evaluate() throws RemoteException {
+        return stub.evaluate("sin(1.25)^2 + cos(1.25)^2", CLIENT);
+    }
+
+    /** 100 element-wise divisions in one call; compare with 100 x {@link #add}. */
+    @Benchmark
+    public BatchResult divVector100() throws RemoteException {
+        return stub.div(vectorA, vectorB, CLIENT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double addThreads4(ServiceImplBenchmark.Operands o) throws RemoteException {
+        int k = o.next();
+        return stub.add(o.a[k], o.b[k], CLIENT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double sinThreads4(ServiceImplBenchmark.Operands o) throws RemoteException {
+        return stub.sin(o.a[o.next()], CLIENT);
+    }
+
+    /** Uncontended calls through the coalescer go out one by one; should match {@link #sin}. */
+    @Benchmark
+    public double sinCoalesced(ServiceImplBenchmark.Operands o) throws RemoteException {
+        return coalescing.sin(o.a[o.next()], CLIENT);
+    }
+
+    /** Repeats one call, so everything after the first is a near cache hit; compare with {@link #sin}. */
+    @Benchmark
+    public double sinCached(ServiceImplBenchmark.Operands o) throws RemoteException {
+        return cached.sin(o.fixedA, CLIENT);
+    }
+
+    @Benchmark
+    public double evaluateCached() throws RemoteException {
+        return cached.evaluate("sin(1.25)^2 + cos(1.25)^2", CLIENT);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public double sinThreads16(ServiceImplBenchmark.Operands o) throws RemoteException {
+        return stub.sin(o.a[o.next()], CLIENT);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public double sinCoalescedThreads16(ServiceImplBenchmark.Operands o) throws RemoteException {
+        return coalescing.sin(o.a[o.next()], CLIENT);
+    }
+}
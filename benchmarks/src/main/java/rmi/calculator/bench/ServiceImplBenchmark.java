@@ -0,0 +1,142 @@
+package rmi.calculator.bench;
+
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import rmi.calculator.common.LogLevel;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.server.CalculatorServiceImpl;
+import rmi.calculator.server.ServerLogger;
+
+/**
+ * {@link CalculatorServiceImpl} called in-process, isolating dispatch and logging cost from
+ * the network. {@code logLevel=OFF} is the "no logger attached" baseline. Operands cycle through
+ * more distinct values than the default result cache holds, so memoizable ops (sin, pow) are
+ * computed on every call; the {@code *Cached} variants repeat one operand and measure a cache hit.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceImplBenchmark {
+    private static final String CLIENT = "bench 127.0.0.1";
+    private static final int HYPOT = 71;
+    private static final int OPERANDS = 1 << 16; // well above ResultCache.DEFAULT_CAPACITY
+
+    @Param({"OFF", "INFO"})
+    public String logLevel;
+
+    private ServerLogger logger;
+    private CalculatorServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() throws RemoteException {
+        logger = new ServerLogger(lines -> { });
+        logger.setLevel(LogLevel.valueOf(logLevel));
+        service = new CalculatorServiceImpl(logger);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws RemoteException {
+        UnicastRemoteObject.unexportObject(service, true);
+        logger.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Operands {
+        final double[] a = new double[OPERANDS];
+        final double[] b = new double[OPERANDS];
+        int i;
+        double fixedA = 1.25;
+        double fixedB = 3.5;
+
+        @Setup(Level.Trial)
+        public void fill() {
+            SplittableRandom random = new SplittableRandom(42);
+            for (int k = 0; k < OPERANDS; k++) {
+                a[k] = 0.5 + 3 * random.nextDouble();
+                b[k] = 0.5 + 3 * random.nextDouble();
+            }
+        }
+
+        int next() {
+            return i = (i + 1) & (OPERANDS - 1);
+        }
+    }
+
+    @Benchmark
+    public double add(Operands o) throws RemoteException {
+        int k = o.next();
+        return service.add(o.a[k], o.b[k], CLIENT);
+    }
+
+    @Benchmark
+    public double sin(Operands o) throws RemoteException {
+        return service.sin(o.a[o.next()], CLIENT);
+    }
+
+    @Benchmark
+    public double pow(Operands o) throws RemoteException {
+        int k = o.next();
+        return service.pow(o.a[k], o.b[k], CLIENT);
+    }
+
+    /** {@link #sin} with one repeated operand: a result cache hit after the first call. */
+    @Benchmark
+    public double sinCached(Operands o) throws RemoteException {
+        return service.sin(o.fixedA, CLIENT);
+    }
+
+    @Benchmark
+    public double powCached(Operands o) throws RemoteException {
+        return service.pow(o.fixedA, o.fixedB, CLIENT);
+    }
+
+    /** Same op as {@link #sin} through the opcode table. */
+    @Benchmark
+    public double invokeSin(Operands o) throws RemoteException {
+        return service.invoke(OpCode.SIN.code(), new double[] {o.a[o.next()]}, CLIENT);
+    }
+
+    /** A ServiceLoader-discovered operation. */
+    @Benchmark
+    public double invokeHypot(Operands o) throws RemoteException {
+        int k = o.next();
+        return service.invoke(HYPOT, new double[] {o.a[k], o.b[k]}, CLIENT);
+    }
+
+    @Benchmark
+    public double evaluate() throws RemoteException {
+        return service.evaluate("sin(1.25)^2 + cos(1.25)^2", CLIENT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double addThreads4(Operands o) throws RemoteException {
+        int k = o.next();
+        return service.add(o.a[k], o.b[k], CLIENT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public double sinThreads4(Operands o) throws RemoteException {
+        return service.sin(o.a[o.next()], CLIENT);
+    }
+}
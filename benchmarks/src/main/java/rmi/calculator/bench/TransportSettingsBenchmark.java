@@ -0,0 +1,92 @@
+package rmi.calculator.bench;
+
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import rmi.calculator.client.BinaryCalculatorClient;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.LogLevel;
+import rmi.calculator.server.ServerConfig;
+import rmi.calculator.server.ServerLogger;
+import rmi.calculator.server.ServerRuntime;
+
+/**
+ * Throughput and latency percentiles (sample mode reports p99) of one loopback call under
+ * each transport setting. A {@code config} value is the transport to call through followed by
+ * server arguments exactly as {@code CalculatorServer} takes them, so any combination can be
+ * measured with {@code -p config="rmi --rmi.maxConnections=64 --rmi.socketBufferKB=256"}.
+ * {@code binary --binary.execution=virtual} needs a Java 21 runtime.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.rmi.server.hostname=127.0.0.1")
+@Threads(8)
+@State(Scope.Benchmark)
+public class TransportSettingsBenchmark {
+    private static final String CLIENT = "bench 127.0.0.1";
+
+    @Param({
+            "rmi",
+            "rmi --rmi.socketBufferKB=256",
+            "rmi --rmi.backlog=1024 --rmi.maxConnections=64",
+            "binary",
+            "binary --binary.execution=pool:2",
+            "binary --binary.execution=pool:8",
+    })
+    public String config;
+
+    @Param({"15099"})
+    public int port;
+
+    @Param({"15060"})
+    public int binaryPort;
+
+    private ServerLogger logger;
+    private ServerRuntime runtime;
+    private CalculatorService stub;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String[] words = config.trim().split("\\s+");
+        String[] args = new String[words.length + 2];
+        args[0] = "--headless";
+        args[1] = "--port=" + port;
+        args[2] = "--binary.port=" + ("binary".equals(words[0]) ? binaryPort : 0);
+        System.arraycopy(words, 1, args, 3, words.length - 1);
+        logger = new ServerLogger(lines -> { });
+        logger.setLevel(LogLevel.OFF);
+        runtime = new ServerRuntime(ServerConfig.load(args), logger);
+        runtime.start();
+        stub = "binary".equals(words[0])
+                ? new BinaryCalculatorClient("127.0.0.1", binaryPort, CLIENT)
+                : (CalculatorService) LocateRegistry.getRegistry("127.0.0.1", port).lookup("CalculatorService");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (stub instanceof BinaryCalculatorClient) ((BinaryCalculatorClient) stub).close();
+        runtime.stop();
+        logger.close();
+    }
+
+    @Benchmark
+    public double sin() throws RemoteException {
+        return stub.sin(1.25, CLIENT);
+    }
+}
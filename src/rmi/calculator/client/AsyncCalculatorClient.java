@@ -0,0 +1,193 @@
+package rmi.calculator.client;
+
+import java.lang.reflect.Method;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.OperationInfo;
+
+/**
+ * Non-blocking facade over a {@link CalculatorService} stub. Every call runs on a
+ * background executor (virtual threads when the runtime has them, otherwise a bounded
+ * daemon pool) and returns a {@link CompletableFuture} that fails with a
+ * {@link java.util.concurrent.TimeoutException} after the configured timeout. Cancelling
+ * or timing out a future also cancels the underlying task.
+ */
+public class AsyncCalculatorClient implements AutoCloseable {
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5000;
+    private static final int POOL_THREADS = 8;
+    private static final int POOL_QUEUE = 256;
+
+    @FunctionalInterface
+    public interface RemoteCall<T> {
+        T call(CalculatorService service) throws RemoteException;
+    }
+
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+    private volatile CalculatorService service;
+
+    public AsyncCalculatorClient(CalculatorService service, long timeoutMillis) {
+        this(service, timeoutMillis, defaultExecutor());
+    }
+
+    public AsyncCalculatorClient(CalculatorService service, long timeoutMillis, ExecutorService executor) {
+        this.service = service;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = executor;
+    }
+
+    public CalculatorService getService() {
+        return service;
+    }
+
+    public void setService(CalculatorService service) {
+        this.service = service;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public CompletableFuture<Double> add(double a, double b, String clientId) {
+        return submit(s -> s.add(a, b, clientId));
+    }
+
+    public CompletableFuture<Double> sub(double a, double b, String clientId) {
+        return submit(s -> s.sub(a, b, clientId));
+    }
+
+    public CompletableFuture<Double> mul(double a, double b, String clientId) {
+        return submit(s -> s.mul(a, b, clientId));
+    }
+
+    public CompletableFuture<Double> div(double a, double b, String clientId) {
+        return submit(s -> s.div(a, b, clientId));
+    }
+
+    public CompletableFuture<Double> pow(double a, double b, String clientId) {
+        return submit(s -> s.pow(a, b, clientId));
+    }
+
+    public CompletableFuture<Double> sqrt(double a, String clientId) {
+        return submit(s -> s.sqrt(a, clientId));
+    }
+
+    public CompletableFuture<Double> sin(double a, String clientId) {
+        return submit(s -> s.sin(a, clientId));
+    }
+
+    public CompletableFuture<Double> cos(double a, String clientId) {
+        return submit(s -> s.cos(a, clientId));
+    }
+
+    public CompletableFuture<Double> tan(double a, String clientId) {
+        return submit(s -> s.tan(a, clientId));
+    }
+
+    public CompletableFuture<Double> evaluate(String expression, String clientId) {
+        return submit(s -> s.evaluate(expression, clientId));
+    }
+
+    public CompletableFuture<Double> invoke(int opcode, double[] args, String clientId) {
+        return submit(s -> s.invoke(opcode, args, clientId));
+    }
+
+    public CompletableFuture<List<OperationInfo>> operations() {
+        return submit(CalculatorService::operations);
+    }
+
+    public CompletableFuture<BatchResult> sin(double[] a, String clientId) {
+        return submit(s -> s.sin(a, clientId));
+    }
+
+    /** Runs an arbitrary call against the current service off the caller's thread. */
+    public <T> CompletableFuture<T> submit(RemoteCall<T> call) {
+        return submit(call, timeoutMillis);
+    }
+
+    public <T> CompletableFuture<T> submit(RemoteCall<T> call, long timeoutMillis) {
+        CancellableFuture<T> result = new CancellableFuture<>();
+        final CalculatorService target = service;
+        if (target == null) {
+            result.completeExceptionally(new RemoteException("Service not connected"));
+            return result;
+        }
+        try {
+            result.task = executor.submit(() -> {
+                try {
+                    result.complete(call.call(target));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RuntimeException rejected) {
+            result.completeExceptionally(rejected);
+            return result;
+        }
+        if (timeoutMillis > 0) result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    /** Unwraps {@link CompletionException}/{@link ExecutionException} to the remote cause. */
+    public static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    static ExecutorService defaultExecutor() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            AtomicInteger n = new AtomicInteger();
+            return new ThreadPoolExecutor(POOL_THREADS, POOL_THREADS, 30, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(POOL_QUEUE), r -> {
+                        Thread t = new Thread(r, "calc-async-" + n.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+        }
+    }
+
+    private static final class CancellableFuture<T> extends CompletableFuture<T> {
+        volatile Future<?> task;
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean done = super.completeExceptionally(ex);
+            if (done) cancelTask();
+            return done;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled) cancelTask();
+            return cancelled;
+        }
+
+        private void cancelTask() {
+            Future<?> t = task;
+            if (t != null) t.cancel(true);
+        }
+    }
+}
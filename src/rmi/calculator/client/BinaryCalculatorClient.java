@@ -0,0 +1,320 @@
+package rmi.calculator.client;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.BinaryProtocol;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.OperationService;
+import rmi.calculator.common.TraceContext;
+import rmi.calculator.common.TracedResult;
+
+/**
+ * {@link CalculatorService} over the pipelined {@link BinaryProtocol} instead of RMI. Calls from
+ * any number of threads share one socket: each writes its frame and waits on a future that the
+ * reader thread completes when the response with the matching request id arrives.
+ *
+ * <p>Server-side failures surface as {@link ServerException}, transport failures as plain
+ * {@link RemoteException}, mirroring what RMI stubs throw. A broken connection fails every
+ * outstanding call and is reopened by the next one. A call whose response does not arrive within
+ * the timeout fails on its own and leaves the connection open; a late response is dropped.
+ */
+public class BinaryCalculatorClient implements CalculatorService, AutoCloseable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+    public static final long DEFAULT_CALL_TIMEOUT_MILLIS = 60_000;
+
+    private final String host;
+    private final int port;
+    private final String clientId;
+    private final long callTimeoutMillis;
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, CompletableFuture<ByteBuffer>> pending = new ConcurrentHashMap<>();
+
+    private Socket socket;
+    private OutputStream out;
+    private volatile boolean closed;
+
+    /** @param clientId sent once per connection; per-call client ids are ignored on this transport */
+    public BinaryCalculatorClient(String host, int port, String clientId) {
+        this(host, port, clientId, DEFAULT_CALL_TIMEOUT_MILLIS);
+    }
+
+    public BinaryCalculatorClient(String host, int port, String clientId, long callTimeoutMillis) {
+        if (callTimeoutMillis <= 0) throw new IllegalArgumentException("callTimeoutMillis must be > 0");
+        this.host = host;
+        this.port = port;
+        this.clientId = clientId;
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    @Override public double add(double a, double b, String clientId) throws RemoteException { return scalar(OpCode.ADD, a, b); }
+    @Override public double sub(double a, double b, String clientId) throws RemoteException { return scalar(OpCode.SUB, a, b); }
+    @Override public double mul(double a, double b, String clientId) throws RemoteException { return scalar(OpCode.MUL, a, b); }
+    @Override public double div(double a, double b, String clientId) throws RemoteException { return scalar(OpCode.DIV, a, b); }
+    @Override public double pow(double a, double b, String clientId) throws RemoteException { return scalar(OpCode.POW, a, b); }
+    @Override public double sqrt(double a, String clientId) throws RemoteException { return scalar(OpCode.SQRT, a, 0); }
+    @Override public double sin(double a, String clientId) throws RemoteException { return scalar(OpCode.SIN, a, 0); }
+    @Override public double cos(double a, String clientId) throws RemoteException { return scalar(OpCode.COS, a, 0); }
+    @Override public double tan(double a, String clientId) throws RemoteException { return scalar(OpCode.TAN, a, 0); }
+
+    @Override public BatchResult add(double[] a, double[] b, String clientId) throws RemoteException { return elementWise(OpCode.ADD, a, b); }
+    @Override public BatchResult sub(double[] a, double[] b, String clientId) throws RemoteException { return elementWise(OpCode.SUB, a, b); }
+    @Override public BatchResult mul(double[] a, double[] b, String clientId) throws RemoteException { return elementWise(OpCode.MUL, a, b); }
+    @Override public BatchResult div(double[] a, double[] b, String clientId) throws RemoteException { return elementWise(OpCode.DIV, a, b); }
+    @Override public BatchResult pow(double[] a, double[] b, String clientId) throws RemoteException { return elementWise(OpCode.POW, a, b); }
+    @Override public BatchResult sqrt(double[] a, String clientId) throws RemoteException { return elementWise(OpCode.SQRT, a, null); }
+    @Override public BatchResult sin(double[] a, String clientId) throws RemoteException { return elementWise(OpCode.SIN, a, null); }
+    @Override public BatchResult cos(double[] a, String clientId) throws RemoteException { return elementWise(OpCode.COS, a, null); }
+    @Override public BatchResult tan(double[] a, String clientId) throws RemoteException { return elementWise(OpCode.TAN, a, null); }
+
+    @Override public double sum(double[] a, String clientId) throws RemoteException { return reduce(BinaryProtocol.SUM, a, null); }
+    @Override public double mean(double[] a, String clientId) throws RemoteException { return reduce(BinaryProtocol.MEAN, a, null); }
+    @Override public double min(double[] a, String clientId) throws RemoteException { return reduce(BinaryProtocol.MIN, a, null); }
+    @Override public double max(double[] a, String clientId) throws RemoteException { return reduce(BinaryProtocol.MAX, a, null); }
+    @Override public double dot(double[] a, double[] b, String clientId) throws RemoteException { return reduce(BinaryProtocol.DOT, a, b); }
+
+    @Override
+    public double[] polyval(double[] coefficients, double[] x, String clientId) throws RemoteException {
+        if (coefficients == null || x == null) throw new RemoteException("Missing operand array for polyval");
+        ByteBuffer frame = frame(BinaryProtocol.POLYVAL, BinaryProtocol.arraySize(coefficients) + BinaryProtocol.arraySize(x));
+        BinaryProtocol.putArray(frame, coefficients);
+        BinaryProtocol.putArray(frame, x);
+        return BinaryProtocol.getArray(call(frame));
+    }
+
+    @Override
+    public BatchResult batch(List<BatchOp> ops, String clientId) throws RemoteException {
+        if (ops == null) throw new RemoteException("Batch must not be null");
+        ByteBuffer frame = frame(BinaryProtocol.BATCH, 4 + 17 * ops.size());
+        frame.putInt(ops.size());
+        for (BatchOp op : ops) frame.put((byte) op.getOp().code()).putDouble(op.getA()).putDouble(op.getB());
+        ByteBuffer resp = call(frame);
+        int n = resp.getInt();
+        double[] values = new double[n];
+        String[] errors = null;
+        for (int i = 0; i < n; i++) {
+            if (resp.get() == BinaryProtocol.STATUS_OK) {
+                values[i] = resp.getDouble();
+            } else {
+                if (errors == null) errors = new String[n];
+                errors[i] = BinaryProtocol.getString(resp);
+                values[i] = Double.NaN;
+            }
+        }
+        return new BatchResult(values, errors);
+    }
+
+    @Override
+    public List<OperationInfo> operations() throws RemoteException {
+        ByteBuffer resp = call(frame(BinaryProtocol.OPERATIONS, 0));
+        int n = resp.getInt();
+        List<OperationInfo> ops = new ArrayList<>(n);
+        Capability[] caps = Capability.values();
+        for (int i = 0; i < n; i++) {
+            int code = resp.get();
+            int arity = resp.get();
+            Capability cap = caps[resp.get()];
+            ops.add(new OperationInfo(code, BinaryProtocol.getString(resp), arity, cap));
+        }
+        return ops;
+    }
+
+    /** Plugin operations travel in scalar frames, so at most two arguments fit. */
+    @Override
+    public double invoke(int opcode, double[] args, String clientId) throws RemoteException {
+        int n = args == null ? 0 : args.length;
+        if (n < 1 || n > 2) throw new RemoteException("The binary protocol carries one or two arguments, got " + n);
+        if (opcode < OperationService.FIRST_PLUGIN_CODE) {
+            OpCode op = OpCode.fromCode(opcode);
+            if (n != op.arity()) throw new RemoteException(op.opName() + " expects " + op.arity() + " argument(s), got " + n);
+            return scalar(op, args[0], n == 2 ? args[1] : 0);
+        }
+        if (opcode > OperationService.LAST_PLUGIN_CODE) throw new RemoteException("Unknown opcode: " + opcode);
+        ByteBuffer frame = frame((byte) opcode, 16);
+        frame.putDouble(args[0]).putDouble(n == 2 ? args[1] : 0);
+        return call(frame).getDouble();
+    }
+
+    @Override
+    public double evaluate(String expression, String clientId) throws RemoteException {
+        if (expression == null) throw new RemoteException("Invalid expression: null");
+        int size = BinaryProtocol.stringSize(expression);
+        if (size - 2 > BinaryProtocol.MAX_STRING_BYTES) {
+            // Cutting it short would have the server evaluate a different expression
+            throw new RemoteException("Expression of " + (size - 2) + " bytes exceeds the binary protocol limit of "
+                    + BinaryProtocol.MAX_STRING_BYTES);
+        }
+        ByteBuffer frame = frame(BinaryProtocol.EVALUATE, size);
+        BinaryProtocol.putString(frame, expression);
+        return call(frame).getDouble();
+    }
+
+    /** The binary frames carry no trace context: the call is made untraced and returns no server spans. */
+    @Override
+    public TracedResult invokeTraced(int opcode, double[] args, String clientId, TraceContext trace)
+            throws RemoteException {
+        return new TracedResult(invoke(opcode, args, clientId), List.of());
+    }
+
+    @Override
+    public TracedResult evaluateTraced(String expression, String clientId, TraceContext trace) throws RemoteException {
+        return new TracedResult(evaluate(expression, clientId), List.of());
+    }
+
+    /** Number of requests written but not yet answered. */
+    public int outstanding() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        disconnect(null, new IOException("Client closed"));
+    }
+
+    private double scalar(OpCode op, double a, double b) throws RemoteException {
+        ByteBuffer frame = frame((byte) op.code(), 16);
+        frame.putDouble(a).putDouble(b);
+        return call(frame).getDouble();
+    }
+
+    private double reduce(byte type, double[] a, double[] b) throws RemoteException {
+        if (a == null || (type == BinaryProtocol.DOT && b == null)) throw new RemoteException("Missing operand array");
+        ByteBuffer frame = frame(type, BinaryProtocol.arraySize(a) + (b == null ? 0 : BinaryProtocol.arraySize(b)));
+        BinaryProtocol.putArray(frame, a);
+        if (b != null) BinaryProtocol.putArray(frame, b);
+        return call(frame).getDouble();
+    }
+
+    private BatchResult elementWise(OpCode op, double[] a, double[] b) throws RemoteException {
+        if (a == null || (op.arity() == 2 && b == null)) {
+            throw new RemoteException("Missing operand array for " + op.opName());
+        }
+        if (b != null && a.length != b.length) {
+            throw new RemoteException("Array length mismatch: " + a.length + " vs " + b.length);
+        }
+        List<BatchOp> ops = new ArrayList<>(a.length);
+        for (int i = 0; i < a.length; i++) ops.add(new BatchOp(op, a[i], b == null ? 0 : b[i]));
+        return batch(ops, clientId);
+    }
+
+    /** Allocates a request with its header filled in; the request id is patched in by {@link #call}. */
+    private static ByteBuffer frame(byte type, int payload) {
+        ByteBuffer buf = ByteBuffer.allocate(4 + 8 + 1 + payload);
+        buf.putInt(8 + 1 + payload).putLong(0).put(type);
+        return buf;
+    }
+
+    private ByteBuffer call(ByteBuffer frame) throws RemoteException {
+        if (frame.capacity() - 4 > BinaryProtocol.MAX_FRAME) {
+            throw new RemoteException("Request of " + frame.capacity() + " bytes exceeds the binary protocol frame limit");
+        }
+        long id = nextId.incrementAndGet();
+        frame.putLong(4, id);
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        pending.put(id, future);
+        try {
+            send(frame.array());
+        } catch (IOException ex) {
+            pending.remove(id);
+            disconnect(null, ex);
+            throw new RemoteException("Binary transport to " + host + ":" + port + " failed", ex);
+        }
+        ByteBuffer resp;
+        try {
+            resp = future.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            pending.remove(id);
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted waiting for " + host + ":" + port, ex);
+        } catch (TimeoutException ex) {
+            pending.remove(id);
+            throw new RemoteException("No response from " + host + ":" + port + " within " + callTimeoutMillis + " ms", ex);
+        } catch (ExecutionException ex) {
+            throw new RemoteException("Binary transport to " + host + ":" + port + " failed", ex.getCause());
+        }
+        if (resp.get() == BinaryProtocol.STATUS_ERROR) {
+            throw new ServerException("Error occurred in server",
+                    new RemoteException(BinaryProtocol.getString(resp)));
+        }
+        return resp;
+    }
+
+    private synchronized void send(byte[] bytes) throws IOException {
+        if (closed) throw new IOException("Client closed");
+        if (socket == null) connect();
+        out.write(bytes);
+        out.flush();
+    }
+
+    private void connect() throws IOException {
+        Socket s = new Socket();
+        s.setTcpNoDelay(true);
+        s.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+        String id = BinaryProtocol.clip(clientId);
+        ByteBuffer hello = frame(BinaryProtocol.HELLO, BinaryProtocol.stringSize(id));
+        BinaryProtocol.putString(hello, id);
+        s.getOutputStream().write(hello.array());
+        socket = s;
+        out = s.getOutputStream();
+        Thread reader = new Thread(() -> readLoop(s), "binary-client-" + host + ":" + port);
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private void readLoop(Socket s) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()))) {
+            while (true) {
+                int len = in.readInt();
+                if (len < 9 || len > BinaryProtocol.MAX_FRAME) throw new IOException("Bad frame length " + len);
+                byte[] body = new byte[len];
+                in.readFully(body);
+                ByteBuffer resp = ByteBuffer.wrap(body);
+                CompletableFuture<ByteBuffer> f = pending.remove(resp.getLong());
+                if (f != null) f.complete(resp);
+            }
+        } catch (IOException ex) {
+            disconnect(s, ex instanceof EOFException ? new IOException("Connection closed by server") : ex);
+        }
+    }
+
+    /** Drops {@code broken} (or whatever is current when null) and fails every outstanding call. */
+    private void disconnect(Socket broken, IOException cause) {
+        synchronized (this) {
+            if (broken != null && broken != socket) return; // a newer connection already replaced it
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                }
+                socket = null;
+                out = null;
+            }
+        }
+        for (Long id : pending.keySet()) {
+            CompletableFuture<ByteBuffer> f = pending.remove(id);
+            if (f != null) f.completeExceptionally(cause);
+        }
+    }
+}
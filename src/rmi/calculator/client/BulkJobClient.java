@@ -0,0 +1,160 @@
+package rmi.calculator.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.registry.LocateRegistry;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.BulkChunk;
+import rmi.calculator.common.BulkJobService;
+import rmi.calculator.common.BulkJobSpec;
+import rmi.calculator.common.BulkJobStatus;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.PrecisionMode;
+
+/**
+ * Runs a bulk job against a server's {@link BulkJobService} and either streams the results
+ * into a local file (or stdout) or waits for the server to write its output file. Progress goes
+ * to stderr once a second.
+ *
+ * <pre>
+ * java rmi.calculator.client.BulkJobClient host[:port] op input [--format=csv|binary]
+ *      [--output=serverFile | --save=localFile] [--precision=fast|strict|decimal]
+ * </pre>
+ */
+public class BulkJobClient {
+    private static final long POLL_MILLIS = 1000;
+
+    public interface ChunkListener {
+        void onChunk(BulkChunk chunk) throws IOException;
+    }
+
+    public interface ProgressListener {
+        void onProgress(BulkJobStatus status);
+    }
+
+    private final BulkJobService service;
+    private final String clientId;
+
+    public BulkJobClient(BulkJobService service, String clientId) {
+        this.service = service;
+        this.clientId = clientId;
+    }
+
+    public static BulkJobClient connect(String endpoint, String clientId) throws Exception {
+        Endpoint e = Endpoint.parse(endpoint, 5050, BulkJobService.BINDING_NAME);
+        BulkJobService svc = (BulkJobService) LocateRegistry.getRegistry(e.getHost(), e.getPort()).lookup(e.getBindingName());
+        return new BulkJobClient(svc, clientId);
+    }
+
+    /** Runs a streaming job to completion, handing every chunk to {@code listener} in row order. */
+    public BulkJobStatus stream(BulkJobSpec spec, ChunkListener listener, ProgressListener progress) throws IOException {
+        if (!spec.isStreaming()) throw new IllegalArgumentException("spec writes to a server file; use run()");
+        long id = service.startBulkJob(spec, clientId);
+        long nextReport = System.currentTimeMillis() + POLL_MILLIS;
+        try {
+            while (true) {
+                BulkChunk chunk = service.nextBulkChunk(id, POLL_MILLIS);
+                if (chunk != null) {
+                    listener.onChunk(chunk);
+                    if (chunk.isLast()) break;
+                }
+                if (progress != null && System.currentTimeMillis() >= nextReport) {
+                    progress.onProgress(service.getBulkJobStatus(id));
+                    nextReport = System.currentTimeMillis() + POLL_MILLIS;
+                }
+            }
+            BulkJobStatus done = service.getBulkJobStatus(id);
+            service.cancelBulkJob(id); // releases the finished job
+            return done;
+        } catch (IOException | RuntimeException ex) {
+            try {
+                service.cancelBulkJob(id);
+            } catch (RemoteException ignored) {
+            }
+            throw ex;
+        }
+    }
+
+    /** Runs a job that writes its results to a server-side file and waits for it. */
+    public BulkJobStatus run(BulkJobSpec spec, ProgressListener progress) throws RemoteException, InterruptedException {
+        if (spec.isStreaming()) throw new IllegalArgumentException("spec streams its results; use stream()");
+        long id = service.startBulkJob(spec, clientId);
+        while (true) {
+            BulkJobStatus status = service.getBulkJobStatus(id);
+            if (status.isFinished()) return status;
+            if (progress != null) progress.onProgress(status);
+            Thread.sleep(POLL_MILLIS);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("usage: BulkJobClient host[:port] op input [--format=csv|binary]"
+                    + " [--output=serverFile | --save=localFile] [--precision=fast|strict|decimal]");
+            System.exit(2);
+        }
+        BulkJobSpec.Format format = args[2].toLowerCase().endsWith(".csv") ? BulkJobSpec.Format.CSV : BulkJobSpec.Format.BINARY;
+        String output = null;
+        String save = null;
+        PrecisionMode precision = PrecisionMode.STRICT;
+        for (int i = 3; i < args.length; i++) {
+            String a = args[i];
+            if (a.startsWith("--format=")) format = BulkJobSpec.Format.valueOf(a.substring(9).toUpperCase());
+            else if (a.startsWith("--output=")) output = a.substring(9);
+            else if (a.startsWith("--save=")) save = a.substring(7);
+            else if (a.startsWith("--precision=")) precision = PrecisionMode.valueOf(a.substring(12).toUpperCase());
+            else throw new IllegalArgumentException("Unrecognized argument: " + a);
+        }
+        BulkJobSpec spec = new BulkJobSpec(args[2], format, opByName(args[1]), output, precision);
+        BulkJobClient client = connect(args[0], "bulk " + System.getProperty("user.name"));
+        ProgressListener progress = s -> System.err.println(s);
+        long t0 = System.nanoTime();
+        BulkJobStatus done;
+        try {
+            if (spec.isStreaming()) {
+                try (OutputStream out = save == null ? System.out : Files.newOutputStream(Paths.get(save))) {
+                    done = client.stream(spec, writer(out, format), progress);
+                }
+            } else {
+                done = client.run(spec, progress);
+            }
+        } catch (ServerException ex) {
+            System.err.println("Bulk job failed: " + ex.getCause().getMessage());
+            System.exit(1);
+            return;
+        }
+        System.err.println(done + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+        System.exit(done.getState() == BulkJobStatus.State.DONE ? 0 : 1);
+    }
+
+    /** Writes chunks in the same layout the server uses for output files. */
+    static ChunkListener writer(OutputStream out, BulkJobSpec.Format format) {
+        if (format == BulkJobSpec.Format.BINARY) {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+            return chunk -> {
+                for (double v : chunk.getResults().values()) data.writeDouble(v);
+                data.flush();
+            };
+        }
+        PrintStream text = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+        return chunk -> {
+            BatchResult r = chunk.getResults();
+            for (int i = 0; i < r.size(); i++) text.println(r.isError(i) ? "ERROR: " + r.error(i) : Double.toString(r.value(i)));
+            text.flush();
+        };
+    }
+
+    private static OpCode opByName(String name) {
+        for (OpCode op : OpCode.values()) {
+            if (op.opName().equalsIgnoreCase(name) || op.name().equalsIgnoreCase(name)) return op;
+        }
+        throw new IllegalArgumentException("Unknown op '" + name + "'");
+    }
+}
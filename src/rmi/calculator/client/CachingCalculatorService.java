@@ -0,0 +1,209 @@
+package rmi.calculator.client;
+
+import java.rmi.RemoteException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationService;
+
+/**
+ * Near cache for results the client has already fetched: repeating a scalar operation, a
+ * built-in {@code invoke} or an {@code evaluate} of the same expression is answered locally
+ * instead of with a round trip. Scalar keys are the opcode and the raw bits of the operands, so
+ * a hit returns exactly what the server returned ({@code 0.0} and {@code -0.0} stay distinct).
+ * Only successful results are kept; errors always go to the server. Plugin operations are not
+ * cached because nothing promises they are deterministic. Array calls, {@code batch} and the
+ * catalog are forwarded unchanged.
+ *
+ * <p>The cache holds at most {@code capacity} entries and drops the least recently used one.
+ */
+public class CachingCalculatorService extends ForwardingCalculatorService {
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int[] BUILT_IN_ARITY = new int[OperationService.FIRST_PLUGIN_CODE]; // 0: no such op
+
+    static {
+        for (OpCode op : OpCode.values()) BUILT_IN_ARITY[op.code()] = op.arity();
+    }
+
+    private final int capacity;
+    private final Map<Object, Double> entries; // guarded by itself
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingCalculatorService(CalculatorService delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    public CachingCalculatorService(CalculatorService delegate, int capacity) {
+        super(delegate);
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Object, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Double> eldest) {
+                return size() > CachingCalculatorService.this.capacity;
+            }
+        };
+    }
+
+    @Override
+    public double add(double a, double b, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.ADD.code(), a, b);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.add(a, b, clientId));
+    }
+
+    @Override
+    public double sub(double a, double b, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.SUB.code(), a, b);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.sub(a, b, clientId));
+    }
+
+    @Override
+    public double mul(double a, double b, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.MUL.code(), a, b);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.mul(a, b, clientId));
+    }
+
+    @Override
+    public double div(double a, double b, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.DIV.code(), a, b);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.div(a, b, clientId));
+    }
+
+    @Override
+    public double pow(double a, double b, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.POW.code(), a, b);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.pow(a, b, clientId));
+    }
+
+    @Override
+    public double sqrt(double a, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.SQRT.code(), a, 0);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.sqrt(a, clientId));
+    }
+
+    @Override
+    public double sin(double a, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.SIN.code(), a, 0);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.sin(a, clientId));
+    }
+
+    @Override
+    public double cos(double a, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.COS.code(), a, 0);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.cos(a, clientId));
+    }
+
+    @Override
+    public double tan(double a, String clientId) throws RemoteException {
+        Key k = new Key(OpCode.TAN.code(), a, 0);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.tan(a, clientId));
+    }
+
+    /** Built-in opcodes share keys with the named methods: {@code invoke(SIN, x)} hits after {@code sin(x)}. */
+    @Override
+    public double invoke(int opcode, double[] args, String clientId) throws RemoteException {
+        if (opcode < 0 || opcode >= BUILT_IN_ARITY.length || args == null || args.length != BUILT_IN_ARITY[opcode]) {
+            return delegate.invoke(opcode, args, clientId); // plugin op, or the server reports the misuse
+        }
+        Key k = new Key(opcode, args[0], args.length > 1 ? args[1] : 0);
+        Double hit = lookup(k);
+        return hit != null ? hit : store(k, delegate.invoke(opcode, args, clientId));
+    }
+
+    @Override
+    public double evaluate(String expression, String clientId) throws RemoteException {
+        if (expression == null) return delegate.evaluate(expression, clientId);
+        Double hit = lookup(expression);
+        return hit != null ? hit : store(expression, delegate.evaluate(expression, clientId));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double hitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /** Forgets every result, e.g. after switching servers or precision. Counters are kept. */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /** One-line summary for logs, in the form the server prints for its result cache. */
+    public String stats() {
+        return String.format("hits=%d misses=%d hitRate=%.1f%% size=%d/%d",
+                getHitCount(), getMissCount(), hitRate() * 100, size(), capacity);
+    }
+
+    private Double lookup(Object key) {
+        Double v;
+        synchronized (entries) {
+            v = entries.get(key);
+        }
+        if (v == null) misses.increment(); else hits.increment();
+        return v;
+    }
+
+    private double store(Object key, double result) {
+        synchronized (entries) {
+            entries.put(key, result);
+        }
+        return result;
+    }
+
+    private static final class Key {
+        final int opcode;
+        final long aBits;
+        final long bBits;
+
+        Key(int opcode, double a, double b) {
+            this.opcode = opcode;
+            this.aBits = Double.doubleToRawLongBits(a);
+            this.bBits = Double.doubleToRawLongBits(b);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return opcode == k.opcode && aBits == k.aBits && bBits == k.bBits;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = aBits * 31 + bBits;
+            return (int) (h ^ (h >>> 32)) * 31 + opcode;
+        }
+    }
+}
@@ -1,36 +1,34 @@
 package rmi.calculator.client;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import javax.swing.*;
+import rmi.calculator.common.AsyncLogBuffer;
+import rmi.calculator.common.LogLevel;
+import rmi.calculator.common.TextAreaAppender;
 
 public class ClientLogger {
-    private final JTextArea logArea;
-    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private final AsyncLogBuffer buffer;
     private final String clientTag; // username + IP
 
     public ClientLogger(JTextArea logArea, String clientTag) {
-        this.logArea = logArea;
         this.clientTag = clientTag;
+        this.buffer = new AsyncLogBuffer("client-log", 1024, new TextAreaAppender(logArea, 500));
+    }
+
+    public void setLevel(LogLevel level) {
+        buffer.setLevel(level);
     }
 
     public void info(String message) {
-        append("INFO", message);
+        if (buffer.getLevel() == LogLevel.INFO) buffer.message(LogLevel.INFO, clientTag, message);
     }
 
     public void error(String message, Throwable t) {
-        append("ERROR", message + " | " + t.getClass().getSimpleName() + ": " + t.getMessage());
+        if (buffer.isErrorEnabled()) {
+            buffer.message(LogLevel.ERROR, clientTag, message + " | " + t.getClass().getSimpleName() + ": " + t.getMessage());
+        }
     }
 
-    private void append(String level, String message) {
-        final String ts = sdf.format(new Date());
-        final String line = String.format("[%s] [%s] [%s] %s\n", ts, level, clientTag, message);
-        if (SwingUtilities.isEventDispatchThread()) {
-            logArea.append(line);
-        } else {
-            SwingUtilities.invokeLater(() -> logArea.append(line));
-        }
+    public void close() {
+        buffer.close();
     }
 }
-
-
@@ -1,20 +1,46 @@
 package rmi.calculator.client;
 
 import java.awt.*;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Paths;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
 import javax.swing.*;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import rmi.calculator.common.BinaryProtocol;
 import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.OtlpJsonExporter;
 
 public class ClientUI extends JFrame {
+    private static final String MORE_OPS = "more functions...";
+
     private final JTextField display = new JTextField("0");
     private final JLabel expressionLabel = new JLabel(" ");
     private final JTextArea logArea = new JTextArea();
+    private final Map<JButton, Capability> opButtons = new LinkedHashMap<>();
+    private final JComboBox<String> moreOps = new JComboBox<>();
+    private Map<String, OperationInfo> catalog = builtInCatalog(); // by name, EDT only; replaced by the server's
 
     private CalculatorService service;
+    private CachingCalculatorService nearCache; // null when calculator.cacheSize=0
+    private OtlpJsonExporter traces; // null unless calculator.traceFile is set
+    private EndpointPool pool;
+    private final AsyncCalculatorClient async;
     private final String username;
     private final String clientIp;
     private final String clientTag;
@@ -24,10 +50,14 @@ public class ClientUI extends JFrame {
     private final int port;
     private final String bindingName;
 
-    private Double accumulator = null;
+    private final StringBuilder expression = new StringBuilder(); // committed operands and operators
     private String pendingOp = null; // "+", "-", "*", "/", "^"
+    private boolean operatorLast = false; // last key committed an operator and no operand followed yet
     private boolean resetInput = true;
     private String pendingUnary = null; // "sqrt", "sin", "cos", "tan"
+    private long inputVersion = 0; // bumped on every key so late results never overwrite newer input
+    private boolean resultPending = false; // a call whose result will become the display is in flight
+    private final ArrayDeque<Runnable> queuedKeys = new ArrayDeque<>(); // keys that need that result first
 
     public ClientUI(String host, int port, String bindingName, String username) {
         super("RMI Scientific Calculator - Client");
@@ -37,13 +67,22 @@ public class ClientUI extends JFrame {
         this.username = username;
         this.clientIp = resolveLocalIp();
         this.clientTag = username + " " + clientIp;
+        this.async = new AsyncCalculatorClient(null,
+                Long.getLong("calculator.timeoutMillis", AsyncCalculatorClient.DEFAULT_TIMEOUT_MILLIS));
         initUI();
         connect();
     }
 
     private void initUI() {
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setSize(380, 560);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                if (pool != null) pool.close(); // releases the server-side sessions
+                if (traces != null) traces.close();
+            }
+        });
+        setSize(380, 590);
         setLocationRelativeTo(null);
 
         JPanel header = new JPanel(new GridLayout(2, 1));
@@ -69,6 +108,13 @@ public class ClientUI extends JFrame {
         screen.add(display);
         center.add(screen, BorderLayout.NORTH);
         center.add(keypad, BorderLayout.CENTER);
+        JPanel extras = new JPanel(new BorderLayout(6, 0));
+        extras.add(buildMoreOps(), BorderLayout.CENTER);
+        JButton cacheButton = new JButton("Cache");
+        cacheButton.setToolTipText("Log near cache hit/miss counters");
+        cacheButton.addActionListener(e -> logCacheStats());
+        extras.add(cacheButton, BorderLayout.EAST);
+        center.add(extras, BorderLayout.SOUTH);
 
         getContentPane().setLayout(new BorderLayout(8, 8));
         getContentPane().add(header, BorderLayout.NORTH);
@@ -92,13 +138,115 @@ public class ClientUI extends JFrame {
             for (String label : row) {
                 JButton btn = new JButton(label);
                 btn.addActionListener(e -> onButton(label));
+                Capability needs = requiredCapability(label);
+                if (needs != null) opButtons.put(btn, needs);
                 panel.add(btn);
             }
         }
         return panel;
     }
 
+    /** Operations beyond the keypad, filled from the server's catalog and refreshed when opened. */
+    private JComboBox<String> buildMoreOps() {
+        moreOps.addItem(MORE_OPS);
+        moreOps.setEnabled(false);
+        moreOps.addActionListener(e -> {
+            Object selected = moreOps.getSelectedItem();
+            if (selected == null || MORE_OPS.equals(selected)) return;
+            moreOps.setSelectedIndex(0);
+            OperationInfo op = catalog.get(selected);
+            if (op == null) return;
+            if (resultPending) {
+                queuedKeys.add(() -> {
+                    inputVersion++;
+                    applyOperation(op);
+                });
+                return;
+            }
+            inputVersion++;
+            applyOperation(op);
+        });
+        moreOps.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                refreshCatalog();
+            }
+
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+
+            @Override
+            public void popupMenuCanceled(PopupMenuEvent e) {
+            }
+        });
+        return moreOps;
+    }
+
+    private static Map<String, OperationInfo> builtInCatalog() {
+        Map<String, OperationInfo> ops = new LinkedHashMap<>();
+        for (OpCode op : OpCode.values()) {
+            ops.put(op.opName(), new OperationInfo(op.code(), op.opName(), op.arity(), Capability.of(op)));
+        }
+        return ops;
+    }
+
+    /** Fetches the server's operation catalog; operations hot-loaded on the server appear here. */
+    private void refreshCatalog() {
+        async.operations().whenComplete((ops, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) {
+                logger.error("Cannot load the operation catalog", AsyncCalculatorClient.unwrap(err));
+                return;
+            }
+            Map<String, OperationInfo> byName = new LinkedHashMap<>();
+            List<String> extra = new ArrayList<>();
+            for (OperationInfo op : ops) {
+                byName.put(op.getName(), op);
+                if (!op.isBuiltIn()) extra.add(op.getName());
+            }
+            catalog = byName;
+            List<String> shown = new ArrayList<>();
+            for (int i = 1; i < moreOps.getItemCount(); i++) shown.add(moreOps.getItemAt(i));
+            if (shown.equals(extra)) return; // leave an open popup alone
+            moreOps.removeAllItems();
+            moreOps.addItem(MORE_OPS);
+            for (String name : extra) moreOps.addItem(name);
+            moreOps.setEnabled(!extra.isEmpty());
+            logger.info("Server functions: " + extra);
+        }));
+    }
+
+    /** Capability a keypad button needs, or null for buttons that work locally. */
+    private static Capability requiredCapability(String label) {
+        switch (label) {
+            case "+": case "-": case "*": case "/": case "x^y": case "√":
+                return Capability.MATH;
+            case "sin": case "cos": case "tan":
+                return Capability.TRIG;
+            default:
+                return null;
+        }
+    }
+
+    private void updateAvailableOps(Set<Capability> available) {
+        for (Map.Entry<JButton, Capability> e : opButtons.entrySet()) {
+            e.getKey().setEnabled(available.contains(e.getValue()));
+        }
+    }
+
+    /**
+     * Digits start a new entry and abandon an in-flight result. Any other key needs the value that
+     * result puts on the display, so it waits in {@link #queuedKeys} and replays once it lands.
+     */
     private void onButton(String label) {
+        if ("AC".equals(label)) {
+            queuedKeys.clear();
+        } else if (resultPending && (!queuedKeys.isEmpty() || !startsNewEntry(label))) {
+            queuedKeys.add(() -> onButton(label));
+            return;
+        }
+        inputVersion++;
+        resultPending = false;
         switch (label) {
             case "0": case "1": case "2": case "3": case "4":
             case "5": case "6": case "7": case "8": case "9":
@@ -124,26 +272,151 @@ public class ClientUI extends JFrame {
             case "√":
                 onUnaryPressed("sqrt");
                 break;
-            case "sin": case "cos": case "tan":
-                onUnaryPressed(label);
-                break;
             default:
+                onUnaryPressed(label); // function keys carry the operation's catalog name
                 break;
         }
     }
 
+    private static boolean startsNewEntry(String label) {
+        return label.length() == 1 && (Character.isDigit(label.charAt(0)) || label.equals("."));
+    }
+
     private void connect() {
-        try {
-            Registry registry = LocateRegistry.getRegistry(host, port);
-            service = (CalculatorService) registry.lookup(bindingName);
-            logger.info("Connected to server '" + bindingName + "' at " + host + ":" + port);
-        } catch (Exception ex) {
-            logger.error("Failed to connect to server", ex);
-            JOptionPane.showMessageDialog(this, "Cannot connect to server: " + ex.getMessage(), "Connection Error", JOptionPane.ERROR_MESSAGE);
+        if ("binary".equalsIgnoreCase(System.getProperty("calculator.transport", "rmi"))) {
+            connectBinary();
+            return;
         }
+        // Registry lookups are network calls too, so they stay off the EDT
+        CompletableFuture.supplyAsync(() -> {
+            EndpointPool p = EndpointPool.fromSpec(host, port, bindingName, routingPolicy());
+            p.useSessions(clientTag);
+            p.connectAll();
+            return p;
+        }).whenComplete((p, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) {
+                Throwable cause = AsyncCalculatorClient.unwrap(err);
+                logger.error("Failed to connect to server", cause);
+                JOptionPane.showMessageDialog(this, "Cannot connect to server: " + cause.getMessage(), "Connection Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            p.addListener(new EndpointPool.Listener() {
+                @Override
+                public void endpointDown(Endpoint endpoint, Throwable cause) {
+                    logger.error("Server " + endpoint + " unavailable, routing around it", cause);
+                }
+
+                @Override
+                public void endpointUp(Endpoint endpoint) {
+                    logger.info("Server " + endpoint + " is back");
+                }
+
+                @Override
+                public void capabilitiesChanged(Set<Capability> available) {
+                    logger.info("Available functions changed: " + available);
+                    SwingUtilities.invokeLater(() -> updateAvailableOps(available));
+                    refreshCatalog();
+                }
+            });
+            updateAvailableOps(p.availableCapabilities());
+            pool = p;
+            service = decorate(p.asService());
+            async.setService(service);
+            refreshCatalog();
+            int up = 0;
+            for (Endpoint e : p.getEndpoints()) {
+                if (e.isHealthy()) up++;
+                logger.info("Server " + e + (e.isHealthy() ? " connected, offers " + e.getCapabilities() : " unavailable"));
+            }
+            logger.info("Routing " + p.getPolicy() + " across " + up + "/" + p.getEndpoints().size() + " server(s)");
+            if (up == 0) {
+                JOptionPane.showMessageDialog(this, "Cannot connect to server: no endpoint reachable, will keep retrying",
+                        "Connection Error", JOptionPane.ERROR_MESSAGE);
+            }
+        }));
+    }
+
+    /**
+     * Pipelined binary transport to the first listed server. It has no registry to discover
+     * capabilities from, so every button stays enabled and the server rejects what it lacks.
+     */
+    private void connectBinary() {
+        String first = Endpoint.parse(host.split(",")[0].trim(), port, bindingName).getHost();
+        int binaryPort = Integer.getInteger("calculator.binaryPort", BinaryProtocol.DEFAULT_PORT);
+        service = decorate(new BinaryCalculatorClient(first, binaryPort, clientTag,
+                Long.getLong("calculator.timeoutMillis", AsyncCalculatorClient.DEFAULT_TIMEOUT_MILLIS)));
+        async.setService(service);
+        updateAvailableOps(EnumSet.allOf(Capability.class));
+        refreshCatalog();
+        logger.info("Using binary protocol to " + first + ":" + binaryPort + " (connects on first call)");
+    }
+
+    /**
+     * Repeated calls are answered locally unless {@code calculator.cacheSize} is 0; the calls
+     * that do go out are traced to {@code calculator.traceFile}, one in {@code calculator.traceSample}.
+     */
+    private CalculatorService decorate(CalculatorService remote) {
+        CalculatorService s = remote;
+        String traceFile = System.getProperty("calculator.traceFile", "").trim();
+        if (!traceFile.isEmpty()) {
+            try {
+                if (traces == null) traces = new OtlpJsonExporter(Paths.get(traceFile), "calculator-client");
+                int every = Integer.getInteger("calculator.traceSample", 1);
+                s = new TracingCalculatorService(s, traces, every);
+                logger.info("Tracing 1 in " + every + " calls to " + traces.getFile().toAbsolutePath());
+            } catch (IOException ex) {
+                logger.error("Tracing disabled", ex);
+            }
+        }
+        int size = Integer.getInteger("calculator.cacheSize", CachingCalculatorService.DEFAULT_CAPACITY);
+        nearCache = size > 0 ? new CachingCalculatorService(s, size) : null;
+        return nearCache != null ? nearCache : s;
+    }
+
+    private void logCacheStats() {
+        logger.info(nearCache == null ? "Near cache disabled" : "Near cache: " + nearCache.stats());
+    }
+
+    private static EndpointPool.Policy routingPolicy() {
+        String name = System.getProperty("calculator.routing", EndpointPool.Policy.ROUND_ROBIN.name());
+        return EndpointPool.Policy.valueOf(name.trim().toUpperCase());
+    }
+
+    /**
+     * Applies a remote result on the EDT, then replays any keys queued behind it. If the user
+     * started a new entry while the call was in flight the result is only logged, so input is
+     * never blocked or overwritten.
+     */
+    private void onResult(CompletableFuture<Double> future, String what, DoubleConsumer apply) {
+        final long version = inputVersion;
+        resultPending = true;
+        future.whenComplete((res, err) -> SwingUtilities.invokeLater(() -> {
+            boolean current = version == inputVersion;
+            if (current) resultPending = false;
+            if (err != null) {
+                Throwable cause = AsyncCalculatorClient.unwrap(err);
+                logger.error("Error during " + what, cause);
+                if (current) {
+                    if (!queuedKeys.isEmpty()) logger.info("Discarding " + queuedKeys.size() + " key(s) typed after " + what);
+                    queuedKeys.clear();
+                    JOptionPane.showMessageDialog(this, cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            } else if (current) {
+                apply.accept(res);
+                replayQueuedKeys();
+            } else {
+                logger.info(what + " = " + res + " (arrived after newer input, not displayed)");
+            }
+        }));
+    }
+
+    /** Runs queued keys in order until one of them starts another remote call. */
+    private void replayQueuedKeys() {
+        while (!resultPending && !queuedKeys.isEmpty()) queuedKeys.poll().run();
     }
 
     private void appendDigit(String d) {
+        operatorLast = false;
         if (resetInput || display.getText().equals("0")) {
             display.setText(d);
             resetInput = false;
@@ -154,6 +427,7 @@ public class ClientUI extends JFrame {
     }
 
     private void appendDot() {
+        operatorLast = false;
         if (resetInput) {
             display.setText("0.");
             resetInput = false;
@@ -166,6 +440,7 @@ public class ClientUI extends JFrame {
     private void toggleSign() {
         String t = display.getText();
         if (t.equals("0")) return;
+        operatorLast = false;
         if (t.startsWith("-")) display.setText(t.substring(1)); else display.setText("-" + t);
     }
 
@@ -176,9 +451,10 @@ public class ClientUI extends JFrame {
     }
 
     private void clearAll() {
-        accumulator = null;
+        expression.setLength(0);
         pendingOp = null;
         pendingUnary = null;
+        operatorLast = false;
         clearEntry();
         expressionLabel.setText(" ");
     }
@@ -207,29 +483,19 @@ public class ClientUI extends JFrame {
             logger.info("Service not connected");
             return;
         }
-        try {
-            // If there is a pending unary applied to current input, resolve it first
-            if (pendingUnary != null && !resetInput) {
-                double val = currentValue();
-                double unaryRes = applyUnaryCompute(pendingUnary, val);
-                display.setText(Double.toString(unaryRes));
-                pendingUnary = null;
-            }
-            double val = currentValue();
-            if (accumulator == null) {
-                accumulator = val;
-            } else if (pendingOp != null && !resetInput) {
-                accumulator = computeRemote(accumulator, val, pendingOp);
-                display.setText(Double.toString(accumulator));
-            }
-            pendingOp = op;
-            resetInput = true;
-            logger.info("Pending op='" + op + "' accumulator=" + accumulator + " input=" + val);
-            updateExpressionAfterOp(op);
-        } catch (Exception ex) {
-            logger.error("Error during binary op", ex);
-            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        if (operatorLast && pendingUnary == null) {
+            // Operator pressed twice in a row: replace the previous one
+            expression.setLength(expression.length() - pendingOp.length() - 2);
+        } else {
+            expression.append(currentOperand());
         }
+        expression.append(' ').append(op).append(' ');
+        pendingOp = op;
+        pendingUnary = null;
+        operatorLast = true;
+        resetInput = true;
+        logger.info("Pending op='" + op + "' expression=" + expression);
+        updateExpressionAfterOp();
     }
 
     private void evaluateEquals() {
@@ -237,29 +503,31 @@ public class ClientUI extends JFrame {
             logger.info("Service not connected");
             return;
         }
-        try {
-            double rightVal = currentValue();
-            if (pendingUnary != null) {
-                rightVal = applyUnaryCompute(pendingUnary, rightVal);
-                pendingUnary = null;
-                display.setText(Double.toString(rightVal));
-            }
-            if (pendingOp == null) {
-                // only unary
-                expressionLabel.setText(" ");
-                resetInput = true;
-                return;
-            }
-            accumulator = computeRemote(accumulator == null ? 0.0 : accumulator, rightVal, pendingOp);
-            display.setText(Double.toString(accumulator));
-            logger.info("= result=" + accumulator);
-            pendingOp = null;
-            resetInput = true;
+        if (pendingOp == null && pendingUnary == null) {
             expressionLabel.setText(" ");
-        } catch (Exception ex) {
-            logger.error("Error during equals", ex);
-            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            resetInput = true;
+            return;
         }
+        String expr = expression + currentOperand();
+        // The whole expression is evaluated server-side in one call
+        expression.setLength(0);
+        pendingOp = null;
+        pendingUnary = null;
+        resetInput = true;
+        expressionLabel.setText(expr + " =");
+        onResult(async.evaluate(expr, clientTag), expr, res -> {
+            display.setText(Double.toString(res));
+            logger.info(expr + " = " + res);
+            expressionLabel.setText(" ");
+        });
+    }
+
+    /** The value on the display as expression text, wrapped in the pending unary function if any. */
+    private String currentOperand() {
+        String value = display.getText();
+        if (value.endsWith(".")) value = value.substring(0, value.length() - 1);
+        if (value.startsWith("-")) value = "(" + value + ")";
+        return pendingUnary == null ? value : pendingUnary + "(" + value + ")";
     }
 
     private void onUnaryPressed(String fn) {
@@ -267,46 +535,63 @@ public class ClientUI extends JFrame {
             logger.info("Service not connected");
             return;
         }
+        operatorLast = false;
         // If user hasn't typed a number or just started a new entry, go into unary-building mode
         if (resetInput || display.getText().equals("0")) {
             pendingUnary = fn;
-            expressionLabel.setText(unaryName(fn) + "(" + (resetInput ? "" : display.getText()) + ")");
+            expressionLabel.setText(expression + unaryName(fn) + "(" + (resetInput ? "" : display.getText()) + ")");
             resetInput = true; // next digit replaces 0
             return;
         }
         // Otherwise apply immediately to current value
-        try {
-            double val = currentValue();
-            double res = applyUnaryCompute(fn, val);
+        double val = currentValue();
+        resetInput = true;
+        expressionLabel.setText(expression + fn + "(" + val + ")");
+        onResult(applyUnaryCompute(fn, val), fn + "(" + val + ")", res -> {
             display.setText(Double.toString(res));
             logger.info("Applied " + fn + "(" + val + ") = " + res);
-            resetInput = true;
-            expressionLabel.setText(fn + "(" + val + ")");
-        } catch (RemoteException ex) {
-            logger.error("Remote error in unary op", ex);
-            JOptionPane.showMessageDialog(this, ex.getMessage(), "Remote Error", JOptionPane.ERROR_MESSAGE);
-        }
+        });
     }
 
-    private double applyUnaryCompute(String fn, double val) throws RemoteException {
-        switch (fn) {
-            case "sqrt": return service.sqrt(val, clientTag);
-            case "sin": return service.sin(val, clientTag);
-            case "cos": return service.cos(val, clientTag);
-            case "tan": return service.tan(val, clientTag);
-            default: throw new RemoteException("Unsupported unary: " + fn);
+    private CompletableFuture<Double> applyUnaryCompute(String fn, double val) {
+        OperationInfo op = catalog.get(fn);
+        if (op == null || op.getArity() != 1) {
+            return CompletableFuture.failedFuture(new RemoteException(fn + " is not offered by the server"));
         }
+        return async.invoke(op.getCode(), new double[] {val}, clientTag);
     }
 
-    private double computeRemote(double a, double b, String op) throws RemoteException {
-        switch (op) {
-            case "+": return service.add(a, b, clientTag);
-            case "-": return service.sub(a, b, clientTag);
-            case "*": return service.mul(a, b, clientTag);
-            case "/": return service.div(a, b, clientTag);
-            case "^": return service.pow(a, b, clientTag);
-            default: throw new RemoteException("Unsupported op: " + op);
+    /** Applies a catalog operation to the displayed value, asking for any further arguments. */
+    private void applyOperation(OperationInfo op) {
+        if (service == null) {
+            logger.info("Service not connected");
+            return;
         }
+        double[] args = new double[op.getArity()];
+        try {
+            args[0] = currentValue();
+            if (args.length > 1) {
+                String rest = JOptionPane.showInputDialog(this, op.getName() + "(" + args[0] + ", ...): the other "
+                        + (args.length - 1) + " argument(s), comma-separated");
+                if (rest == null) return;
+                String[] parts = rest.split(",");
+                if (parts.length != args.length - 1) {
+                    throw new IllegalArgumentException(op.getName() + " expects " + op.getArity() + " arguments");
+                }
+                for (int i = 1; i < args.length; i++) args[i] = Double.parseDouble(parts[i - 1].trim());
+            }
+        } catch (IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        String call = op.getName() + "(" + Arrays.toString(args).substring(1).replace("]", ")");
+        operatorLast = false;
+        resetInput = true;
+        expressionLabel.setText(expression + call);
+        onResult(async.invoke(op.getCode(), args, clientTag), call, res -> {
+            display.setText(Double.toString(res));
+            logger.info("Applied " + call + " = " + res);
+        });
     }
 
     private String resolveLocalIp() {
@@ -317,21 +602,14 @@ public class ClientUI extends JFrame {
         }
     }
 
-    private void updateExpressionAfterOp(String op) {
-        String left = accumulator == null ? "" : trimTrailingZero(accumulator);
-        expressionLabel.setText(left + " " + op + " ");
-    }
-
-    private String trimTrailingZero(double v) {
-        String s = Double.toString(v);
-        if (s.endsWith(".0")) return s.substring(0, s.length()-2);
-        return s;
+    private void updateExpressionAfterOp() {
+        expressionLabel.setText(expression.toString());
     }
 
     private void updateExpressionTyping() {
         if (pendingUnary != null) {
             String cur = resetInput ? "" : display.getText();
-            expressionLabel.setText(unaryName(pendingUnary) + "(" + cur + ")");
+            expressionLabel.setText(expression + unaryName(pendingUnary) + "(" + cur + ")");
         }
     }
 
@@ -0,0 +1,223 @@
+package rmi.calculator.client;
+
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.OpCode;
+
+/**
+ * Coalesces scalar calls made concurrently from many threads into shared round trips, one
+ * element-wise array call per operation. Callers queue their operation; whichever caller finds
+ * no round trip in progress becomes the leader and sends everything queued so far, and once its
+ * own call is answered wakes the next waiter to take over. Everyone else waits for their result.
+ *
+ * <p>A call that finds the queue otherwise empty is sent on its own through the plain scalar
+ * method, so an interactive client pays nothing extra. The optional window only applies once
+ * there is contention: the leader then lingers up to {@code windowMicros} to let the batch fill
+ * to {@code maxBatch}. Array calls, {@code batch} and {@code evaluate} are forwarded unchanged.
+ */
+public class CoalescingCalculatorService extends ForwardingCalculatorService {
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private final long windowNanos;
+    private final int maxBatch;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder roundTrips = new LongAdder();
+
+    public CoalescingCalculatorService(CalculatorService delegate) {
+        this(delegate, 0, DEFAULT_MAX_BATCH);
+    }
+
+    public CoalescingCalculatorService(CalculatorService delegate, long windowMicros, int maxBatch) {
+        super(delegate);
+        if (windowMicros < 0) throw new IllegalArgumentException("windowMicros must be >= 0");
+        if (maxBatch < 1) throw new IllegalArgumentException("maxBatch must be >= 1");
+        this.windowNanos = windowMicros * 1000;
+        this.maxBatch = maxBatch;
+    }
+
+    @Override public double add(double a, double b, String clientId) throws RemoteException { return call(OpCode.ADD, a, b, clientId); }
+    @Override public double sub(double a, double b, String clientId) throws RemoteException { return call(OpCode.SUB, a, b, clientId); }
+    @Override public double mul(double a, double b, String clientId) throws RemoteException { return call(OpCode.MUL, a, b, clientId); }
+    @Override public double div(double a, double b, String clientId) throws RemoteException { return call(OpCode.DIV, a, b, clientId); }
+    @Override public double pow(double a, double b, String clientId) throws RemoteException { return call(OpCode.POW, a, b, clientId); }
+    @Override public double sqrt(double a, String clientId) throws RemoteException { return call(OpCode.SQRT, a, 0, clientId); }
+    @Override public double sin(double a, String clientId) throws RemoteException { return call(OpCode.SIN, a, 0, clientId); }
+    @Override public double cos(double a, String clientId) throws RemoteException { return call(OpCode.COS, a, 0, clientId); }
+    @Override public double tan(double a, String clientId) throws RemoteException { return call(OpCode.TAN, a, 0, clientId); }
+
+    /** Scalar calls accepted so far. */
+    public long getCallCount() {
+        return calls.sum();
+    }
+
+    /** Remote requests actually sent for those calls. */
+    public long getRoundTripCount() {
+        return roundTrips.sum();
+    }
+
+    private double call(OpCode op, double a, double b, String clientId) throws RemoteException {
+        calls.increment();
+        Pending p = new Pending(new BatchOp(op, a, b), clientId);
+        queue.add(p);
+        queued.incrementAndGet();
+        boolean interrupted = false;
+        while (!p.done) {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    sendQueued();
+                } finally {
+                    sending.set(false);
+                }
+                // Hand leadership to a waiter rather than serving everyone else's calls forever;
+                // releasing before this check means no queued call can be stranded
+                wakeNext();
+            } else {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                    // Still queued: withdraw. Already drained: the call is in flight, wait it out
+                    if (queue.remove(p)) {
+                        queued.decrementAndGet();
+                        wakeNext();
+                        Thread.currentThread().interrupt();
+                        throw new RemoteException("Interrupted waiting for " + op.opName());
+                    }
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (p.error == null) return p.value;
+        if (p.error instanceof RemoteException) throw (RemoteException) p.error;
+        throw (RuntimeException) p.error;
+    }
+
+    private void wakeNext() {
+        Pending next = queue.peek();
+        if (next != null) LockSupport.unpark(next.waiter);
+    }
+
+    private void sendQueued() {
+        if (queued.get() > 1 && windowNanos > 0) {
+            long deadline = System.nanoTime() + windowNanos;
+            while (queued.get() < maxBatch && System.nanoTime() < deadline) LockSupport.parkNanos(10_000);
+        }
+        List<Pending> drained = new ArrayList<>(Math.min(queued.get(), maxBatch));
+        Pending p;
+        while (drained.size() < maxBatch && (p = queue.poll()) != null) {
+            queued.decrementAndGet();
+            drained.add(p);
+        }
+        if (drained.size() == 1) {
+            sendSingle(drained.get(0));
+            return;
+        }
+        // One element-wise call per (client id, op): primitive arrays serialize far cheaper
+        // than a List<BatchOp>, and calls stay attributed to their own client on the server
+        Map<String, List<Pending>> groups = new LinkedHashMap<>();
+        for (Pending d : drained) groups.computeIfAbsent(d.op.getOp() + "|" + d.clientId, k -> new ArrayList<>()).add(d);
+        for (List<Pending> group : groups.values()) {
+            if (group.size() == 1) sendSingle(group.get(0));
+            else sendGroup(group);
+        }
+    }
+
+    private void sendSingle(Pending p) {
+        roundTrips.increment();
+        BatchOp op = p.op;
+        try {
+            double r;
+            switch (op.getOp()) {
+                case ADD: r = delegate.add(op.getA(), op.getB(), p.clientId); break;
+                case SUB: r = delegate.sub(op.getA(), op.getB(), p.clientId); break;
+                case MUL: r = delegate.mul(op.getA(), op.getB(), p.clientId); break;
+                case DIV: r = delegate.div(op.getA(), op.getB(), p.clientId); break;
+                case POW: r = delegate.pow(op.getA(), op.getB(), p.clientId); break;
+                case SQRT: r = delegate.sqrt(op.getA(), p.clientId); break;
+                case SIN: r = delegate.sin(op.getA(), p.clientId); break;
+                case COS: r = delegate.cos(op.getA(), p.clientId); break;
+                case TAN: r = delegate.tan(op.getA(), p.clientId); break;
+                default: throw new RemoteException("Unsupported op: " + op.getOp());
+            }
+            p.complete(r, null);
+        } catch (RemoteException | RuntimeException ex) {
+            p.complete(Double.NaN, ex);
+        }
+    }
+
+    private void sendGroup(List<Pending> group) {
+        roundTrips.increment();
+        OpCode op = group.get(0).op.getOp();
+        String clientId = group.get(0).clientId;
+        int n = group.size();
+        double[] a = new double[n];
+        double[] b = op.arity() == 2 ? new double[n] : null;
+        for (int i = 0; i < n; i++) {
+            a[i] = group.get(i).op.getA();
+            if (b != null) b[i] = group.get(i).op.getB();
+        }
+        BatchResult result;
+        try {
+            switch (op) {
+                case ADD: result = delegate.add(a, b, clientId); break;
+                case SUB: result = delegate.sub(a, b, clientId); break;
+                case MUL: result = delegate.mul(a, b, clientId); break;
+                case DIV: result = delegate.div(a, b, clientId); break;
+                case POW: result = delegate.pow(a, b, clientId); break;
+                case SQRT: result = delegate.sqrt(a, clientId); break;
+                case SIN: result = delegate.sin(a, clientId); break;
+                case COS: result = delegate.cos(a, clientId); break;
+                case TAN: result = delegate.tan(a, clientId); break;
+                default: throw new RemoteException("Unsupported op: " + op);
+            }
+        } catch (RemoteException | RuntimeException ex) {
+            for (Pending p : group) p.complete(Double.NaN, ex);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            Pending p = group.get(i);
+            if (result.isError(i)) {
+                // Same shape a direct call's failure has when it comes back through an RMI stub
+                p.complete(Double.NaN, new ServerException("Error occurred in server",
+                        new RemoteException(result.error(i))));
+            } else {
+                p.complete(result.value(i), null);
+            }
+        }
+    }
+
+    private static final class Pending {
+        final BatchOp op;
+        final String clientId;
+        final Thread waiter = Thread.currentThread();
+        double value;
+        Exception error;
+        volatile boolean done;
+
+        Pending(BatchOp op, String clientId) {
+            this.op = op;
+            this.clientId = clientId;
+        }
+
+        void complete(double value, Exception error) {
+            this.value = value;
+            this.error = error;
+            done = true;
+            LockSupport.unpark(waiter);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package rmi.calculator.client;
+
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.SessionService;
+
+/** One calculator server registry entry plus the routing state kept for it by {@link EndpointPool}. */
+public final class Endpoint {
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final String host;
+    private final int port;
+    private final String bindingName;
+
+    private volatile CalculatorService stub;
+    private volatile boolean healthy = true;
+    private volatile Set<Capability> capabilities = EnumSet.allOf(Capability.class);
+    private volatile long downSince;
+    private volatile double latencyEwmaNanos; // 0 until the first successful call
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile long session; // 0 until opened on this endpoint's current stub
+
+    public Endpoint(String host, int port, String bindingName) {
+        this.host = host;
+        this.port = port;
+        this.bindingName = bindingName;
+    }
+
+    /** Parses {@code host}, {@code host:port} or {@code host:port/binding}. */
+    public static Endpoint parse(String spec, int defaultPort, String defaultBinding) {
+        String s = spec.trim();
+        String binding = defaultBinding;
+        int slash = s.indexOf('/');
+        if (slash >= 0) {
+            binding = s.substring(slash + 1);
+            s = s.substring(0, slash);
+        }
+        int port = defaultPort;
+        int colon = s.lastIndexOf(':');
+        if (colon >= 0) {
+            try {
+                port = Integer.parseInt(s.substring(colon + 1));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid port in endpoint '" + spec + "'");
+            }
+            s = s.substring(0, colon);
+        }
+        if (s.isEmpty()) throw new IllegalArgumentException("Missing host in endpoint '" + spec + "'");
+        return new Endpoint(s, port, binding);
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getBindingName() {
+        return bindingName;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /** Capabilities seen at the last registry listing; all of them until the first listing. */
+    public Set<Capability> getCapabilities() {
+        return capabilities;
+    }
+
+    public boolean supports(Set<Capability> required) {
+        return capabilities.containsAll(required);
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public double getLatencyMillis() {
+        return latencyEwmaNanos / 1_000_000.0;
+    }
+
+    long getDownSince() {
+        return downSince;
+    }
+
+    /** Cached stub, looked up from the registry on first use or after a failure. */
+    CalculatorService stub() throws RemoteException {
+        CalculatorService s = stub;
+        if (s == null) {
+            s = lookup();
+            stub = s;
+        }
+        return s;
+    }
+
+    /**
+     * Session handle for {@code clientId} on this server, opened on first use; 0 when the
+     * server predates sessions.
+     */
+    long session(String clientId) throws RemoteException {
+        long s = session;
+        if (s != 0) return s;
+        synchronized (this) {
+            if (session == 0) {
+                CalculatorService st = stub();
+                if (!(st instanceof SessionService)) return 0;
+                session = ((SessionService) st).openSession(clientId);
+            }
+            return session;
+        }
+    }
+
+    /** Forgets a handle the server no longer knows, so the next call opens a fresh one. */
+    void clearSession(long expired) {
+        synchronized (this) {
+            if (session == expired) session = 0;
+        }
+    }
+
+    /** Closes the session if one is open; best effort, used when the client shuts down. */
+    void closeSession() {
+        long s;
+        synchronized (this) {
+            s = session;
+            session = 0;
+        }
+        CalculatorService st = stub;
+        if (s == 0 || !(st instanceof SessionService)) return;
+        try {
+            ((SessionService) st).closeSession(s);
+        } catch (RemoteException ignored) {
+        }
+    }
+
+    CalculatorService lookup() throws RemoteException {
+        try {
+            Registry registry = LocateRegistry.getRegistry(host, port);
+            return (CalculatorService) registry.lookup(bindingName);
+        } catch (NotBoundException ex) {
+            throw new RemoteException("'" + bindingName + "' not bound at " + host + ":" + port, ex);
+        }
+    }
+
+    /**
+     * Lists the registry and refreshes the stub and capabilities: a capability counts when its
+     * marker name is bound to the same remote object as the main binding. Servers that bind
+     * no markers at all predate capability discovery and are assumed to offer everything.
+     */
+    void refresh() throws RemoteException {
+        Registry registry = LocateRegistry.getRegistry(host, port);
+        List<String> names = Arrays.asList(registry.list());
+        try {
+            if (!names.contains(bindingName)) throw new NotBoundException(bindingName);
+            CalculatorService main = (CalculatorService) registry.lookup(bindingName);
+            EnumSet<Capability> caps = EnumSet.noneOf(Capability.class);
+            boolean anyMarker = false;
+            for (Capability c : Capability.values()) {
+                if (!names.contains(c.bindingName())) continue;
+                anyMarker = true;
+                if (main.equals(registry.lookup(c.bindingName()))) caps.add(c);
+            }
+            capabilities = anyMarker ? caps : EnumSet.allOf(Capability.class);
+            markUp(main);
+        } catch (NotBoundException ex) {
+            throw new RemoteException("'" + bindingName + "' not bound at " + host + ":" + port, ex);
+        }
+    }
+
+    void begin() {
+        outstanding.incrementAndGet();
+    }
+
+    void end(long nanos, boolean success) {
+        outstanding.decrementAndGet();
+        if (!success) return;
+        double prev = latencyEwmaNanos;
+        latencyEwmaNanos = prev == 0 ? nanos : prev + EWMA_ALPHA * (nanos - prev);
+    }
+
+    void clearStub() {
+        stub = null;
+        session = 0;
+    }
+
+    void markDown() {
+        stub = null;
+        session = 0;
+        if (healthy) {
+            healthy = false;
+            downSince = System.currentTimeMillis();
+        }
+    }
+
+    void markUp(CalculatorService fresh) {
+        if (!fresh.equals(stub)) session = 0; // a different remote object has its own sessions
+        stub = fresh;
+        healthy = true;
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port + "/" + bindingName;
+    }
+}
@@ -0,0 +1,363 @@
+package rmi.calculator.client;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.NoSuchObjectException;
+import java.rmi.RemoteException;
+import java.rmi.ServerError;
+import java.rmi.ServerException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationService;
+import rmi.calculator.common.ServerBusyException;
+import rmi.calculator.common.ServiceDrainingException;
+import rmi.calculator.common.SessionExpiredException;
+import rmi.calculator.common.SessionService;
+
+/**
+ * Routes {@link CalculatorService} calls across several server registries.
+ *
+ * <p>Each call picks a healthy endpoint by {@link Policy}. Transport failures (connection
+ * refused, unexported object, broken stream) mark the endpoint down and the call is retried
+ * on the next one; errors raised by the server itself ({@link ServerException}, e.g.
+ * division by zero) are returned as-is. A server that turns a call away as busy
+ * ({@link ServerBusyException}) stays healthy; the call moves on to the next endpoint and the
+ * busy error is only returned once every endpoint has refused it. A service that is draining
+ * ({@link ServiceDrainingException}) is looked up again once, picking up a swapped-in
+ * successor or, when the server is stopping, moving on. A background probe re-looks-up down endpoints and
+ * brings them back without the user reconnecting. All operations are pure, so retrying a
+ * call on another server is safe.
+ *
+ * <p>The probe also lists each registry to learn which {@link Capability capabilities} the
+ * server offers; calls are only routed to endpoints offering what the call needs, and
+ * listeners hear when the overall set changes.
+ */
+public class EndpointPool implements AutoCloseable {
+    public static final long DEFAULT_PROBE_INTERVAL_MILLIS = 2000;
+    private static final int EXPLORE_EVERY = 64;
+
+    public enum Policy {
+        ROUND_ROBIN,
+        LEAST_OUTSTANDING,
+        LOWEST_LATENCY
+    }
+
+    public interface Listener {
+        default void endpointDown(Endpoint endpoint, Throwable cause) {
+        }
+
+        default void endpointUp(Endpoint endpoint) {
+        }
+
+        /** Union of capabilities over healthy endpoints changed. */
+        default void capabilitiesChanged(Set<Capability> available) {
+        }
+    }
+
+    private static final Map<Method, OpCode> SESSION_OPS = sessionOps();
+    private static final Method EVALUATE = evaluateMethod();
+
+    private final List<Endpoint> endpoints;
+    private final Policy policy;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService prober;
+    private volatile Set<Capability> lastAvailable = EnumSet.noneOf(Capability.class);
+    private volatile String sessionClientId;
+
+    public EndpointPool(List<Endpoint> endpoints, Policy policy, long probeIntervalMillis) {
+        if (endpoints.isEmpty()) throw new IllegalArgumentException("At least one endpoint is required");
+        this.endpoints = Collections.unmodifiableList(new ArrayList<>(endpoints));
+        this.policy = policy;
+        this.prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "endpoint-probe");
+            t.setDaemon(true);
+            return t;
+        });
+        prober.scheduleWithFixedDelay(this::probeAll, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Builds a pool from a comma-separated list of {@code host[:port][/binding]} entries. */
+    public static EndpointPool fromSpec(String spec, int defaultPort, String defaultBinding, Policy policy) {
+        List<Endpoint> list = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            if (!part.trim().isEmpty()) list.add(Endpoint.parse(part, defaultPort, defaultBinding));
+        }
+        return new EndpointPool(list, policy, DEFAULT_PROBE_INTERVAL_MILLIS);
+    }
+
+    public List<Endpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Routes scalar ops and {@code evaluate} through a per-endpoint session opened as
+     * {@code clientId}; the client id argument of those calls is then ignored.
+     */
+    public void useSessions(String clientId) {
+        this.sessionClientId = clientId;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** A {@link CalculatorService} whose every call is routed through this pool. */
+    public CalculatorService asService() {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) return invokeObjectMethod(proxy, method, args);
+            return invoke(method, args);
+        };
+        return (CalculatorService) Proxy.newProxyInstance(CalculatorService.class.getClassLoader(),
+                new Class<?>[]{CalculatorService.class}, handler);
+    }
+
+    /** Lists every endpoint once so the initial health and capabilities are known. */
+    public int connectAll() {
+        probeAll();
+        int up = 0;
+        for (Endpoint e : endpoints) {
+            if (e.isHealthy()) up++;
+        }
+        return up;
+    }
+
+    /** Capabilities offered by at least one healthy endpoint. */
+    public Set<Capability> availableCapabilities() {
+        EnumSet<Capability> caps = EnumSet.noneOf(Capability.class);
+        for (Endpoint e : endpoints) {
+            if (e.isHealthy()) caps.addAll(e.getCapabilities());
+        }
+        return caps;
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        Set<Capability> required = requiredCapabilities(method, args);
+        RemoteException lastFailure = null;
+        Throwable lastBusy = null;
+        boolean refreshed = false;
+        for (int attempt = 0; attempt < endpoints.size(); attempt++) {
+            Endpoint e = select(required);
+            if (e == null) {
+                throw new RemoteException("No server offers " + required + " for " + method.getName());
+            }
+            long t0 = System.nanoTime();
+            e.begin();
+            boolean success = false;
+            try {
+                Object result = call(e, method, args);
+                success = true;
+                return result;
+            } catch (InvocationTargetException ite) {
+                Throwable cause = ite.getCause();
+                if (cause instanceof ServerException && cause.getCause() instanceof ServiceDrainingException
+                        && !refreshed) {
+                    // The stub points at a retiring service: the registry already holds its successor
+                    success = true;
+                    refreshed = true;
+                    e.clearStub();
+                    attempt--;
+                    continue;
+                }
+                if (cause instanceof ServerException && cause.getCause() instanceof ServerBusyException) {
+                    success = true; // shedding load is not a failure
+                    lastBusy = cause;
+                    continue;
+                }
+                if (!isTransportFailure(cause)) {
+                    success = true; // the server answered; the endpoint is fine
+                    throw cause;
+                }
+                lastFailure = (RemoteException) cause;
+                if (cause instanceof NoSuchObjectException && !refreshed) {
+                    // Server was restarted or swapped its service: re-lookup before giving up on it
+                    refreshed = true;
+                    e.clearStub();
+                    attempt--;
+                    continue;
+                }
+                markDown(e, cause);
+            } catch (RemoteException lookupFailure) {
+                lastFailure = lookupFailure;
+                markDown(e, lookupFailure);
+            } finally {
+                e.end(System.nanoTime() - t0, success);
+            }
+        }
+        if (lastBusy != null) throw lastBusy;
+        throw new RemoteException("No calculator server reachable for " + method.getName(), lastFailure);
+    }
+
+    /**
+     * Sends one call to {@code e}. With sessions enabled, scalar ops and {@code evaluate} go
+     * through the endpoint's session so the client id is not sent again; an expired session is
+     * reopened once. Failures are wrapped like {@link Method#invoke} wraps them.
+     */
+    private Object call(Endpoint e, Method method, Object[] args) throws RemoteException, InvocationTargetException,
+            IllegalAccessException {
+        CalculatorService stub = e.stub();
+        OpCode op = sessionClientId == null ? null : SESSION_OPS.get(method);
+        boolean evaluate = sessionClientId != null && method.equals(EVALUATE);
+        if (op == null && !evaluate) return method.invoke(stub, args);
+        for (int attempt = 0; ; attempt++) {
+            long session = e.session(sessionClientId);
+            if (session == 0) return method.invoke(stub, args);
+            try {
+                SessionService s = (SessionService) stub;
+                if (evaluate) return s.evaluate(session, (String) args[0]);
+                return s.compute(session, op.code(), (Double) args[0], op.arity() == 2 ? (Double) args[1] : 0.0);
+            } catch (ServerException ex) {
+                if (ex.getCause() instanceof SessionExpiredException && attempt == 0) {
+                    e.clearSession(session);
+                    continue;
+                }
+                throw new InvocationTargetException(ex);
+            } catch (RemoteException ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+
+    private static Map<Method, OpCode> sessionOps() {
+        Map<Method, OpCode> ops = new HashMap<>();
+        try {
+            for (OpCode op : OpCode.values()) {
+                Method m = op.arity() == 2
+                        ? CalculatorService.class.getMethod(op.opName(), double.class, double.class, String.class)
+                        : CalculatorService.class.getMethod(op.opName(), double.class, String.class);
+                ops.put(m, op);
+            }
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return ops;
+    }
+
+    private static Method evaluateMethod() {
+        try {
+            return CalculatorService.class.getMethod("evaluate", String.class, String.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Set<Capability> requiredCapabilities(Method method, Object[] args) {
+        Capability declared = Capability.ofInterface(method.getDeclaringClass());
+        if (declared != null) return EnumSet.of(declared);
+        String name = method.getName();
+        if ((name.equals("evaluate") || name.equals("evaluateTraced")) && args != null && args[0] instanceof String) {
+            return Capability.requiredBy((String) args[0]);
+        }
+        if (name.equals("batch") && args != null && args[0] instanceof List) {
+            return Capability.requiredBy((List<BatchOp>) args[0]);
+        }
+        if ((name.equals("invoke") || name.equals("invokeTraced")) && args != null && args[0] instanceof Integer
+                && (Integer) args[0] < OperationService.FIRST_PLUGIN_CODE) {
+            try {
+                return EnumSet.of(Capability.of(OpCode.fromCode((Integer) args[0])));
+            } catch (IllegalArgumentException unknown) {
+                return EnumSet.noneOf(Capability.class); // let the server reject it
+            }
+        }
+        return EnumSet.noneOf(Capability.class);
+    }
+
+    private Endpoint select(Set<Capability> required) {
+        List<Endpoint> candidates = new ArrayList<>(endpoints.size());
+        List<Endpoint> down = new ArrayList<>();
+        for (Endpoint e : endpoints) {
+            if (!e.supports(required)) continue;
+            if (e.isHealthy()) candidates.add(e); else down.add(e);
+        }
+        if (candidates.isEmpty()) candidates = down; // everything capable looks down: try anyway
+        if (candidates.isEmpty()) return null;
+        int n = cursor.getAndIncrement();
+        Policy p = policy == Policy.LOWEST_LATENCY && n % EXPLORE_EVERY == 0 ? Policy.ROUND_ROBIN : policy;
+        switch (p) {
+            case LEAST_OUTSTANDING: {
+                Endpoint best = null;
+                int offset = Math.floorMod(n, candidates.size()); // rotate ties
+                for (int i = 0; i < candidates.size(); i++) {
+                    Endpoint e = candidates.get((offset + i) % candidates.size());
+                    if (best == null || e.getOutstanding() < best.getOutstanding()) best = e;
+                }
+                return best;
+            }
+            case LOWEST_LATENCY: {
+                Endpoint best = null;
+                for (Endpoint e : candidates) {
+                    if (best == null || e.getLatencyMillis() < best.getLatencyMillis()) best = e;
+                }
+                return best;
+            }
+            default:
+                return candidates.get(Math.floorMod(n, candidates.size()));
+        }
+    }
+
+    static boolean isTransportFailure(Throwable t) {
+        return t instanceof RemoteException && !(t instanceof ServerException) && !(t instanceof ServerError);
+    }
+
+    private void markDown(Endpoint e, Throwable cause) {
+        boolean wasHealthy = e.isHealthy();
+        e.markDown();
+        if (wasHealthy) {
+            for (Listener l : listeners) l.endpointDown(e, cause);
+        }
+    }
+
+    private synchronized void probeAll() {
+        for (Endpoint e : endpoints) {
+            boolean wasHealthy = e.isHealthy();
+            try {
+                e.refresh();
+                if (!wasHealthy) {
+                    for (Listener l : listeners) l.endpointUp(e);
+                }
+            } catch (RemoteException | RuntimeException ex) {
+                markDown(e, ex);
+            }
+        }
+        Set<Capability> available = availableCapabilities();
+        if (!available.equals(lastAvailable)) {
+            lastAvailable = available;
+            for (Listener l : listeners) l.capabilitiesChanged(available);
+        }
+    }
+
+    private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals": return proxy == args[0];
+            case "hashCode": return System.identityHashCode(proxy);
+            default: return "EndpointPool" + endpoints;
+        }
+    }
+
+    @Override
+    public void close() {
+        prober.shutdownNow();
+        for (Endpoint e : endpoints) e.closeSession();
+    }
+}
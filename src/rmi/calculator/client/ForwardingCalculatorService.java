@@ -0,0 +1,86 @@
+package rmi.calculator.client;
+
+import java.rmi.RemoteException;
+import java.util.List;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.TraceContext;
+import rmi.calculator.common.TracedResult;
+
+/** Client-side decorator base: forwards every call to a delegate; subclasses override what they change. */
+public abstract class ForwardingCalculatorService implements CalculatorService {
+    protected final CalculatorService delegate;
+
+    protected ForwardingCalculatorService(CalculatorService delegate) {
+        if (delegate == null) throw new IllegalArgumentException("delegate must not be null");
+        this.delegate = delegate;
+    }
+
+    public CalculatorService getDelegate() {
+        return delegate;
+    }
+
+    @Override public double add(double a, double b, String clientId) throws RemoteException { return delegate.add(a, b, clientId); }
+    @Override public double sub(double a, double b, String clientId) throws RemoteException { return delegate.sub(a, b, clientId); }
+    @Override public double mul(double a, double b, String clientId) throws RemoteException { return delegate.mul(a, b, clientId); }
+    @Override public double div(double a, double b, String clientId) throws RemoteException { return delegate.div(a, b, clientId); }
+    @Override public double pow(double a, double b, String clientId) throws RemoteException { return delegate.pow(a, b, clientId); }
+    @Override public double sqrt(double a, String clientId) throws RemoteException { return delegate.sqrt(a, clientId); }
+    @Override public double sin(double a, String clientId) throws RemoteException { return delegate.sin(a, clientId); }
+    @Override public double cos(double a, String clientId) throws RemoteException { return delegate.cos(a, clientId); }
+    @Override public double tan(double a, String clientId) throws RemoteException { return delegate.tan(a, clientId); }
+
+    @Override public BatchResult add(double[] a, double[] b, String clientId) throws RemoteException { return delegate.add(a, b, clientId); }
+    @Override public BatchResult sub(double[] a, double[] b, String clientId) throws RemoteException { return delegate.sub(a, b, clientId); }
+    @Override public BatchResult mul(double[] a, double[] b, String clientId) throws RemoteException { return delegate.mul(a, b, clientId); }
+    @Override public BatchResult div(double[] a, double[] b, String clientId) throws RemoteException { return delegate.div(a, b, clientId); }
+    @Override public BatchResult pow(double[] a, double[] b, String clientId) throws RemoteException { return delegate.pow(a, b, clientId); }
+    @Override public BatchResult sqrt(double[] a, String clientId) throws RemoteException { return delegate.sqrt(a, clientId); }
+    @Override public BatchResult sin(double[] a, String clientId) throws RemoteException { return delegate.sin(a, clientId); }
+    @Override public BatchResult cos(double[] a, String clientId) throws RemoteException { return delegate.cos(a, clientId); }
+    @Override public BatchResult tan(double[] a, String clientId) throws RemoteException { return delegate.tan(a, clientId); }
+
+    @Override public double sum(double[] a, String clientId) throws RemoteException { return delegate.sum(a, clientId); }
+    @Override public double mean(double[] a, String clientId) throws RemoteException { return delegate.mean(a, clientId); }
+    @Override public double min(double[] a, String clientId) throws RemoteException { return delegate.min(a, clientId); }
+    @Override public double max(double[] a, String clientId) throws RemoteException { return delegate.max(a, clientId); }
+    @Override public double dot(double[] a, double[] b, String clientId) throws RemoteException { return delegate.dot(a, b, clientId); }
+
+    @Override
+    public double[] polyval(double[] coefficients, double[] x, String clientId) throws RemoteException {
+        return delegate.polyval(coefficients, x, clientId);
+    }
+
+    @Override
+    public BatchResult batch(List<BatchOp> ops, String clientId) throws RemoteException {
+        return delegate.batch(ops, clientId);
+    }
+
+    @Override
+    public List<OperationInfo> operations() throws RemoteException {
+        return delegate.operations();
+    }
+
+    @Override
+    public double invoke(int opcode, double[] args, String clientId) throws RemoteException {
+        return delegate.invoke(opcode, args, clientId);
+    }
+
+    @Override
+    public double evaluate(String expression, String clientId) throws RemoteException {
+        return delegate.evaluate(expression, clientId);
+    }
+
+    @Override
+    public TracedResult invokeTraced(int opcode, double[] args, String clientId, TraceContext trace)
+            throws RemoteException {
+        return delegate.invokeTraced(opcode, args, clientId, trace);
+    }
+
+    @Override
+    public TracedResult evaluateTraced(String expression, String clientId, TraceContext trace) throws RemoteException {
+        return delegate.evaluateTraced(expression, clientId, trace);
+    }
+}
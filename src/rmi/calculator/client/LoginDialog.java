@@ -27,8 +27,8 @@ public class LoginDialog extends JDialog {
         c.insets = new Insets(8, 10, 8, 10);
         c.fill = GridBagConstraints.HORIZONTAL;
 
-        c.gridx = 0; c.gridy = 0; form.add(new JLabel("Server IP:"), c);
-        c.gridx = 1; c.gridy = 0; hostField.setColumns(18); form.add(hostField, c);
+        c.gridx = 0; c.gridy = 0; form.add(new JLabel("Server IP(s):"), c);
+        c.gridx = 1; c.gridy = 0; hostField.setColumns(18); hostField.setToolTipText("host[:port][/binding], comma-separated for several servers"); form.add(hostField, c);
         c.gridx = 0; c.gridy = 1; form.add(new JLabel("Username:"), c);
         c.gridx = 1; c.gridy = 1; userField.setColumns(18); form.add(userField, c);
 
@@ -0,0 +1,146 @@
+package rmi.calculator.client;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.rmi.registry.LocateRegistry;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.FunctionService;
+
+/**
+ * Registers a function on a server and tabulates it over a range, fetching the points in chunks
+ * of at most {@link FunctionService#MAX_POINTS} and writing them out as they arrive.
+ *
+ * <pre>
+ * java rmi.calculator.client.TabulateClient host[:port] expression start end steps [--vars=x,...]
+ *      [--fixed=v,...] [--chunk=65536] [--format=csv|binary] [--save=localFile]
+ * </pre>
+ *
+ * CSV lines are {@code x,value}; binary output is the big-endian values only.
+ */
+public class TabulateClient {
+    public static final int DEFAULT_CHUNK = 1 << 16;
+
+    public interface ChunkListener {
+        /** Points {@code from .. from + values.size() - 1} of the range. */
+        void onChunk(int from, BatchResult values) throws IOException;
+    }
+
+    private final FunctionService service;
+    private final String clientId;
+
+    public TabulateClient(FunctionService service, String clientId) {
+        this.service = service;
+        this.clientId = clientId;
+    }
+
+    public static TabulateClient connect(String endpoint, String clientId) throws Exception {
+        Endpoint e = Endpoint.parse(endpoint, 5050, "CalculatorService");
+        FunctionService svc = (FunctionService) LocateRegistry.getRegistry(e.getHost(), e.getPort()).lookup(e.getBindingName());
+        return new TabulateClient(svc, clientId);
+    }
+
+    public long register(String expression, String... variables) throws RemoteException {
+        return service.registerFunction(expression, variables, clientId);
+    }
+
+    public void unregister(long handle) throws RemoteException {
+        service.unregisterFunction(handle);
+    }
+
+    /** Fetches all {@code steps + 1} points in order, {@code chunk} at a time. */
+    public void tabulate(long handle, double start, double end, int steps, double[] fixed, int chunk,
+                         ChunkListener listener) throws IOException {
+        if (chunk < 1 || chunk > FunctionService.MAX_POINTS) {
+            throw new IllegalArgumentException("chunk must be in 1.." + FunctionService.MAX_POINTS);
+        }
+        long points = (long) steps + 1;
+        for (long from = 0; from < points; from += chunk) {
+            int count = (int) Math.min(chunk, points - from);
+            listener.onChunk((int) from, service.tabulate(handle, start, end, steps, fixed, (int) from, count, clientId));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.err.println("usage: TabulateClient host[:port] expression start end steps [--vars=x,...]"
+                    + " [--fixed=v,...] [--chunk=" + DEFAULT_CHUNK + "] [--format=csv|binary] [--save=localFile]");
+            System.exit(2);
+        }
+        String expression = args[1];
+        double start = Double.parseDouble(args[2]);
+        double end = Double.parseDouble(args[3]);
+        int steps = Integer.parseInt(args[4]);
+        String[] vars = {"x"};
+        double[] fixed = new double[0];
+        int chunk = DEFAULT_CHUNK;
+        boolean binary = false;
+        String save = null;
+        for (int i = 5; i < args.length; i++) {
+            String a = args[i];
+            if (a.startsWith("--vars=")) vars = a.substring(7).split(",");
+            else if (a.startsWith("--fixed=")) fixed = parseDoubles(a.substring(8));
+            else if (a.startsWith("--chunk=")) chunk = Integer.parseInt(a.substring(8));
+            else if (a.startsWith("--format=")) binary = a.substring(9).equalsIgnoreCase("binary");
+            else if (a.startsWith("--save=")) save = a.substring(7);
+            else throw new IllegalArgumentException("Unrecognized argument: " + a);
+        }
+        TabulateClient client = connect(args[0], "tabulate " + System.getProperty("user.name"));
+        long t0 = System.nanoTime();
+        long handle;
+        try {
+            handle = client.register(expression, vars);
+        } catch (ServerException ex) {
+            System.err.println("Cannot register function: " + ex.getCause().getMessage());
+            System.exit(1);
+            return;
+        }
+        int[] errors = new int[1];
+        try (OutputStream out = save == null ? System.out : Files.newOutputStream(Paths.get(save))) {
+            ChunkListener writer = writer(out, binary, start, end, steps);
+            client.tabulate(handle, start, end, steps, fixed, chunk, (from, values) -> {
+                errors[0] += values.errorCount();
+                writer.onChunk(from, values);
+            });
+        } catch (ServerException ex) {
+            System.err.println("Tabulation failed: " + ex.getCause().getMessage());
+            System.exit(1);
+        } finally {
+            client.unregister(handle);
+        }
+        System.err.println((steps + 1L) + " points, " + errors[0] + " undefined, in "
+                + (System.nanoTime() - t0) / 1_000_000 + " ms");
+    }
+
+    static ChunkListener writer(OutputStream out, boolean binary, double start, double end, int steps) {
+        if (binary) {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+            return (from, values) -> {
+                for (double v : values.values()) data.writeDouble(v);
+                data.flush();
+            };
+        }
+        PrintStream text = new PrintStream(new BufferedOutputStream(out, 1 << 16), false);
+        return (from, values) -> {
+            for (int i = 0; i < values.size(); i++) {
+                long k = (long) from + i;
+                double x = k == steps ? end : start + (end - start) * k / steps;
+                text.println(x + "," + (values.isError(i) ? "ERROR: " + values.error(i) : Double.toString(values.value(i))));
+            }
+            text.flush();
+        };
+    }
+
+    private static double[] parseDoubles(String list) {
+        String[] parts = list.split(",");
+        double[] out = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) out[i] = Double.parseDouble(parts[i].trim());
+        return out;
+    }
+}
@@ -0,0 +1,187 @@
+package rmi.calculator.client;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OtlpJsonExporter;
+import rmi.calculator.common.TraceContext;
+import rmi.calculator.common.TraceSpan;
+import rmi.calculator.common.TracedResult;
+
+/**
+ * Traces one scalar, {@code invoke} or {@code evaluate} call in every {@code sampleEvery}. A
+ * sampled call goes out through {@link rmi.calculator.common.TracedService} with a fresh trace
+ * context; its client span and the server's spans (admission wait, logging, computation,
+ * recording) are then exported together. The client span's {@code calc.transport_ns} is the
+ * round trip minus the server span: marshalling both ways, the network and RMI dispatch. Calls
+ * that are not sampled, and array or batch calls, are forwarded untouched.
+ */
+public class TracingCalculatorService extends ForwardingCalculatorService {
+    private final OtlpJsonExporter exporter;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong traced = new AtomicLong();
+    private volatile int sampleEvery;
+
+    public TracingCalculatorService(CalculatorService delegate, OtlpJsonExporter exporter) {
+        this(delegate, exporter, 1);
+    }
+
+    public TracingCalculatorService(CalculatorService delegate, OtlpJsonExporter exporter, int sampleEvery) {
+        super(delegate);
+        if (exporter == null) throw new IllegalArgumentException("exporter must not be null");
+        this.exporter = exporter;
+        setSampleEvery(sampleEvery);
+    }
+
+    /** Trace one call in {@code n}; 1 traces every call, 0 none. */
+    public void setSampleEvery(int n) {
+        if (n < 0) throw new IllegalArgumentException("sampleEvery must be >= 0");
+        this.sampleEvery = n;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public long getTracedCount() {
+        return traced.get();
+    }
+
+    @Override
+    public double add(double a, double b, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.ADD, a, b, clientId) : delegate.add(a, b, clientId);
+    }
+
+    @Override
+    public double sub(double a, double b, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.SUB, a, b, clientId) : delegate.sub(a, b, clientId);
+    }
+
+    @Override
+    public double mul(double a, double b, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.MUL, a, b, clientId) : delegate.mul(a, b, clientId);
+    }
+
+    @Override
+    public double div(double a, double b, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.DIV, a, b, clientId) : delegate.div(a, b, clientId);
+    }
+
+    @Override
+    public double pow(double a, double b, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.POW, a, b, clientId) : delegate.pow(a, b, clientId);
+    }
+
+    @Override
+    public double sqrt(double a, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.SQRT, a, 0, clientId) : delegate.sqrt(a, clientId);
+    }
+
+    @Override
+    public double sin(double a, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.SIN, a, 0, clientId) : delegate.sin(a, clientId);
+    }
+
+    @Override
+    public double cos(double a, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.COS, a, 0, clientId) : delegate.cos(a, clientId);
+    }
+
+    @Override
+    public double tan(double a, String clientId) throws RemoteException {
+        return sample() ? traced(OpCode.TAN, a, 0, clientId) : delegate.tan(a, clientId);
+    }
+
+    @Override
+    public double invoke(int opcode, double[] args, String clientId) throws RemoteException {
+        if (!sample()) return delegate.invoke(opcode, args, clientId);
+        TraceContext trace = TraceContext.newTrace();
+        Call call = new Call("invoke", trace);
+        try {
+            TracedResult r = delegate.invokeTraced(opcode, args, clientId, trace);
+            call.finish(r, null).attribute("calc.opcode", (long) opcode).attribute("calc.args", Arrays.toString(args));
+            return r.getValue();
+        } catch (RemoteException | RuntimeException ex) {
+            call.finish(null, ex).attribute("calc.opcode", (long) opcode).attribute("calc.args", Arrays.toString(args));
+            throw ex;
+        } finally {
+            call.export();
+        }
+    }
+
+    @Override
+    public double evaluate(String expression, String clientId) throws RemoteException {
+        if (!sample()) return delegate.evaluate(expression, clientId);
+        TraceContext trace = TraceContext.newTrace();
+        Call call = new Call("evaluate", trace);
+        try {
+            TracedResult r = delegate.evaluateTraced(expression, clientId, trace);
+            call.finish(r, null).attribute("calc.expression", expression);
+            return r.getValue();
+        } catch (RemoteException | RuntimeException ex) {
+            call.finish(null, ex).attribute("calc.expression", expression);
+            throw ex;
+        } finally {
+            call.export();
+        }
+    }
+
+    private double traced(OpCode op, double a, double b, String clientId) throws RemoteException {
+        TraceContext trace = TraceContext.newTrace();
+        Call call = new Call(op.opName(), trace);
+        double[] args = op.arity() == 2 ? new double[] {a, b} : new double[] {a};
+        try {
+            TracedResult r = delegate.invokeTraced(op.code(), args, clientId, trace);
+            call.finish(r, null).attribute("calc.args", Arrays.toString(args));
+            return r.getValue();
+        } catch (RemoteException | RuntimeException ex) {
+            call.finish(null, ex).attribute("calc.args", Arrays.toString(args));
+            throw ex;
+        } finally {
+            call.export();
+        }
+    }
+
+    private boolean sample() {
+        int n = sampleEvery;
+        return n > 0 && calls.incrementAndGet() % n == 0;
+    }
+
+    /** The client side of one sampled call. */
+    private final class Call {
+        private final String name;
+        private final TraceContext trace;
+        private final long startEpochNanos = TraceSpan.epochNanos();
+        private final long startNanos = System.nanoTime();
+        private final List<TraceSpan> spans = new ArrayList<>(8);
+
+        Call(String name, TraceContext trace) {
+            this.name = name;
+            this.trace = trace;
+        }
+
+        TraceSpan finish(TracedResult result, Exception error) {
+            long elapsed = System.nanoTime() - startNanos;
+            TraceSpan client = new TraceSpan(name, TraceSpan.Kind.CLIENT, trace, null, startEpochNanos,
+                    startEpochNanos + elapsed);
+            client.attribute("rpc.system", "java_rmi").attribute("thread.name", Thread.currentThread().getName());
+            if (error != null) client.error(error.getMessage());
+            spans.add(client);
+            if (result != null && !result.getSpans().isEmpty()) {
+                long server = result.getSpans().get(0).durationNanos();
+                client.attribute("calc.server_ns", server).attribute("calc.transport_ns", elapsed - server);
+                spans.addAll(result.getSpans());
+            }
+            return client;
+        }
+
+        void export() {
+            traced.incrementAndGet();
+            exporter.export(spans);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package rmi.calculator.common;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free multi-producer log ring drained by a single background thread.
+ *
+ * <p>Producers claim a pre-allocated slot with one CAS and copy raw fields into it; no
+ * string formatting, boxing or Swing calls happen on the caller's thread. When the ring
+ * is full the event is dropped and counted rather than blocking the caller. The drain
+ * thread formats whatever has been published and hands it to the {@link Appender} as one
+ * batch, so the UI sees at most one update per drain cycle.
+ */
+public final class AsyncLogBuffer {
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final long DRAIN_INTERVAL_NANOS = 25_000_000L;
+    private static final int MAX_BATCH = 1024;
+
+    private static final int KIND_MESSAGE = 0;
+    private static final int KIND_UNARY = 1;
+    private static final int KIND_BINARY = 2;
+    private static final int KIND_RESULT = 3;
+
+    /** Receives formatted batches of complete lines on the drain thread. */
+    public interface Appender {
+        void append(String lines);
+    }
+
+    private static final class Slot {
+        volatile long sequence = -1;
+        long timeMillis;
+        LogLevel level;
+        int kind;
+        String tag;
+        String text;
+        double a;
+        double b;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+    private final LongAdder dropped = new LongAdder();
+    private final Appender appender;
+    private final Thread drainThread;
+    private volatile boolean running = true;
+    private volatile LogLevel level = LogLevel.INFO;
+    private volatile int sampleRate = 1;
+
+    // Only touched by the drain thread
+    private final DateTimeFormatter timeFormat =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+    private final StringBuilder batch = new StringBuilder(4096);
+
+    public AsyncLogBuffer(String name, int capacity, Appender appender) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity must be a power of two");
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) slots[i] = new Slot();
+        this.mask = capacity - 1;
+        this.appender = appender;
+        this.drainThread = new Thread(this::drainLoop, name);
+        drainThread.setDaemon(true);
+        drainThread.start();
+    }
+
+    public LogLevel getLevel() {
+        return level;
+    }
+
+    public void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /** Records roughly one in {@code rate} INFO events; errors are never sampled. */
+    public void setSampleRate(int rate) {
+        this.sampleRate = Math.max(1, rate);
+    }
+
+    /**
+     * Cheap hot-path check: callers should skip building log arguments when this is false.
+     * With sampling enabled each call is an independent draw.
+     */
+    public boolean isInfoEnabled() {
+        if (level != LogLevel.INFO) return false;
+        int rate = sampleRate;
+        return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+    }
+
+    public boolean isErrorEnabled() {
+        return level != LogLevel.OFF;
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public void message(LogLevel lvl, String tag, String text) {
+        long seq = claim();
+        if (seq < 0) return;
+        Slot s = slots[(int) (seq & mask)];
+        s.timeMillis = System.currentTimeMillis();
+        s.level = lvl;
+        s.kind = KIND_MESSAGE;
+        s.tag = tag;
+        s.text = text;
+        s.sequence = seq;
+    }
+
+    public void request(String tag, String op, double a) {
+        operands(KIND_UNARY, tag, op, a, 0.0);
+    }
+
+    public void request(String tag, String op, double a, double b) {
+        operands(KIND_BINARY, tag, op, a, b);
+    }
+
+    public void result(String tag, double result) {
+        operands(KIND_RESULT, tag, null, result, 0.0);
+    }
+
+    private void operands(int kind, String tag, String op, double a, double b) {
+        long seq = claim();
+        if (seq < 0) return;
+        Slot s = slots[(int) (seq & mask)];
+        s.timeMillis = System.currentTimeMillis();
+        s.level = LogLevel.INFO;
+        s.kind = kind;
+        s.tag = tag;
+        s.text = op;
+        s.a = a;
+        s.b = b;
+        s.sequence = seq;
+    }
+
+    private long claim() {
+        while (true) {
+            long seq = claimed.get();
+            if (seq - consumed >= slots.length) {
+                dropped.increment();
+                return -1;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) return seq;
+        }
+    }
+
+    /** Stops the drain thread after flushing everything published so far. */
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drainOnce() == 0) LockSupport.parkNanos(this, DRAIN_INTERVAL_NANOS);
+        }
+        while (drainOnce() > 0) {
+            // flush remaining
+        }
+    }
+
+    private int drainOnce() {
+        long next = consumed;
+        int n = 0;
+        batch.setLength(0);
+        while (n < MAX_BATCH) {
+            Slot s = slots[(int) (next & mask)];
+            if (s.sequence != next) break;
+            format(s, batch);
+            s.tag = null;
+            s.text = null;
+            next++;
+            n++;
+            consumed = next;
+        }
+        if (n > 0) {
+            long lost = dropped.sumThenReset();
+            if (lost > 0) {
+                batch.append('[').append(timeFormat.format(Instant.now())).append("] [ERROR] ")
+                        .append(lost).append(" log event(s) dropped, buffer full\n");
+            }
+            appender.append(batch.toString());
+        }
+        return n;
+    }
+
+    private void format(Slot s, StringBuilder out) {
+        out.append('[').append(timeFormat.format(Instant.ofEpochMilli(s.timeMillis))).append("] [")
+                .append(s.level).append("] ");
+        if (s.tag != null) out.append('[').append(s.tag).append("] ");
+        switch (s.kind) {
+            case KIND_UNARY:
+                out.append("op=").append(s.text).append(" a=").append(s.a).append(" b=");
+                break;
+            case KIND_BINARY:
+                out.append("op=").append(s.text).append(" a=").append(s.a).append(" b=").append(s.b);
+                break;
+            case KIND_RESULT:
+                out.append("result=").append(s.a);
+                break;
+            default:
+                out.append(s.text);
+                break;
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,37 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/**
+ * One (opcode, a, b) tuple of a mixed-operation batch. Unary ops ignore {@code b}.
+ */
+public final class BatchOp implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final OpCode op;
+    private final double a;
+    private final double b;
+
+    public BatchOp(OpCode op, double a, double b) {
+        if (op == null) throw new IllegalArgumentException("op must not be null");
+        this.op = op;
+        this.a = a;
+        this.b = b;
+    }
+
+    public static BatchOp unary(OpCode op, double a) {
+        return new BatchOp(op, a, 0.0);
+    }
+
+    public OpCode getOp() {
+        return op;
+    }
+
+    public double getA() {
+        return a;
+    }
+
+    public double getB() {
+        return b;
+    }
+}
@@ -0,0 +1,53 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/**
+ * Result of an array or batch call. Failed elements hold {@code NaN} in the value
+ * array and a message in the error array; the error array is only sent when at
+ * least one element failed.
+ */
+public final class BatchResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double[] values;
+    private final String[] errors;
+
+    public BatchResult(double[] values, String[] errors) {
+        if (errors != null && errors.length != values.length) {
+            throw new IllegalArgumentException("errors length must match values length");
+        }
+        this.values = values;
+        this.errors = errors;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+
+    /** Direct access to the value array; elements that failed are {@code NaN}. */
+    public double[] values() {
+        return values;
+    }
+
+    public boolean isError(int i) {
+        return errors != null && errors[i] != null;
+    }
+
+    public String error(int i) {
+        return errors == null ? null : errors[i];
+    }
+
+    public int errorCount() {
+        if (errors == null) return 0;
+        int n = 0;
+        for (String e : errors) {
+            if (e != null) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,104 @@
+package rmi.calculator.common;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact fixed-layout framing used by the optional binary front end. All integers are
+ * big-endian; every frame is prefixed by its length (not counting the length field).
+ *
+ * <pre>
+ * request  := int length, long requestId, byte type, payload
+ *   type 1..9 (opcode)  payload = double a, double b        (b ignored by unary ops)
+ *   type 64..127        payload = double a, double b        (plugin opcode of arity 1 or 2)
+ *   EVALUATE            payload = string expression
+ *   BATCH               payload = int n, n x (byte opcode, double a, double b)
+ *   HELLO               payload = string clientId           (no response; applies to later requests)
+ *   SUM..DOT            payload = array a [, array b]       (b for DOT only)
+ *   POLYVAL             payload = array coefficients, array x
+ *   OPERATIONS          no payload
+ *
+ * response := int length, long requestId, byte status, payload
+ *   OK, scalar/evaluate payload = double
+ *   OK, batch           payload = int n, n x (byte OK, double | byte ERROR, string)
+ *   OK, polyval         payload = array
+ *   OK, operations      payload = int n, n x (byte opcode, byte arity, byte capability ordinal, string name)
+ *   ERROR               payload = string message
+ *
+ * string   := unsigned short byteLength, UTF-8 bytes
+ * array    := int n, n x double
+ * </pre>
+ *
+ * Requests may be pipelined; responses carry the request id and may be matched out of order.
+ */
+public final class BinaryProtocol {
+    /** Port clients assume when none is configured; servers only listen when {@code binary.port} is set. */
+    public static final int DEFAULT_PORT = 5060;
+
+    public static final int MAX_FRAME = 16 << 20;
+    /** Longest string, in UTF-8 bytes, that the unsigned-short length prefix can describe. */
+    public static final int MAX_STRING_BYTES = 0xFFFF;
+
+    public static final byte HELLO = 0;
+    public static final byte EVALUATE = 32;
+    public static final byte BATCH = 33;
+    public static final byte SUM = 40;
+    public static final byte MEAN = 41;
+    public static final byte MIN = 42;
+    public static final byte MAX = 43;
+    public static final byte DOT = 44;
+    public static final byte POLYVAL = 45;
+    public static final byte OPERATIONS = 46;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ERROR = 1;
+
+    /** Fixed size of a scalar request frame including its length prefix. */
+    public static final int SCALAR_REQUEST_SIZE = 4 + 8 + 1 + 16;
+
+    private BinaryProtocol() {
+    }
+
+    public static int stringSize(String s) {
+        return 2 + s.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public static void putString(ByteBuffer buf, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) throw new IllegalArgumentException("String too long for binary protocol");
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    public static String getString(ByteBuffer buf) {
+        int len = buf.getShort() & 0xFFFF;
+        byte[] bytes = new byte[len];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static int arraySize(double[] values) {
+        return 4 + 8 * values.length;
+    }
+
+    public static void putArray(ByteBuffer buf, double[] values) {
+        buf.putInt(values.length);
+        buf.asDoubleBuffer().put(values);
+        buf.position(buf.position() + 8 * values.length);
+    }
+
+    public static double[] getArray(ByteBuffer buf) {
+        int n = buf.getInt();
+        if (n < 0 || n > buf.remaining() / 8) throw new IllegalArgumentException("Bad array length " + n);
+        double[] values = new double[n];
+        buf.asDoubleBuffer().get(values);
+        buf.position(buf.position() + 8 * n);
+        return values;
+    }
+
+    /** Clips a message so it always fits the unsigned-short string length. */
+    public static String clip(String message) {
+        if (message == null) return "";
+        return message.length() > 8000 ? message.substring(0, 8000) : message;
+    }
+}
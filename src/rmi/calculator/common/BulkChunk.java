@@ -0,0 +1,31 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/** Consecutive results of a streaming bulk job, starting at row {@link #getFirstRow()}. */
+public final class BulkChunk implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long firstRow;
+    private final BatchResult results;
+    private final boolean last;
+
+    public BulkChunk(long firstRow, BatchResult results, boolean last) {
+        this.firstRow = firstRow;
+        this.results = results;
+        this.last = last;
+    }
+
+    public long getFirstRow() {
+        return firstRow;
+    }
+
+    public BatchResult getResults() {
+        return results;
+    }
+
+    /** True for the final chunk of the job; it may be empty. */
+    public boolean isLast() {
+        return last;
+    }
+}
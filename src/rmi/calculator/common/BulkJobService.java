@@ -0,0 +1,23 @@
+package rmi.calculator.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Bulk evaluation of operand files that live on the server side. A job reads its input in
+ * fixed-size chunks and either streams result chunks back through {@link #nextBulkChunk} or
+ * writes them to an output file, so neither side ever holds the whole data set.
+ */
+public interface BulkJobService extends Remote {
+    String BINDING_NAME = "BulkJobService";
+
+    long startBulkJob(BulkJobSpec spec, String clientId) throws RemoteException;
+
+    // Next result chunk of a streaming job, or null if none became ready within maxWaitMillis
+    BulkChunk nextBulkChunk(long jobId, long maxWaitMillis) throws RemoteException;
+
+    BulkJobStatus getBulkJobStatus(long jobId) throws RemoteException;
+
+    // Stops the job if still running and forgets it
+    void cancelBulkJob(long jobId) throws RemoteException;
+}
@@ -0,0 +1,72 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/**
+ * What a bulk job computes. Paths are resolved by the server, relative to its bulk directory.
+ *
+ * <p>{@link Format#BINARY} files hold big-endian doubles, {@code op.arity()} per row (a, b for
+ * binary ops). {@link Format#CSV} files hold one row per line, {@code a,b} or {@code a}; blank
+ * lines and lines starting with {@code #} are skipped. Output files use the input format: one
+ * double per row ({@code NaN} for failed rows), or one line per row with the value or
+ * {@code ERROR: message}. Rows are computed with the spec's {@link PrecisionMode}, {@code STRICT}
+ * unless given.
+ */
+public final class BulkJobSpec implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum Format { BINARY, CSV }
+
+    private final String inputPath;
+    private final Format format;
+    private final OpCode op;
+    private final String outputPath;
+    private final PrecisionMode precision;
+
+    /** @param outputPath server-side result file, or null to stream results back in chunks */
+    public BulkJobSpec(String inputPath, Format format, OpCode op, String outputPath) {
+        this(inputPath, format, op, outputPath, PrecisionMode.STRICT);
+    }
+
+    public BulkJobSpec(String inputPath, Format format, OpCode op, String outputPath, PrecisionMode precision) {
+        if (inputPath == null || inputPath.isEmpty()) throw new IllegalArgumentException("inputPath must not be empty");
+        if (format == null) throw new IllegalArgumentException("format must not be null");
+        if (op == null) throw new IllegalArgumentException("op must not be null");
+        this.inputPath = inputPath;
+        this.format = format;
+        this.op = op;
+        this.outputPath = outputPath == null || outputPath.isEmpty() ? null : outputPath;
+        this.precision = precision == null ? PrecisionMode.STRICT : precision;
+    }
+
+    public String getInputPath() {
+        return inputPath;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public OpCode getOp() {
+        return op;
+    }
+
+    public String getOutputPath() {
+        return outputPath;
+    }
+
+    /** Specs serialized before precision existed deserialize with null; those are strict. */
+    public PrecisionMode getPrecision() {
+        return precision == null ? PrecisionMode.STRICT : precision;
+    }
+
+    public boolean isStreaming() {
+        return outputPath == null;
+    }
+
+    @Override
+    public String toString() {
+        return op.opName() + (getPrecision() == PrecisionMode.STRICT ? "" : " " + getPrecision())
+                + " " + format + " " + inputPath + (outputPath == null ? " (streamed)" : " -> " + outputPath);
+    }
+}
@@ -0,0 +1,73 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/** Snapshot of a bulk job's progress. */
+public final class BulkJobStatus implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public enum State { RUNNING, DONE, FAILED, CANCELLED }
+
+    private final long jobId;
+    private final State state;
+    private final long rows;
+    private final long errors;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final String message;
+
+    public BulkJobStatus(long jobId, State state, long rows, long errors, long bytesRead, long totalBytes, String message) {
+        this.jobId = jobId;
+        this.state = state;
+        this.rows = rows;
+        this.errors = errors;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.message = message;
+    }
+
+    public long getJobId() {
+        return jobId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state != State.RUNNING;
+    }
+
+    /** Rows computed so far. */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /** Fraction of the input consumed, 0..1. */
+    public double progress() {
+        return totalBytes <= 0 ? (isFinished() ? 1.0 : 0.0) : Math.min(1.0, (double) bytesRead / totalBytes);
+    }
+
+    /** Failure reason, or null. */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("job %d %s %.1f%% rows=%d errors=%d%s", jobId, state, progress() * 100, rows, errors,
+                message == null ? "" : " (" + message + ")");
+    }
+}
@@ -1,18 +1,19 @@
 package rmi.calculator.common;
 
-import java.rmi.Remote;
 import java.rmi.RemoteException;
+import java.util.List;
 
-public interface CalculatorService extends Remote {
-    double add(double a, double b, String clientId) throws RemoteException;
-    double sub(double a, double b, String clientId) throws RemoteException;
-    double mul(double a, double b, String clientId) throws RemoteException;
-    double div(double a, double b, String clientId) throws RemoteException;
-    double pow(double a, double b, String clientId) throws RemoteException;
-    double sqrt(double a, String clientId) throws RemoteException;
-    double sin(double a, String clientId) throws RemoteException;
-    double cos(double a, String clientId) throws RemoteException;
-    double tan(double a, String clientId) throws RemoteException;
-}
-
+/**
+ * Full calculator interface. A server always binds it under its main name; the
+ * {@link MathService}/{@link TrigService} names it binds in addition advertise which
+ * {@link Capability capabilities} it actually offers. Ops of a missing capability fail.
+ * Operations beyond the fixed methods are reached through {@link OperationService}; sampled
+ * calls go through {@link TracedService}.
+ */
+public interface CalculatorService extends MathService, TrigService, OperationService, TracedService {
+    // Mixed-op batch: result i belongs to ops.get(i); a null element is an error slot
+    BatchResult batch(List<BatchOp> ops, String clientId) throws RemoteException;
 
+    // Parses and evaluates an infix expression such as "sin(2)^2 + cos(2)^2" in a single call
+    double evaluate(String expression, String clientId) throws RemoteException;
+}
@@ -0,0 +1,92 @@
+package rmi.calculator.common;
+
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * A group of operations a server may offer. Servers bind a marker name per capability so
+ * clients can discover them with a plain registry listing.
+ */
+public enum Capability {
+    MATH("MathService", MathService.class),
+    TRIG("TrigService", TrigService.class);
+
+    private final String bindingName;
+    private final Class<?> serviceInterface;
+
+    Capability(String bindingName, Class<?> serviceInterface) {
+        this.bindingName = bindingName;
+        this.serviceInterface = serviceInterface;
+    }
+
+    public String bindingName() {
+        return bindingName;
+    }
+
+    public Class<?> serviceInterface() {
+        return serviceInterface;
+    }
+
+    public static Capability of(OpCode op) {
+        switch (op) {
+            case SIN: case COS: case TAN: return TRIG;
+            default: return MATH;
+        }
+    }
+
+    /** Capability declared by a service interface, or null for {@link CalculatorService} itself. */
+    public static Capability ofInterface(Class<?> iface) {
+        for (Capability c : values()) {
+            if (c.serviceInterface == iface) return c;
+        }
+        return null;
+    }
+
+    public static EnumSet<Capability> requiredBy(List<BatchOp> ops) {
+        EnumSet<Capability> needs = EnumSet.noneOf(Capability.class);
+        for (BatchOp op : ops) needs.add(of(op.getOp()));
+        return needs;
+    }
+
+    /**
+     * Capabilities needed to evaluate an infix expression: trig functions need TRIG, binary
+     * operators and sqrt/pow need MATH. A sign in front of an operand is not an operator.
+     */
+    public static EnumSet<Capability> requiredBy(String expression) {
+        EnumSet<Capability> needs = EnumSet.noneOf(Capability.class);
+        if (expression == null) return needs;
+        boolean operandExpected = true;
+        int i = 0;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if ((c == 'e' || c == 'E') && i > 0 && (Character.isDigit(expression.charAt(i - 1)) || expression.charAt(i - 1) == '.')) {
+                // exponent of a number literal such as 1.0E-5: its sign is not an operator
+                i++;
+                if (i < expression.length() && (expression.charAt(i) == '+' || expression.charAt(i) == '-')) i++;
+                continue;
+            }
+            if (Character.isLetter(c)) {
+                int start = i;
+                while (i < expression.length() && Character.isLetterOrDigit(expression.charAt(i))) i++;
+                String name = expression.substring(start, i);
+                if (name.equals("sin") || name.equals("cos") || name.equals("tan")) needs.add(TRIG);
+                else if (name.equals("sqrt") || name.equals("pow")) needs.add(MATH);
+                operandExpected = false;
+                continue;
+            }
+            if (c == '+' || c == '-') {
+                if (!operandExpected) needs.add(MATH);
+                operandExpected = true;
+            } else if (c == '*' || c == '/' || c == '^' || c == '√') {
+                needs.add(MATH);
+                operandExpected = true;
+            } else if (c == '(' || c == ',') {
+                operandExpected = true;
+            } else if (!Character.isWhitespace(c)) {
+                operandExpected = false;
+            }
+            i++;
+        }
+        return needs;
+    }
+}
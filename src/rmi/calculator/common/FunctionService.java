@@ -0,0 +1,34 @@
+package rmi.calculator.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * User functions kept on the server: register an expression of named variables once, then
+ * evaluate it over whole ranges in single calls instead of one call per point and operator.
+ * The server object bound under the main name implements this; look it up and cast the stub.
+ *
+ * <p>A range of {@code steps} equal intervals over {@code [start, end]} has {@code steps + 1}
+ * points, {@code x_i = start + (end - start) * i / steps}, both ends included. The first variable
+ * takes the point; any further variables take the {@code fixed} values. Points where the
+ * function is undefined come back as errors in the {@link BatchResult}, not as a failed call.
+ */
+public interface FunctionService extends Remote {
+    /** Most points a single tabulate call returns; larger ranges are fetched in chunks. */
+    int MAX_POINTS = 1 << 20;
+
+    /**
+     * Compiles {@code expression} (the syntax of {@link CalculatorService#evaluate}, plus the
+     * variables) and returns its handle. Handles unused for the server's idle timeout expire.
+     */
+    long registerFunction(String expression, String[] variables, String clientId) throws RemoteException;
+
+    void unregisterFunction(long handle) throws RemoteException;
+
+    /** All {@code steps + 1} points of a one-variable function. */
+    BatchResult tabulate(long handle, double start, double end, int steps, String clientId) throws RemoteException;
+
+    /** Points {@code from .. from + count - 1} of the range, the other variables set to {@code fixed}. */
+    BatchResult tabulate(long handle, double start, double end, int steps, double[] fixed, int from, int count,
+                         String clientId) throws RemoteException;
+}
@@ -0,0 +1,7 @@
+package rmi.calculator.common;
+
+public enum LogLevel {
+    INFO,
+    ERROR,
+    OFF
+}
@@ -0,0 +1,31 @@
+package rmi.calculator.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/** Arithmetic capability, bound as {@code MathService} by servers that offer it. */
+public interface MathService extends Remote {
+    double add(double a, double b, String clientId) throws RemoteException;
+    double sub(double a, double b, String clientId) throws RemoteException;
+    double mul(double a, double b, String clientId) throws RemoteException;
+    double div(double a, double b, String clientId) throws RemoteException;
+    double pow(double a, double b, String clientId) throws RemoteException;
+    double sqrt(double a, String clientId) throws RemoteException;
+
+    BatchResult add(double[] a, double[] b, String clientId) throws RemoteException;
+    BatchResult sub(double[] a, double[] b, String clientId) throws RemoteException;
+    BatchResult mul(double[] a, double[] b, String clientId) throws RemoteException;
+    BatchResult div(double[] a, double[] b, String clientId) throws RemoteException;
+    BatchResult pow(double[] a, double[] b, String clientId) throws RemoteException;
+    BatchResult sqrt(double[] a, String clientId) throws RemoteException;
+
+    // Reductions; mean/min/max reject empty arrays
+    double sum(double[] a, String clientId) throws RemoteException;
+    double mean(double[] a, String clientId) throws RemoteException;
+    double min(double[] a, String clientId) throws RemoteException;
+    double max(double[] a, String clientId) throws RemoteException;
+    double dot(double[] a, double[] b, String clientId) throws RemoteException;
+
+    // Polynomial (coefficients from highest degree down to the constant) evaluated at every x
+    double[] polyval(double[] coefficients, double[] x, String clientId) throws RemoteException;
+}
@@ -0,0 +1,49 @@
+package rmi.calculator.common;
+
+public enum OpCode {
+    ADD(1, "add", 2),
+    SUB(2, "sub", 2),
+    MUL(3, "mul", 2),
+    DIV(4, "div", 2),
+    POW(5, "pow", 2),
+    SQRT(6, "sqrt", 1),
+    SIN(7, "sin", 1),
+    COS(8, "cos", 1),
+    TAN(9, "tan", 1);
+
+    private static final OpCode[] BY_CODE = new OpCode[16];
+
+    static {
+        for (OpCode op : values()) {
+            BY_CODE[op.code] = op;
+        }
+    }
+
+    private final int code;
+    private final String opName;
+    private final int arity;
+
+    OpCode(int code, String opName, int arity) {
+        this.code = code;
+        this.opName = opName;
+        this.arity = arity;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public String opName() {
+        return opName;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    public static OpCode fromCode(int code) {
+        OpCode op = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        if (op == null) throw new IllegalArgumentException("Unknown opcode: " + code);
+        return op;
+    }
+}
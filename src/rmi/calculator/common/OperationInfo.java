@@ -0,0 +1,46 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/** One entry of a server's operation catalog: what to pass to {@link OperationService#invoke}. */
+public final class OperationInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+    private final String name;
+    private final int arity;
+    private final Capability capability;
+
+    public OperationInfo(int code, String name, int arity, Capability capability) {
+        this.code = code;
+        this.name = name;
+        this.arity = arity;
+        this.capability = capability;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getArity() {
+        return arity;
+    }
+
+    public Capability getCapability() {
+        return capability;
+    }
+
+    /** True for the {@link OpCode} operations every client knows without a catalog. */
+    public boolean isBuiltIn() {
+        return code < OperationService.FIRST_PLUGIN_CODE;
+    }
+
+    @Override
+    public String toString() {
+        return name + "/" + arity + " #" + code;
+    }
+}
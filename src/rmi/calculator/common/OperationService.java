@@ -0,0 +1,22 @@
+package rmi.calculator.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * Generic, opcode-dispatched calls. The catalog lists every operation the server offers right
+ * now: the {@link OpCode} built-ins plus operations loaded from server plugins, which may appear
+ * or disappear while the server runs. Plugin codes are fixed by the plugin, so the same code
+ * means the same operation on every server that has it.
+ */
+public interface OperationService extends Remote {
+    // Plugin codes; they travel as one byte on the binary protocol and in the journal
+    int FIRST_PLUGIN_CODE = 64;
+    int LAST_PLUGIN_CODE = 127;
+
+    List<OperationInfo> operations() throws RemoteException;
+
+    // args.length must equal the operation's arity
+    double invoke(int opcode, double[] args, String clientId) throws RemoteException;
+}
@@ -0,0 +1,171 @@
+package rmi.calculator.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends spans to a file in the OTLP/JSON file format: one {@code ExportTraceServiceRequest}
+ * per line, which OpenTelemetry collectors ({@code otlpjsonfile} receiver) and most trace
+ * viewers import directly. Callers only enqueue; a daemon thread does the formatting and
+ * writing, and spans that do not fit the queue are dropped and counted.
+ */
+public final class OtlpJsonExporter implements AutoCloseable {
+    public static final int DEFAULT_QUEUE = 1024;
+
+    private static final List<TraceSpan> END = new ArrayList<>();
+
+    private final Path file;
+    private final String serviceName;
+    private final BlockingQueue<List<TraceSpan>> queue = new ArrayBlockingQueue<>(DEFAULT_QUEUE);
+    private final LongAdder dropped = new LongAdder();
+    private final BufferedWriter out;
+    private final Thread writer;
+
+    public OtlpJsonExporter(Path file, String serviceName) throws IOException {
+        this.file = file;
+        this.serviceName = serviceName;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        this.writer = new Thread(this::drain, "trace-export");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /** Queues the spans of one trace; never blocks. */
+    public void export(List<TraceSpan> spans) {
+        if (spans.isEmpty()) return;
+        if (!queue.offer(spans)) dropped.add(spans.size());
+    }
+
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /** Writes what is queued, then closes the file. */
+    @Override
+    public void close() {
+        try {
+            queue.put(END);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        List<List<TraceSpan>> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                boolean end = false;
+                for (List<TraceSpan> spans : batch) {
+                    if (spans == END) end = true;
+                    else writeLine(spans);
+                }
+                batch.clear();
+                out.flush();
+                if (end) break;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            System.err.println("Trace export to " + file + " failed: " + ex);
+        } finally {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void writeLine(List<TraceSpan> spans) throws IOException {
+        StringBuilder sb = new StringBuilder(256 * spans.size());
+        sb.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        attribute(sb, "service.name", serviceName);
+        sb.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"rmi.calculator\"},\"spans\":[");
+        for (int i = 0; i < spans.size(); i++) {
+            if (i > 0) sb.append(',');
+            span(sb, spans.get(i));
+        }
+        sb.append("]}]}]}\n");
+        out.write(sb.toString());
+    }
+
+    private static void span(StringBuilder sb, TraceSpan s) {
+        sb.append("{\"traceId\":\"").append(s.getTraceId()).append("\",\"spanId\":\"").append(s.getSpanId()).append('"');
+        if (s.getParentSpanId() != null) sb.append(",\"parentSpanId\":\"").append(s.getParentSpanId()).append('"');
+        sb.append(",\"name\":");
+        string(sb, s.getName());
+        sb.append(",\"kind\":").append(s.getKind().otlp());
+        // 64-bit integers are strings in OTLP/JSON
+        sb.append(",\"startTimeUnixNano\":\"").append(s.getStartEpochNanos()).append('"');
+        sb.append(",\"endTimeUnixNano\":\"").append(s.getEndEpochNanos()).append('"');
+        sb.append(",\"attributes\":[");
+        boolean first = true;
+        for (Map.Entry<String, Object> a : s.getAttributes().entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            attribute(sb, a.getKey(), a.getValue());
+        }
+        sb.append(']');
+        if (s.getError() != null) {
+            sb.append(",\"status\":{\"code\":2,\"message\":");
+            string(sb, s.getError());
+            sb.append('}');
+        }
+        sb.append('}');
+    }
+
+    private static void attribute(StringBuilder sb, String key, Object value) {
+        sb.append("{\"key\":");
+        string(sb, key);
+        sb.append(",\"value\":{");
+        if (value instanceof Long || value instanceof Integer) {
+            sb.append("\"intValue\":\"").append(value).append('"');
+        } else if (value instanceof Double && Double.isFinite((Double) value)) {
+            sb.append("\"doubleValue\":").append(value);
+        } else if (value instanceof Boolean) {
+            sb.append("\"boolValue\":").append(value);
+        } else {
+            sb.append("\"stringValue\":");
+            string(sb, String.valueOf(value));
+        }
+        sb.append("}}");
+    }
+
+    private static void string(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,20 @@
+package rmi.calculator.common;
+
+/**
+ * How the server computes a scalar op.
+ *
+ * <ul>
+ *   <li>{@link #FAST}: polynomial sin/cos/tan within 2e-9 absolute of {@code Math}, and
+ *       integer powers by repeated squaring; about twice as fast, for bulk workloads that can
+ *       live with nine decimal places.</li>
+ *   <li>{@link #STRICT}: {@code java.lang.Math}, within one ulp. The default.</li>
+ *   <li>{@link #DECIMAL}: operands are taken as the decimal numbers they print as, so
+ *       {@code 0.1 + 0.2} is exactly {@code 0.3}; results are exact for add/sub/mul and
+ *       rounded to 34 significant digits otherwise.</li>
+ * </ul>
+ */
+public enum PrecisionMode {
+    FAST,
+    STRICT,
+    DECIMAL
+}
@@ -0,0 +1,22 @@
+package rmi.calculator.common;
+
+import java.rmi.RemoteException;
+
+/**
+ * The server turned the call away without running it (rate limit or full queue), so it is
+ * always safe to retry, ideally after {@link #getRetryAfterMillis()} or on another server.
+ */
+public class ServerBusyException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterMillis;
+
+    public ServerBusyException(String message, long retryAfterMillis) {
+        super(message);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
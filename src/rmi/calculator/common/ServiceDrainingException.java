@@ -0,0 +1,16 @@
+package rmi.calculator.common;
+
+import java.rmi.RemoteException;
+
+/**
+ * The service instance this stub points to is shutting down or has been replaced: it finishes
+ * the calls it already accepted but takes no new ones. Look the binding up again (the replacement,
+ * if any, is bound under the same name) or move to another server.
+ */
+public class ServiceDrainingException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public ServiceDrainingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package rmi.calculator.common;
+
+import java.rmi.RemoteException;
+
+/** The session handle is unknown to the server: never issued, closed, or expired while idle. */
+public class SessionExpiredException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public SessionExpiredException(String message) {
+        super(message);
+    }
+}
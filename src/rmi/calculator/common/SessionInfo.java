@@ -0,0 +1,69 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+
+/** Server-side state of one session. */
+public final class SessionInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long handle;
+    private final String clientId;
+    private final long openedAt;
+    private final long lastUsed;
+    private final long calls;
+    private final long errors;
+    private final double accumulator;
+    private final PrecisionMode precision;
+
+    public SessionInfo(long handle, String clientId, long openedAt, long lastUsed, long calls, long errors,
+                       double accumulator, PrecisionMode precision) {
+        this.handle = handle;
+        this.clientId = clientId;
+        this.openedAt = openedAt;
+        this.lastUsed = lastUsed;
+        this.calls = calls;
+        this.errors = errors;
+        this.accumulator = accumulator;
+        this.precision = precision;
+    }
+
+    public long getHandle() {
+        return handle;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /** Epoch millis. */
+    public long getOpenedAt() {
+        return openedAt;
+    }
+
+    /** Epoch millis of the last call made in this session. */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public double getAccumulator() {
+        return accumulator;
+    }
+
+    public PrecisionMode getPrecision() {
+        return precision;
+    }
+
+    @Override
+    public String toString() {
+        return "session " + Long.toHexString(handle) + " [" + clientId + "] calls=" + calls + " errors=" + errors
+                + " acc=" + accumulator + " precision=" + precision;
+    }
+}
@@ -0,0 +1,40 @@
+package rmi.calculator.common;
+
+import java.math.BigDecimal;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Session-scoped calls: the client identifies itself once in {@link #openSession} and then
+ * passes the returned handle, so neither the payload nor the server's per-call work depends
+ * on the client name. Handles are only valid on the server that issued them; an unknown,
+ * closed or idle-expired handle raises {@link SessionExpiredException} and the client should
+ * open a new session.
+ *
+ * <p>Scalar calls use the session's {@link PrecisionMode} (initially {@code STRICT}) unless
+ * the call names one.
+ */
+public interface SessionService extends Remote {
+    long openSession(String clientId) throws RemoteException;
+
+    void closeSession(long session) throws RemoteException;
+
+    // opcode is OpCode.code(); b is ignored by unary ops
+    double compute(long session, int opcode, double a, double b) throws RemoteException;
+
+    double compute(long session, int opcode, double a, double b, PrecisionMode precision) throws RemoteException;
+
+    // Always DECIMAL, with exact decimal operands and result; b may be null for unary ops
+    BigDecimal computeDecimal(long session, int opcode, BigDecimal a, BigDecimal b) throws RemoteException;
+
+    void setPrecision(long session, PrecisionMode precision) throws RemoteException;
+
+    double evaluate(long session, String expression) throws RemoteException;
+
+    // accumulator = accumulator (op) operand, or op(accumulator) for unary ops; returns the new value
+    double accumulate(long session, int opcode, double operand) throws RemoteException;
+
+    void setAccumulator(long session, double value) throws RemoteException;
+
+    SessionInfo getSessionInfo(long session) throws RemoteException;
+}
@@ -0,0 +1,92 @@
+package rmi.calculator.common;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+/**
+ * Appends log batches to a {@link JTextArea}, keeping at most {@code maxLines} lines so the
+ * view does not grow forever. At most one EDT task is outstanding; batches arriving while
+ * it is queued are merged into it. The merged text is capped at {@code maxLines} too: when the
+ * EDT falls behind, the oldest pending lines are dropped, counted and reported in the view.
+ */
+public final class TextAreaAppender implements AsyncLogBuffer.Appender {
+    public static final int DEFAULT_MAX_LINES = 2000;
+
+    private final JTextArea area;
+    private final int maxLines;
+    private final StringBuilder pending = new StringBuilder(); // guards the fields below
+    private int pendingLines;
+    private long skipped; // dropped since the last flush
+    private long dropped;
+    private boolean scheduled;
+
+    public TextAreaAppender(JTextArea area, int maxLines) {
+        this.area = area;
+        this.maxLines = maxLines;
+    }
+
+    @Override
+    public void append(String lines) {
+        synchronized (pending) {
+            pending.append(lines);
+            pendingLines += count(lines);
+            if (pendingLines > maxLines) dropOldest(pendingLines - maxLines);
+            if (scheduled) return;
+            scheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flush);
+    }
+
+    /** Lines dropped so far because the view could not keep up. */
+    public long droppedCount() {
+        synchronized (pending) {
+            return dropped;
+        }
+    }
+
+    private void dropOldest(int lines) {
+        int end = 0;
+        for (int n = 0; n < lines; n++) end = pending.indexOf("\n", end) + 1;
+        pending.delete(0, end);
+        pendingLines -= lines;
+        skipped += lines;
+        dropped += lines;
+    }
+
+    private static int count(String lines) {
+        int n = 0;
+        for (int i = lines.indexOf('\n'); i >= 0; i = lines.indexOf('\n', i + 1)) n++;
+        return n;
+    }
+
+    private void flush() {
+        String text;
+        long lost;
+        synchronized (pending) {
+            text = pending.toString();
+            lost = skipped;
+            pending.setLength(0);
+            pendingLines = 0;
+            skipped = 0;
+            scheduled = false;
+        }
+        area.append(text);
+        // After the text, where trimming to maxLines cannot remove it first
+        if (lost > 0) area.append("... " + lost + " earlier log line(s) dropped, view could not keep up\n");
+        trim();
+        area.setCaretPosition(area.getDocument().getLength());
+    }
+
+    private void trim() {
+        Document doc = area.getDocument();
+        Element root = doc.getDefaultRootElement();
+        int excess = root.getElementCount() - maxLines - 1; // last element is the empty line after '\n'
+        if (excess <= 0) return;
+        try {
+            doc.remove(0, root.getElement(excess - 1).getEndOffset());
+        } catch (BadLocationException ignored) {
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Identifies one span of a trace: a 128-bit trace id shared by every span of the call and a
+ * 64-bit id of its own. Sent with a sampled call so the server's spans join the client's trace.
+ * {@link #toString()} is the W3C {@code traceparent} form.
+ */
+public final class TraceContext implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long traceIdHigh;
+    private final long traceIdLow;
+    private final long spanId;
+
+    private TraceContext(long traceIdHigh, long traceIdLow, long spanId) {
+        this.traceIdHigh = traceIdHigh;
+        this.traceIdLow = traceIdLow;
+        this.spanId = spanId;
+    }
+
+    /** The root span of a new trace. */
+    public static TraceContext newTrace() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        long low;
+        do {
+            low = r.nextLong();
+        } while (low == 0); // an all-zero trace id is invalid
+        return new TraceContext(r.nextLong(), low, nonZero(r));
+    }
+
+    /** A new span in the same trace, e.g. the server side of a call. */
+    public TraceContext child() {
+        return new TraceContext(traceIdHigh, traceIdLow, nonZero(ThreadLocalRandom.current()));
+    }
+
+    /** 32 lower-case hex digits. */
+    public String traceId() {
+        return hex(traceIdHigh) + hex(traceIdLow);
+    }
+
+    /** 16 lower-case hex digits. */
+    public String spanId() {
+        return hex(spanId);
+    }
+
+    @Override
+    public String toString() {
+        return "00-" + traceId() + "-" + spanId() + "-01";
+    }
+
+    private static long nonZero(ThreadLocalRandom r) {
+        long id;
+        do {
+            id = r.nextLong();
+        } while (id == 0);
+        return id;
+    }
+
+    private static String hex(long v) {
+        String s = Long.toHexString(v);
+        return "0000000000000000".substring(s.length()) + s;
+    }
+}
@@ -0,0 +1,114 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One finished span, in the shape OTLP expects: a timed, named piece of a trace with its parent,
+ * attributes and, when it failed, an error message. Values of attributes are strings, longs,
+ * doubles or booleans.
+ */
+public final class TraceSpan implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Numbered as in OTLP's {@code SpanKind}. */
+    public enum Kind {
+        INTERNAL(1), SERVER(2), CLIENT(3);
+
+        private final int otlp;
+
+        Kind(int otlp) {
+            this.otlp = otlp;
+        }
+
+        public int otlp() {
+            return otlp;
+        }
+    }
+
+    private final String name;
+    private final Kind kind;
+    private final String traceId;
+    private final String spanId;
+    private final String parentSpanId; // null for a root span
+    private final long startEpochNanos;
+    private final long endEpochNanos;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private String error;
+
+    public TraceSpan(String name, Kind kind, TraceContext context, String parentSpanId, long startEpochNanos,
+                     long endEpochNanos) {
+        this.name = name;
+        this.kind = kind;
+        this.traceId = context.traceId();
+        this.spanId = context.spanId();
+        this.parentSpanId = parentSpanId;
+        this.startEpochNanos = startEpochNanos;
+        this.endEpochNanos = endEpochNanos;
+    }
+
+    /** Wall-clock now in nanoseconds since the epoch, for span start and end times. */
+    public static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    public TraceSpan attribute(String key, Object value) {
+        attributes.put(key, value);
+        return this;
+    }
+
+    public TraceSpan error(String message) {
+        this.error = message == null ? "error" : message;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public long durationNanos() {
+        return endEpochNanos - startEpochNanos;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /** Null when the span succeeded. */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + (durationNanos() / 1000) + " us" + (error == null ? "" : " error=" + error);
+    }
+}
@@ -0,0 +1,26 @@
+package rmi.calculator.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/** Result of a traced call together with the spans the server recorded for it. */
+public final class TracedResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final double value;
+    private final List<TraceSpan> spans;
+
+    public TracedResult(double value, List<TraceSpan> spans) {
+        this.value = value;
+        this.spans = spans;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    /** The server span first, then one span per phase; empty when the server traced nothing. */
+    public List<TraceSpan> getSpans() {
+        return spans;
+    }
+}
@@ -0,0 +1,16 @@
+package rmi.calculator.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Traced variants of {@link OperationService#invoke} and {@link CalculatorService#evaluate}, used
+ * for the calls a client samples. They compute the same result and also return the server's
+ * spans: admission wait, logging, computation and recording, each timed separately, as children
+ * of {@code trace}. A failed call throws as usual; its spans are only exported on the server.
+ */
+public interface TracedService extends Remote {
+    TracedResult invokeTraced(int opcode, double[] args, String clientId, TraceContext trace) throws RemoteException;
+
+    TracedResult evaluateTraced(String expression, String clientId, TraceContext trace) throws RemoteException;
+}
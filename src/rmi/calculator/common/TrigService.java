@@ -0,0 +1,15 @@
+package rmi.calculator.common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/** Trigonometry capability, bound as {@code TrigService} by servers that offer it. */
+public interface TrigService extends Remote {
+    double sin(double a, String clientId) throws RemoteException;
+    double cos(double a, String clientId) throws RemoteException;
+    double tan(double a, String clientId) throws RemoteException;
+
+    BatchResult sin(double[] a, String clientId) throws RemoteException;
+    BatchResult cos(double[] a, String clientId) throws RemoteException;
+    BatchResult tan(double[] a, String clientId) throws RemoteException;
+}
@@ -0,0 +1,59 @@
+package rmi.calculator.common;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.rmi.server.RMIClientSocketFactory;
+import java.util.Objects;
+
+/**
+ * Client half of a tuned RMI export: travels inside the stub, so every client connecting to
+ * the service uses these socket options. RMI itself always enables TCP_NODELAY and keep-alive.
+ * Equal factories share connections, hence {@link #equals}.
+ */
+public final class TunedClientSocketFactory implements RMIClientSocketFactory, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int bufferSize; // 0 keeps the OS default
+    private final int connectTimeoutMillis; // 0 waits as long as the OS does
+
+    public TunedClientSocketFactory(int bufferSize, int connectTimeoutMillis) {
+        this.bufferSize = bufferSize;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+        Socket socket = new Socket();
+        try {
+            if (bufferSize > 0) {
+                // Before connect, so the window scale is negotiated for the larger buffer
+                socket.setReceiveBufferSize(bufferSize);
+                socket.setSendBufferSize(bufferSize);
+            }
+            socket.connect(new InetSocketAddress(host, port), connectTimeoutMillis);
+            return socket;
+        } catch (IOException ex) {
+            socket.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TunedClientSocketFactory)) return false;
+        TunedClientSocketFactory f = (TunedClientSocketFactory) o;
+        return f.bufferSize == bufferSize && f.connectTimeoutMillis == connectTimeoutMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(bufferSize, connectTimeoutMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "TunedClientSocketFactory[buffer=" + bufferSize + ", connectTimeout=" + connectTimeoutMillis + "ms]";
+    }
+}
@@ -0,0 +1,12 @@
+package rmi.calculator.common;
+
+import java.rmi.RemoteException;
+
+/** The function handle is unknown to the server: never issued, unregistered, or expired while idle. */
+public class UnknownFunctionException extends RemoteException {
+    private static final long serialVersionUID = 1L;
+
+    public UnknownFunctionException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,326 @@
+package rmi.calculator.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import rmi.calculator.common.ServerBusyException;
+
+/**
+ * Decides whether a call may run. Each client has a token bucket; beyond that at most
+ * {@code maxConcurrent} calls run at once, and up to {@code maxQueue} more wait their turn in
+ * weighted-fair order: every queued call gets a virtual finish tag
+ * {@code max(virtualTime, client's last tag) + 1 / weight}, and the smallest tag runs next, so
+ * a client flooding the queue only delays its own calls. Anything over a limit, or waiting past
+ * the queue timeout, is rejected at once with {@link ServerBusyException} rather than piling up.
+ *
+ * <p>With both limits at 0 (the default) {@link #acquire} is two volatile reads.
+ */
+public class AdmissionController implements AdmissionControllerMBean {
+    private static final String OTHER_CLIENTS = "(other)";
+    private static final ThreadLocal<Boolean> NON_BLOCKING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private volatile int maxConcurrent;
+    private volatile int maxQueue;
+    private volatile long queueTimeoutMillis;
+    private volatile double clientRate;
+    private volatile int clientBurst;
+
+    private final ConcurrentHashMap<String, ClientState> clients = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>();
+    private int running;
+    private double virtualTime;
+    private long sequence;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queuedTotal = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private ObjectName objectName;
+
+    public AdmissionController(int maxConcurrent, int maxQueue, long queueTimeoutMillis, double clientRate, int clientBurst) {
+        this.maxConcurrent = Math.max(0, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+        this.clientRate = Math.max(0, clientRate);
+        this.clientBurst = Math.max(1, clientBurst);
+    }
+
+    public static AdmissionController unlimited() {
+        return new AdmissionController(0, 0, 0, 0, 1);
+    }
+
+    /** Threads that must never wait in the queue (an NIO selector loop) are rejected instead. */
+    public static void markCurrentThreadNonBlocking() {
+        NON_BLOCKING.set(Boolean.TRUE);
+    }
+
+    /**
+     * Admits a call from {@code clientId}, waiting in the fair queue if needed. Returns true
+     * when a concurrency slot was taken; the caller must then {@link #release} it.
+     */
+    public boolean acquire(String clientId) throws ServerBusyException {
+        double rate = clientRate;
+        int max = maxConcurrent;
+        if (rate <= 0 && max <= 0) return false;
+        ClientState client = client(clientId);
+        if (rate > 0) {
+            long waitNanos = client.take(rate, clientBurst);
+            if (waitNanos > 0) {
+                rateLimited.increment();
+                throw new ServerBusyException("Rate limit of " + rate + " calls/s exceeded",
+                        Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            }
+        }
+        if (max <= 0) return false;
+        lock.lock();
+        try {
+            if (running < max && queue.isEmpty()) {
+                running++;
+                admitted.increment();
+                return true;
+            }
+            if (queue.size() >= maxQueue || NON_BLOCKING.get()) {
+                rejected.increment();
+                throw new ServerBusyException("Server busy: " + running + " running, " + queue.size() + " queued",
+                        Math.max(1, queueTimeoutMillis / 2));
+            }
+            double finish = Math.max(virtualTime, client.lastFinish) + 1.0 / client.weight;
+            client.lastFinish = finish;
+            Waiter w = new Waiter(finish, sequence++, lock.newCondition());
+            queue.add(w);
+            queuedTotal.increment();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+            try {
+                while (!w.admitted && remaining > 0) remaining = w.turn.awaitNanos(remaining);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (!w.admitted) {
+                queue.remove(w);
+                rejected.increment();
+                throw new ServerBusyException("Server busy: not admitted within " + queueTimeoutMillis + " ms",
+                        Math.max(1, queueTimeoutMillis / 2));
+            }
+            admitted.increment();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns a slot taken by {@link #acquire}, handing it straight to the next queued call. */
+    public void release() {
+        lock.lock();
+        try {
+            running--;
+            admitQueued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void admitQueued() {
+        int max = maxConcurrent;
+        while (!queue.isEmpty() && (max <= 0 || running < max)) {
+            Waiter next = queue.poll();
+            virtualTime = next.finish;
+            next.admitted = true;
+            running++;
+            next.turn.signal();
+        }
+    }
+
+    private ClientState client(String clientId) {
+        if (clientId == null) clientId = "(anonymous)";
+        ClientState s = clients.get(clientId);
+        if (s == null) {
+            String key = clients.size() < ServerMetrics.MAX_TRACKED_CLIENTS ? clientId : OTHER_CLIENTS;
+            s = clients.computeIfAbsent(key, k -> new ClientState(clientBurst));
+        }
+        return s;
+    }
+
+    @Override
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    public void setMaxConcurrent(int maxConcurrent) {
+        lock.lock();
+        try {
+            this.maxConcurrent = Math.max(0, maxConcurrent);
+            admitQueued(); // a raised cap lets waiting calls in right away
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    @Override
+    public void setMaxQueue(int maxQueue) {
+        this.maxQueue = Math.max(0, maxQueue);
+    }
+
+    @Override
+    public long getQueueTimeoutMillis() {
+        return queueTimeoutMillis;
+    }
+
+    @Override
+    public void setQueueTimeoutMillis(long millis) {
+        this.queueTimeoutMillis = Math.max(0, millis);
+    }
+
+    @Override
+    public double getClientRate() {
+        return clientRate;
+    }
+
+    @Override
+    public void setClientRate(double permitsPerSecond) {
+        this.clientRate = Math.max(0, permitsPerSecond);
+    }
+
+    @Override
+    public int getClientBurst() {
+        return clientBurst;
+    }
+
+    @Override
+    public void setClientBurst(int burst) {
+        this.clientBurst = Math.max(1, burst);
+    }
+
+    @Override
+    public void setClientWeight(String clientId, double weight) {
+        if (!(weight > 0)) throw new IllegalArgumentException("weight must be > 0");
+        client(clientId).weight = weight;
+    }
+
+    @Override
+    public double getClientWeight(String clientId) {
+        ClientState s = clients.get(clientId);
+        return s == null ? 1.0 : s.weight;
+    }
+
+    @Override
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getAdmittedCount() {
+        return admitted.sum();
+    }
+
+    @Override
+    public long getQueuedCount() {
+        return queuedTotal.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getRateLimitedCount() {
+        return rateLimited.sum();
+    }
+
+    public void register(String bindingName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("rmi.calculator:type=Admission,binding=" + ObjectName.quote(bindingName));
+        try {
+            server.registerMBean(this, name);
+        } catch (InstanceAlreadyExistsException ex) {
+            server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        }
+        objectName = name;
+    }
+
+    public void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException ignored) {
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+        objectName = null;
+    }
+
+    /** Token bucket plus fair-queue bookkeeping for one client. */
+    private static final class ClientState {
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+        volatile double weight = 1.0;
+        double lastFinish; // guarded by the controller lock
+
+        ClientState(int burst) {
+            this.tokens = burst;
+        }
+
+        /** Takes a token; returns 0 on success or the nanos until one will be available. */
+        synchronized long take(double rate, int burst) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - refilledAt) * rate / 1e9);
+            refilledAt = now;
+            if (tokens >= 1.0) {
+                tokens -= 1.0;
+                return 0;
+            }
+            return (long) ((1.0 - tokens) * 1e9 / rate);
+        }
+    }
+
+    private static final class Waiter implements Comparable<Waiter> {
+        final double finish;
+        final long seq;
+        final Condition turn;
+        boolean admitted;
+
+        Waiter(double finish, long seq, Condition turn) {
+            this.finish = finish;
+            this.seq = seq;
+            this.turn = turn;
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            int c = Double.compare(finish, o.finish);
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+}
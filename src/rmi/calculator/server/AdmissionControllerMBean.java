@@ -0,0 +1,43 @@
+package rmi.calculator.server;
+
+public interface AdmissionControllerMBean {
+    /** Calls allowed to run at once; 0 disables the cap. */
+    int getMaxConcurrent();
+
+    void setMaxConcurrent(int maxConcurrent);
+
+    int getMaxQueue();
+
+    void setMaxQueue(int maxQueue);
+
+    long getQueueTimeoutMillis();
+
+    void setQueueTimeoutMillis(long millis);
+
+    /** Sustained calls per second allowed to each client; 0 disables rate limiting. */
+    double getClientRate();
+
+    void setClientRate(double permitsPerSecond);
+
+    /** Calls a client may make in a burst above its rate. */
+    int getClientBurst();
+
+    void setClientBurst(int burst);
+
+    /** Relative share of a client under contention; default 1. */
+    void setClientWeight(String clientId, double weight);
+
+    double getClientWeight(String clientId);
+
+    int getRunning();
+
+    int getQueued();
+
+    long getAdmittedCount();
+
+    long getQueuedCount();
+
+    long getRejectedCount();
+
+    long getRateLimitedCount();
+}
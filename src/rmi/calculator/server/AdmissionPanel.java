@@ -0,0 +1,77 @@
+package rmi.calculator.server;
+
+import java.awt.*;
+import javax.swing.*;
+
+/** Admission limits, editable while serving, and live queue counters refreshed once a second. */
+public class AdmissionPanel extends JPanel {
+    private final AdmissionController admission;
+    private final JLabel summary = new JLabel(" ");
+    private final Timer timer = new Timer(1000, e -> refresh());
+
+    public AdmissionPanel(AdmissionController admission) {
+        super(new BorderLayout(6, 6));
+        this.admission = admission;
+
+        JSpinner maxConcurrent = new JSpinner(new SpinnerNumberModel(admission.getMaxConcurrent(), 0, 100_000, 1));
+        maxConcurrent.addChangeListener(e -> admission.setMaxConcurrent((Integer) maxConcurrent.getValue()));
+        JSpinner maxQueue = new JSpinner(new SpinnerNumberModel(admission.getMaxQueue(), 0, 1_000_000, 16));
+        maxQueue.addChangeListener(e -> admission.setMaxQueue((Integer) maxQueue.getValue()));
+        JSpinner timeout = new JSpinner(new SpinnerNumberModel((int) admission.getQueueTimeoutMillis(), 0, 600_000, 100));
+        timeout.addChangeListener(e -> admission.setQueueTimeoutMillis((Integer) timeout.getValue()));
+        JSpinner rate = new JSpinner(new SpinnerNumberModel(admission.getClientRate(), 0.0, 1e7, 10.0));
+        rate.addChangeListener(e -> admission.setClientRate((Double) rate.getValue()));
+        JSpinner burst = new JSpinner(new SpinnerNumberModel(admission.getClientBurst(), 1, 10_000_000, 10));
+        burst.addChangeListener(e -> admission.setClientBurst((Integer) burst.getValue()));
+
+        JTextField client = new JTextField(12);
+        JSpinner weight = new JSpinner(new SpinnerNumberModel(1.0, 0.01, 1000.0, 0.5));
+        JButton setWeight = new JButton("Set weight");
+        setWeight.addActionListener(e -> {
+            String id = client.getText().trim();
+            if (!id.isEmpty()) admission.setClientWeight(id, (Double) weight.getValue());
+        });
+        JPanel weightRow = new JPanel(new FlowLayout(FlowLayout.LEFT, 4, 0));
+        weightRow.add(client);
+        weightRow.add(weight);
+        weightRow.add(setWeight);
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 6, 4));
+        form.add(new JLabel("Max concurrent calls (0 = unlimited)"));
+        form.add(maxConcurrent);
+        form.add(new JLabel("Max queued calls"));
+        form.add(maxQueue);
+        form.add(new JLabel("Queue timeout (ms)"));
+        form.add(timeout);
+        form.add(new JLabel("Calls/s per client (0 = unlimited)"));
+        form.add(rate);
+        form.add(new JLabel("Burst per client"));
+        form.add(burst);
+        form.add(new JLabel("Client weight"));
+        form.add(weightRow);
+
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(form, BorderLayout.NORTH);
+        add(top, BorderLayout.NORTH);
+        add(summary, BorderLayout.SOUTH);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        summary.setText("Running: " + admission.getRunning() + "   Queued: " + admission.getQueued()
+                + "   Admitted: " + admission.getAdmittedCount() + "   Waited: " + admission.getQueuedCount()
+                + "   Rejected: " + admission.getRejectedCount() + "   Rate limited: " + admission.getRateLimitedCount());
+    }
+}
@@ -0,0 +1,260 @@
+package rmi.calculator.server;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleBinaryOperator;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.OpCode;
+
+/**
+ * Element-wise kernels and reductions over {@code double[]}. Inputs longer than the threshold
+ * are split into ranges and run on a fork/join pool; each range runs a plain counted loop with
+ * no calls or branches in the body, which C2's superword pass compiles to SIMD for add, sub,
+ * mul, div and sqrt. Domain errors are detected in a separate pass so the main loop stays
+ * branch-free, and reported exactly as {@link CalculatorServiceImpl#apply} would.
+ *
+ * <p>Sums and dot products use four independent accumulators and, when split, add partial
+ * results in tree order, so they may differ from a left-to-right loop in the last bits. Either
+ * order stays within {@code (n - 1) * 2^-53 * sum(|a_i|)} of the exact sum.
+ */
+public class ArrayComputeEngine {
+    /** Ranges at or below this many elements run sequentially on the calling thread. */
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("calculator.array.threshold", 1 << 15);
+
+    /** Tabulation ranges split further: each point walks an expression tree, not one instruction. */
+    private static final int TABULATE_GRAIN = 1024;
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    public ArrayComputeEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    public ArrayComputeEngine(ForkJoinPool pool, int threshold) {
+        if (threshold < 1) throw new IllegalArgumentException("threshold must be >= 1");
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /** Single-threaded engine: the scalar fallback, and the baseline for benchmarks. */
+    public static ArrayComputeEngine sequential() {
+        return new ArrayComputeEngine(null, Integer.MAX_VALUE);
+    }
+
+    public int parallelism() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    /** {@code op} applied to every element; {@code b} is ignored (and may be null) for unary ops. */
+    public BatchResult elementWise(OpCode op, double[] a, double[] b) {
+        int n = a.length;
+        double[] out = new double[n];
+        forEachRange(n, (from, to) -> kernel(op, a, b, out, from, to));
+        String[] errors = null;
+        if (op == OpCode.DIV || op == OpCode.SQRT) {
+            double[] checked = op == OpCode.DIV ? b : a;
+            String message = op == OpCode.DIV ? "Division by zero" : "Square root of negative number";
+            for (int i = 0; i < n; i++) {
+                if (op == OpCode.DIV ? checked[i] == 0.0 : checked[i] < 0.0) {
+                    if (errors == null) errors = new String[n];
+                    errors[i] = message;
+                    out[i] = Double.NaN;
+                }
+            }
+        }
+        return new BatchResult(out, errors);
+    }
+
+    public double sum(double[] a) {
+        return reduce(a.length, (from, to) -> sum(a, from, to), Double::sum, 0.0);
+    }
+
+    public double mean(double[] a) {
+        return sum(a) / a.length;
+    }
+
+    /** Smallest element; NaN if any element is NaN, like {@link Math#min}. */
+    public double min(double[] a) {
+        return reduce(a.length, (from, to) -> min(a, from, to), Math::min, Double.POSITIVE_INFINITY);
+    }
+
+    public double max(double[] a) {
+        return reduce(a.length, (from, to) -> max(a, from, to), Math::max, Double.NEGATIVE_INFINITY);
+    }
+
+    public double dot(double[] a, double[] b) {
+        return reduce(a.length, (from, to) -> dot(a, b, from, to), Double::sum, 0.0);
+    }
+
+    /** Evaluates the polynomial at every {@code x}; coefficients run from highest degree to constant. */
+    public double[] polyval(double[] coefficients, double[] x) {
+        double[] out = new double[x.length];
+        forEachRange(x.length, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double xi = x[i];
+                double r = 0.0;
+                for (double c : coefficients) r = r * xi + c;
+                out[i] = r;
+            }
+        });
+        return out;
+    }
+
+    /**
+     * {@code f} at points {@code from .. from + count - 1} of {@code steps} equal intervals over
+     * {@code [start, end]}: the first variable takes the point, the rest {@code fixed}. Points
+     * where {@code f} is undefined become errors; the others are unaffected.
+     */
+    public BatchResult tabulate(CompiledExpression f, double start, double end, int steps, double[] fixed,
+                                int from, int count) {
+        double[] out = new double[count];
+        String[][] errors = new String[1][]; // allocated by the first failing point
+        double span = end - start;
+        forEachRange(count, Math.min(threshold, TABULATE_GRAIN), (lo, hi) -> {
+            double[] vars = new double[fixed.length + 1];
+            System.arraycopy(fixed, 0, vars, 1, fixed.length);
+            for (int i = lo; i < hi; i++) {
+                long k = (long) from + i;
+                vars[0] = k == steps ? end : start + span * k / steps;
+                try {
+                    out[i] = f.evaluate(vars);
+                } catch (ArithmeticException ex) {
+                    out[i] = Double.NaN;
+                    synchronized (errors) {
+                        if (errors[0] == null) errors[0] = new String[count];
+                        errors[0][i] = ex.getMessage();
+                    }
+                }
+            }
+        });
+        return new BatchResult(out, errors[0]);
+    }
+
+    private static void kernel(OpCode op, double[] a, double[] b, double[] out, int from, int to) {
+        switch (op) {
+            case ADD: for (int i = from; i < to; i++) out[i] = a[i] + b[i]; break;
+            case SUB: for (int i = from; i < to; i++) out[i] = a[i] - b[i]; break;
+            case MUL: for (int i = from; i < to; i++) out[i] = a[i] * b[i]; break;
+            case DIV: for (int i = from; i < to; i++) out[i] = a[i] / b[i]; break;
+            case SQRT: for (int i = from; i < to; i++) out[i] = Math.sqrt(a[i]); break;
+            case POW: for (int i = from; i < to; i++) out[i] = Math.pow(a[i], b[i]); break;
+            case SIN: for (int i = from; i < to; i++) out[i] = Math.sin(a[i]); break;
+            case COS: for (int i = from; i < to; i++) out[i] = Math.cos(a[i]); break;
+            case TAN: for (int i = from; i < to; i++) out[i] = Math.tan(a[i]); break;
+            default: throw new IllegalArgumentException("Unsupported op: " + op);
+        }
+    }
+
+    private static double sum(double[] a, int from, int to) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < to; i++) s0 += a[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double dot(double[] a, double[] b, int from, int to) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < to; i++) s0 += a[i] * b[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    private static double min(double[] a, int from, int to) {
+        double m = Double.POSITIVE_INFINITY;
+        for (int i = from; i < to; i++) m = Math.min(m, a[i]);
+        return m;
+    }
+
+    private static double max(double[] a, int from, int to) {
+        double m = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) m = Math.max(m, a[i]);
+        return m;
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    private interface RangeReducer {
+        double reduce(int from, int to);
+    }
+
+    private void forEachRange(int n, RangeAction action) {
+        forEachRange(n, threshold, action);
+    }
+
+    private void forEachRange(int n, int grain, RangeAction action) {
+        if (n <= grain || parallelism() == 1) action.run(0, n);
+        else pool.invoke(new RangeTask(action, 0, n, grain));
+    }
+
+    private double reduce(int n, RangeReducer reducer, DoubleBinaryOperator combine, double identity) {
+        if (n == 0) return identity;
+        if (n <= threshold || parallelism() == 1) return reducer.reduce(0, n);
+        return pool.invoke(new ReduceTask(reducer, combine, 0, n, threshold));
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        RangeTask(RangeAction action, int from, int to, int threshold) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                action.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(action, from, mid, threshold), new RangeTask(action, mid, to, threshold));
+        }
+    }
+
+    private static final class ReduceTask extends RecursiveTask<Double> {
+        private final RangeReducer reducer;
+        private final DoubleBinaryOperator combine;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        ReduceTask(RangeReducer reducer, DoubleBinaryOperator combine, int from, int to, int threshold) {
+            this.reducer = reducer;
+            this.combine = combine;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= threshold) return reducer.reduce(from, to);
+            int mid = (from + to) >>> 1;
+            ReduceTask left = new ReduceTask(reducer, combine, from, mid, threshold);
+            left.fork();
+            double right = new ReduceTask(reducer, combine, mid, to, threshold).compute();
+            return combine.applyAsDouble(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.RemoteException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.BinaryProtocol;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.OperationService;
+import rmi.calculator.common.SessionExpiredException;
+
+/**
+ * Optional second front end speaking {@link BinaryProtocol} over plain TCP. A single selector
+ * thread reads frames, dispatches them into the same {@link CalculatorServiceImpl} the RMI
+ * binding uses (so logging, metrics, cache and capability checks all apply) and queues the
+ * responses. Clients may pipeline any number of requests per connection. With a non-inline
+ * {@link ExecutionPolicy} requests run on worker threads and may complete out of order; clients
+ * match responses by request id. A connection whose client stops reading its responses is not
+ * read from either until its backlog drains, so it cannot grow the server's heap without bound.
+ */
+public class BinaryProtocolServer implements AutoCloseable {
+    private static final int READ_BUFFER = 64 * 1024;
+    /** Reading from a connection pauses while more response bytes than this wait to be sent... */
+    private static final int MAX_QUEUED_OUTPUT = 4 << 20;
+    /** ...or while more of its requests than this wait for a worker thread. */
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    private final int port;
+    private final ServerLogger logger;
+    private final ExecutionPolicy policy;
+    private final Queue<SelectionKey> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private volatile CalculatorServiceImpl service;
+    private ExecutorService executor; // null runs requests on the selector thread
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    public BinaryProtocolServer(int port, CalculatorServiceImpl service, ServerLogger logger) {
+        this(port, service, logger, ExecutionPolicy.INLINE);
+    }
+
+    public BinaryProtocolServer(int port, CalculatorServiceImpl service, ServerLogger logger, ExecutionPolicy policy) {
+        this.port = port;
+        this.service = service;
+        this.logger = logger;
+        this.policy = policy;
+    }
+
+    public void setService(CalculatorServiceImpl service) {
+        this.service = service;
+    }
+
+    public int getPort() {
+        return serverChannel == null ? port : serverChannel.socket().getLocalPort();
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        executor = policy.newExecutor("binary-worker-" + getPort());
+        thread = new Thread(this::loop, "binary-protocol-" + getPort());
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Binary protocol endpoint listening on port " + getPort() + " (execution: " + policy + ")");
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (executor != null) executor.shutdownNow();
+        for (SelectionKey key : selector.keys()) closeQuietly(key);
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+        logger.info("Binary protocol endpoint stopped");
+    }
+
+    private void loop() {
+        AdmissionController.markCurrentThreadNonBlocking(); // queueing here would stall every connection
+        while (running) {
+            try {
+                selector.select();
+                flushCompleted();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) accept();
+                        else {
+                            if (key.isReadable()) read(key);
+                            if (key.isValid() && key.isWritable()) write(key);
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        closeQuietly(key);
+                    } catch (Error err) {
+                        logger.error("Binary protocol connection failed", err);
+                        closeQuietly(key);
+                    }
+                }
+            } catch (IOException ex) {
+                logger.error("Binary protocol selector failed", ex);
+            }
+        }
+    }
+
+    /** Writes responses that worker threads finished since the last select. */
+    private void flushCompleted() {
+        wakeupPending.set(false);
+        SelectionKey key;
+        while ((key = completed.poll()) != null) {
+            if (!key.isValid()) continue;
+            try {
+                write(key);
+            } catch (IOException | RuntimeException ex) {
+                closeQuietly(key);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = serverChannel.accept();
+        if (ch == null) return;
+        ch.configureBlocking(false);
+        ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        ch.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel ch = (SocketChannel) key.channel();
+        Connection conn = (Connection) key.attachment();
+        int n = ch.read(conn.in);
+        if (n < 0) {
+            closeQuietly(key);
+            return;
+        }
+        processFrames(key, conn);
+    }
+
+    /** Dispatches the complete frames in the read buffer, leaving the rest once the connection is backlogged. */
+    private void processFrames(SelectionKey key, Connection conn) throws IOException {
+        conn.in.flip();
+        conn.stalled = false;
+        while (conn.in.remaining() >= 4) {
+            if (conn.backlogged()) {
+                conn.stalled = true;
+                break;
+            }
+            int len = conn.in.getInt(conn.in.position());
+            if (len < 9 || len > BinaryProtocol.MAX_FRAME) throw new IOException("Bad frame length " + len);
+            if (conn.in.remaining() < 4 + len) {
+                if (conn.in.capacity() < 4 + len) conn.grow(4 + len);
+                break;
+            }
+            conn.in.getInt();
+            ByteBuffer frame = conn.in.slice();
+            frame.limit(len);
+            conn.in.position(conn.in.position() + len);
+            // HELLO stays on the selector so later requests see the client id and session
+            if (executor == null || frame.get(8) == BinaryProtocol.HELLO) {
+                ByteBuffer response = respond(conn, frame);
+                if (response != null) conn.enqueue(response);
+            } else {
+                ByteBuffer copy = ByteBuffer.allocate(len).put(frame).flip(); // the read buffer is reused
+                conn.submitted();
+                executor.execute(() -> complete(key, conn, copy));
+            }
+        }
+        conn.in.compact();
+        write(key);
+    }
+
+    /** Runs on a worker. Every request gets a response, or its pipelined client would wait forever. */
+    private void complete(SelectionKey key, Connection conn, ByteBuffer frame) {
+        conn.finished();
+        if (!key.isValid()) return; // connection closed while queued
+        conn.enqueue(respond(conn, frame)); // only HELLO has no response, and it never leaves the selector
+        completed.add(key);
+        if (wakeupPending.compareAndSet(false, true)) selector.wakeup();
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel ch = (SocketChannel) key.channel();
+        Connection conn = (Connection) key.attachment();
+        boolean paused;
+        synchronized (conn) {
+            while (!conn.out.isEmpty()) {
+                ByteBuffer head = conn.out.peek();
+                ch.write(head);
+                if (head.hasRemaining()) break;
+                conn.queuedBytes -= conn.out.poll().limit();
+            }
+            paused = conn.backlogged();
+            key.interestOps((paused ? 0 : SelectionKey.OP_READ) | (conn.out.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+        }
+        // Frames already buffered when the backlog built up will not raise OP_READ again
+        if (!paused && conn.stalled) processFrames(key, conn);
+    }
+
+    /**
+     * Never throws: a request that fails in any way, even with an {@link Error} such as a stack
+     * overflow, is answered with {@code STATUS_ERROR} and the selector carries on.
+     */
+    private ByteBuffer respond(Connection conn, ByteBuffer frame) {
+        long id = frame.getLong(frame.position());
+        try {
+            return dispatch(conn, frame);
+        } catch (Throwable ex) {
+            logger.error("Binary request " + id + " failed", ex);
+            return error(id, ex.getMessage() == null ? ex.toString() : ex.getMessage());
+        }
+    }
+
+    private ByteBuffer dispatch(Connection conn, ByteBuffer frame) {
+        long id = frame.getLong();
+        byte type = frame.get();
+        CalculatorServiceImpl svc = service;
+        try {
+            switch (type) {
+                case BinaryProtocol.HELLO: {
+                    String clientId = BinaryProtocol.getString(frame);
+                    synchronized (conn) {
+                        // A repeated HELLO replaces the session; the registry is shared with RMI clients
+                        if (conn.session != 0) svc.closeSession(conn.session);
+                        conn.session = 0;
+                        conn.clientId = clientId;
+                        conn.session = svc.openSession(clientId);
+                    }
+                    return null;
+                }
+                case BinaryProtocol.EVALUATE:
+                    return okDouble(id, svc.evaluate(BinaryProtocol.getString(frame), conn.clientId));
+                case BinaryProtocol.BATCH:
+                    return okBatch(id, svc.batch(readBatch(frame), conn.clientId));
+                case BinaryProtocol.SUM:
+                    return okDouble(id, svc.sum(BinaryProtocol.getArray(frame), conn.clientId));
+                case BinaryProtocol.MEAN:
+                    return okDouble(id, svc.mean(BinaryProtocol.getArray(frame), conn.clientId));
+                case BinaryProtocol.MIN:
+                    return okDouble(id, svc.min(BinaryProtocol.getArray(frame), conn.clientId));
+                case BinaryProtocol.MAX:
+                    return okDouble(id, svc.max(BinaryProtocol.getArray(frame), conn.clientId));
+                case BinaryProtocol.DOT:
+                    return okDouble(id, svc.dot(BinaryProtocol.getArray(frame), BinaryProtocol.getArray(frame), conn.clientId));
+                case BinaryProtocol.POLYVAL: {
+                    double[] values = svc.polyval(BinaryProtocol.getArray(frame), BinaryProtocol.getArray(frame), conn.clientId);
+                    ByteBuffer buf = ByteBuffer.allocate(4 + 8 + 1 + BinaryProtocol.arraySize(values));
+                    buf.putInt(8 + 1 + BinaryProtocol.arraySize(values)).putLong(id).put(BinaryProtocol.STATUS_OK);
+                    BinaryProtocol.putArray(buf, values);
+                    buf.flip();
+                    return buf;
+                }
+                case BinaryProtocol.OPERATIONS:
+                    return okOperations(id, svc.operations());
+                default:
+                    return okDouble(id, scalar(svc, conn, type, frame.getDouble(), frame.getDouble()));
+            }
+        } catch (RemoteException | IllegalArgumentException ex) {
+            return error(id, ex.getMessage());
+        }
+    }
+
+    /** Scalar ops run in the connection's session once HELLO opened one; it is reopened if it expired. */
+    private static double scalar(CalculatorServiceImpl svc, Connection conn, byte type, double a, double b)
+            throws RemoteException {
+        if (type >= OperationService.FIRST_PLUGIN_CODE) return svc.invoke(type, a, b, conn.clientId);
+        long session = conn.session;
+        if (session == 0) return svc.scalar(OpCode.fromCode(type), a, b, conn.clientId);
+        try {
+            return svc.compute(session, type, a, b);
+        } catch (SessionExpiredException ex) {
+            return svc.compute(reopen(svc, conn, session), type, a, b);
+        }
+    }
+
+    /** Workers may find the session expired together; the first reopens it and the rest use that one. */
+    private static long reopen(CalculatorServiceImpl svc, Connection conn, long expired) throws RemoteException {
+        synchronized (conn) {
+            if (conn.session == expired) conn.session = svc.openSession(conn.clientId);
+            return conn.session;
+        }
+    }
+
+    private static List<BatchOp> readBatch(ByteBuffer frame) {
+        int n = frame.getInt();
+        if (n < 0 || n > frame.remaining() / 17) throw new IllegalArgumentException("Bad batch size " + n);
+        List<BatchOp> ops = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ops.add(new BatchOp(OpCode.fromCode(frame.get()), frame.getDouble(), frame.getDouble()));
+        }
+        return ops;
+    }
+
+    private static ByteBuffer okDouble(long id, double value) {
+        ByteBuffer buf = ByteBuffer.allocate(4 + 8 + 1 + 8);
+        buf.putInt(8 + 1 + 8).putLong(id).put(BinaryProtocol.STATUS_OK).putDouble(value);
+        buf.flip();
+        return buf;
+    }
+
+    private static ByteBuffer okBatch(long id, BatchResult result) {
+        int size = 8 + 1 + 4;
+        for (int i = 0; i < result.size(); i++) {
+            size += 1 + (result.isError(i) ? BinaryProtocol.stringSize(BinaryProtocol.clip(result.error(i))) : 8);
+        }
+        ByteBuffer buf = ByteBuffer.allocate(4 + size);
+        buf.putInt(size).putLong(id).put(BinaryProtocol.STATUS_OK).putInt(result.size());
+        for (int i = 0; i < result.size(); i++) {
+            if (result.isError(i)) {
+                buf.put(BinaryProtocol.STATUS_ERROR);
+                BinaryProtocol.putString(buf, BinaryProtocol.clip(result.error(i)));
+            } else {
+                buf.put(BinaryProtocol.STATUS_OK).putDouble(result.value(i));
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static ByteBuffer okOperations(long id, List<OperationInfo> ops) {
+        int size = 8 + 1 + 4;
+        for (OperationInfo op : ops) size += 3 + BinaryProtocol.stringSize(op.getName());
+        ByteBuffer buf = ByteBuffer.allocate(4 + size);
+        buf.putInt(size).putLong(id).put(BinaryProtocol.STATUS_OK).putInt(ops.size());
+        for (OperationInfo op : ops) {
+            buf.put((byte) op.getCode()).put((byte) op.getArity()).put((byte) op.getCapability().ordinal());
+            BinaryProtocol.putString(buf, op.getName());
+        }
+        buf.flip();
+        return buf;
+    }
+
+    private static ByteBuffer error(long id, String message) {
+        String msg = BinaryProtocol.clip(message);
+        int size = 8 + 1 + BinaryProtocol.stringSize(msg);
+        ByteBuffer buf = ByteBuffer.allocate(4 + size);
+        buf.putInt(size).putLong(id).put(BinaryProtocol.STATUS_ERROR);
+        BinaryProtocol.putString(buf, msg);
+        buf.flip();
+        return buf;
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        key.cancel();
+        Object attachment = key.attachment();
+        if (attachment instanceof Connection && ((Connection) attachment).session != 0) {
+            service.closeSession(((Connection) attachment).session);
+        }
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class Connection {
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER);
+        final ArrayDeque<ByteBuffer> out = new ArrayDeque<>(); // guarded by this
+        long queuedBytes; // guarded by this
+        int inFlight; // requests handed to workers, guarded by this
+        boolean stalled; // frames left unread in the buffer because of the backlog; selector thread only
+        volatile String clientId = "binary";
+        volatile long session;
+
+        synchronized void enqueue(ByteBuffer response) {
+            out.add(response);
+            queuedBytes += response.limit();
+        }
+
+        synchronized void submitted() {
+            inFlight++;
+        }
+
+        synchronized void finished() {
+            inFlight--;
+        }
+
+        synchronized boolean backlogged() {
+            return queuedBytes > MAX_QUEUED_OUTPUT || inFlight > MAX_IN_FLIGHT;
+        }
+
+        void grow(int needed) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(needed, in.capacity() * 2));
+            bigger.put(in);
+            in = bigger;
+            in.flip();
+        }
+    }
+}
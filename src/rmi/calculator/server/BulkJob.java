@@ -0,0 +1,398 @@
+package rmi.calculator.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.BulkChunk;
+import rmi.calculator.common.BulkJobSpec;
+import rmi.calculator.common.BulkJobStatus;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.PrecisionMode;
+
+/**
+ * One bulk job: reads the operand file a chunk at a time, computes each chunk with
+ * {@link CalculatorServiceImpl#apply} (or the {@link FastMath} / {@link DecimalMath} tier the spec asks
+ * for) and hands it to the output. Memory is bounded by the chunk
+ * size, the mapped window and, for streaming jobs, the few chunks queued for the client.
+ */
+class BulkJob implements Runnable {
+    static final int CHUNK_ROWS = 64 * 1024;
+    static final int QUEUED_CHUNKS = 4;
+    /** Streaming jobs whose client stops fetching for this long are cancelled. */
+    static final long IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+
+    private final long id;
+    private final BulkJobSpec spec;
+    private final String clientId;
+    private final Path input;
+    private final Path output;
+    private final ServerLogger logger;
+    private final ServerMetrics.OpMetrics opMetrics;
+    private final BlockingQueue<BulkChunk> chunks;
+    private final long totalBytes;
+
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile long bytesRead;
+    private volatile BulkJobStatus.State state = BulkJobStatus.State.RUNNING;
+    private volatile String message;
+    private volatile long lastTouched = System.currentTimeMillis();
+    private volatile long finishedAt;
+    private volatile Thread runner;
+
+    BulkJob(long id, BulkJobSpec spec, String clientId, Path input, Path output, ServerLogger logger,
+            ServerMetrics metrics) throws IOException {
+        this.id = id;
+        this.spec = spec;
+        this.clientId = clientId;
+        this.input = input;
+        this.output = output;
+        this.logger = logger;
+        this.opMetrics = metrics.op("bulk." + spec.getOp().opName());
+        this.chunks = spec.isStreaming() ? new ArrayBlockingQueue<>(QUEUED_CHUNKS) : null;
+        this.totalBytes = Files.size(input);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    BulkJobSpec getSpec() {
+        return spec;
+    }
+
+    long getFinishedAt() {
+        return finishedAt;
+    }
+
+    BulkJobStatus status() {
+        return new BulkJobStatus(id, state, rows.get(), errors.get(), bytesRead, totalBytes, message);
+    }
+
+    /** Next queued chunk of a streaming job, or null after {@code maxWaitMillis}. */
+    BulkChunk poll(long maxWaitMillis) throws InterruptedException {
+        lastTouched = System.currentTimeMillis();
+        return chunks.poll(maxWaitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void cancel(String reason) {
+        if (state != BulkJobStatus.State.RUNNING) return;
+        message = reason;
+        state = BulkJobStatus.State.CANCELLED;
+        Thread t = runner;
+        if (t != null) t.interrupt();
+    }
+
+    @Override
+    public void run() {
+        runner = Thread.currentThread();
+        long t0 = System.nanoTime();
+        logger.info("[" + clientId + "] bulk job " + id + " started: " + spec);
+        try (OperandSource source = spec.getFormat() == BulkJobSpec.Format.BINARY
+                ? new MappedBinarySource(input, spec.getOp().arity())
+                : new CsvSource(input, spec.getOp().arity());
+             ResultSink sink = spec.isStreaming() ? new QueueSink()
+                     : spec.getFormat() == BulkJobSpec.Format.BINARY ? new BinarySink(output) : new CsvSink(output)) {
+            OpCode op = spec.getOp();
+            PrecisionMode precision = spec.getPrecision();
+            double[] a = new double[CHUNK_ROWS];
+            double[] b = new double[CHUNK_ROWS];
+            String[] rowErrors = new String[CHUNK_ROWS];
+            int n;
+            while (state == BulkJobStatus.State.RUNNING && (n = source.read(a, b, rowErrors)) > 0) {
+                long c0 = System.nanoTime();
+                double[] values = new double[n];
+                String[] errs = null;
+                for (int i = 0; i < n; i++) {
+                    String err = rowErrors[i];
+                    if (err == null) {
+                        try {
+                            switch (precision) {
+                                case FAST: values[i] = FastMath.apply(op, a[i], b[i]); break;
+                                case DECIMAL: values[i] = DecimalMath.apply(op, a[i], b[i]); break;
+                                default: values[i] = CalculatorServiceImpl.apply(op, a[i], b[i]);
+                            }
+                            continue;
+                        } catch (ArithmeticException ex) {
+                            err = ex.getMessage();
+                        }
+                    }
+                    rowErrors[i] = null;
+                    if (errs == null) errs = new String[n];
+                    errs[i] = err;
+                    values[i] = Double.NaN;
+                }
+                BatchResult chunk = new BatchResult(values, errs);
+                int failed = chunk.errorCount();
+                opMetrics.record(System.nanoTime() - c0, failed > 0);
+                sink.accept(rows.get(), chunk);
+                rows.addAndGet(n);
+                errors.addAndGet(failed);
+                bytesRead = source.bytesRead();
+            }
+            if (state == BulkJobStatus.State.RUNNING) {
+                sink.finish(rows.get());
+                state = BulkJobStatus.State.DONE;
+            }
+        } catch (InterruptedException ex) {
+            // cancelled; state and message are already set
+        } catch (IOException | RuntimeException ex) {
+            // A cancel() that interrupts a channel read surfaces here as ClosedByInterruptException
+            if (state != BulkJobStatus.State.CANCELLED) {
+                message = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+                state = BulkJobStatus.State.FAILED;
+                logger.error("[" + clientId + "] bulk job " + id + " failed", ex);
+            }
+        } finally {
+            runner = null;
+            Thread.interrupted();
+            finishedAt = System.currentTimeMillis();
+        }
+        logger.info("[" + clientId + "] bulk job " + id + " " + state + ": rows=" + rows.get() + " errors="
+                + errors.get() + " in " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+    }
+
+    /** Reads up to {@code a.length} rows; a row that cannot be parsed gets a message in {@code rowErrors}. */
+    private interface OperandSource extends AutoCloseable {
+        int read(double[] a, double[] b, String[] rowErrors) throws IOException;
+
+        long bytesRead();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private interface ResultSink extends AutoCloseable {
+        void accept(long firstRow, BatchResult chunk) throws IOException, InterruptedException;
+
+        void finish(long rows) throws IOException, InterruptedException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /** Maps the file a window at a time instead of copying it through a heap buffer. */
+    private static final class MappedBinarySource implements OperandSource {
+        private static final long WINDOW_BYTES = 8L << 20;
+
+        private final FileChannel channel;
+        private final int arity;
+        private final long size;
+        private final long window;
+        private long mapped;
+        private MappedByteBuffer buffer;
+
+        MappedBinarySource(Path path, int arity) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.arity = arity;
+            this.size = channel.size();
+            long stride = 8L * arity;
+            if (size % stride != 0) {
+                channel.close();
+                throw new IOException("File size " + size + " is not a multiple of the " + stride + "-byte row");
+            }
+            this.window = WINDOW_BYTES - WINDOW_BYTES % stride;
+        }
+
+        @Override
+        public int read(double[] a, double[] b, String[] rowErrors) throws IOException {
+            int n = 0;
+            while (n < a.length) {
+                if (buffer == null || !buffer.hasRemaining()) {
+                    if (mapped >= size) break;
+                    long len = Math.min(window, size - mapped);
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, len);
+                    mapped += len;
+                }
+                int rowsHere = Math.min(a.length - n, buffer.remaining() / (8 * arity));
+                for (int i = 0; i < rowsHere; i++, n++) {
+                    a[n] = buffer.getDouble();
+                    b[n] = arity == 2 ? buffer.getDouble() : 0.0;
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long bytesRead() {
+            return buffer == null ? 0 : mapped - buffer.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            buffer = null;
+            channel.close();
+        }
+    }
+
+    /** Decodes lines straight out of a reused channel buffer; operands are ASCII. */
+    private static final class CsvSource implements OperandSource {
+        private final FileChannel channel;
+        private final int arity;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+        private final StringBuilder line = new StringBuilder();
+        private long consumed;
+        private long lineNo;
+        private boolean eof;
+
+        CsvSource(Path path, int arity) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.arity = arity;
+            buffer.flip();
+        }
+
+        @Override
+        public int read(double[] a, double[] b, String[] rowErrors) throws IOException {
+            int n = 0;
+            while (n < a.length && !eof) {
+                if (!buffer.hasRemaining()) {
+                    buffer.clear();
+                    int r = channel.read(buffer);
+                    buffer.flip();
+                    if (r < 0) {
+                        eof = true;
+                        if (line.length() > 0 && parse(a, b, rowErrors, n)) n++;
+                        break;
+                    }
+                }
+                while (buffer.hasRemaining() && n < a.length) {
+                    byte c = buffer.get();
+                    consumed++;
+                    if (c == '\n') {
+                        if (parse(a, b, rowErrors, n)) n++;
+                    } else if (c != '\r') {
+                        line.append((char) (c & 0xFF));
+                    }
+                }
+            }
+            return n;
+        }
+
+        /** Parses and clears the current line; false for blank and comment lines. */
+        private boolean parse(double[] a, double[] b, String[] rowErrors, int row) {
+            lineNo++;
+            String text = line.toString().trim();
+            line.setLength(0);
+            if (text.isEmpty() || text.charAt(0) == '#') return false;
+            int comma = text.indexOf(',');
+            String first = comma < 0 ? text : text.substring(0, comma);
+            String second = comma < 0 ? null : text.substring(comma + 1);
+            if ((arity == 2) != (second != null) || (second != null && second.indexOf(',') >= 0)) {
+                rowErrors[row] = "Line " + lineNo + ": expected " + arity + " value(s)";
+                return true;
+            }
+            try {
+                a[row] = Double.parseDouble(first.trim());
+                b[row] = second == null ? 0.0 : Double.parseDouble(second.trim());
+            } catch (NumberFormatException ex) {
+                rowErrors[row] = "Line " + lineNo + ": invalid number";
+            }
+            return true;
+        }
+
+        @Override
+        public long bytesRead() {
+            return consumed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private final class QueueSink implements ResultSink {
+        @Override
+        public void accept(long firstRow, BatchResult chunk) throws InterruptedException {
+            put(new BulkChunk(firstRow, chunk, false));
+        }
+
+        @Override
+        public void finish(long rows) throws InterruptedException {
+            put(new BulkChunk(rows, new BatchResult(new double[0], null), true));
+        }
+
+        /** Blocks while the client is behind: this backpressure is what keeps memory flat. */
+        private void put(BulkChunk chunk) throws InterruptedException {
+            while (!chunks.offer(chunk, 1, TimeUnit.SECONDS)) {
+                if (System.currentTimeMillis() - lastTouched > IDLE_TIMEOUT_MILLIS) {
+                    cancel("Abandoned: no chunk fetched for " + IDLE_TIMEOUT_MILLIS / 1000 + " s");
+                    throw new InterruptedException();
+                }
+                if (state != BulkJobStatus.State.RUNNING) throw new InterruptedException();
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class BinarySink implements ResultSink {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_ROWS * 8);
+
+        BinarySink(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+        }
+
+        @Override
+        public void accept(long firstRow, BatchResult chunk) throws IOException {
+            buffer.clear();
+            buffer.asDoubleBuffer().put(chunk.values());
+            buffer.limit(chunk.size() * 8);
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+
+        @Override
+        public void finish(long rows) throws IOException {
+            channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static final class CsvSink implements ResultSink {
+        private final BufferedWriter writer;
+
+        CsvSink(Path path) throws IOException {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+        }
+
+        @Override
+        public void accept(long firstRow, BatchResult chunk) throws IOException {
+            for (int i = 0; i < chunk.size(); i++) {
+                if (chunk.isError(i)) writer.write("ERROR: " + chunk.error(i));
+                else writer.write(Double.toString(chunk.value(i)));
+                writer.write('\n');
+            }
+        }
+
+        @Override
+        public void finish(long rows) throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import rmi.calculator.common.BulkChunk;
+import rmi.calculator.common.BulkJobService;
+import rmi.calculator.common.BulkJobSpec;
+import rmi.calculator.common.BulkJobStatus;
+import rmi.calculator.common.Capability;
+
+/**
+ * Runs {@link BulkJob}s on a small dedicated pool. Every input and output path is resolved
+ * inside the configured bulk directory; anything escaping it is rejected.
+ */
+public class BulkJobServiceImpl extends UnicastRemoteObject implements BulkJobService {
+    /** Finished jobs stay queryable this long before they are dropped. */
+    static final long RETENTION_MILLIS = 10 * 60_000;
+    private static final long MAX_WAIT_MILLIS = 30_000;
+
+    private final Path root;
+    private final Set<Capability> capabilities;
+    private final ServerLogger logger;
+    private final ServerMetrics metrics;
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<Long, BulkJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+
+    public BulkJobServiceImpl(Path root, Set<Capability> capabilities, ServerLogger logger, ServerMetrics metrics,
+                              int threads) throws RemoteException {
+        super();
+        this.root = root.toAbsolutePath().normalize();
+        this.capabilities = capabilities;
+        this.logger = logger;
+        this.metrics = metrics;
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "bulk-job-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    public long startBulkJob(BulkJobSpec spec, String clientId) throws RemoteException {
+        if (spec == null) throw new RemoteException("Bulk job spec must not be null");
+        if (!capabilities.contains(Capability.of(spec.getOp()))) {
+            throw new RemoteException(spec.getOp().opName() + " is not offered by this server");
+        }
+        Path input = resolve(spec.getInputPath());
+        if (!Files.isReadable(input)) throw new RemoteException("Cannot read " + spec.getInputPath());
+        try {
+            if (!input.toRealPath().startsWith(root.toRealPath())) {
+                throw new RemoteException("Path outside the bulk directory: " + spec.getInputPath());
+            }
+        } catch (IOException ex) {
+            throw new RemoteException("Cannot read " + spec.getInputPath());
+        }
+        Path output = spec.isStreaming() ? null : output(spec.getOutputPath(), input);
+        purgeFinished();
+        metrics.countClient(clientId);
+        long id = nextId.incrementAndGet();
+        try {
+            BulkJob job = new BulkJob(id, spec, clientId, input, output, logger, metrics);
+            jobs.put(id, job);
+            executor.execute(job);
+        } catch (IOException ex) {
+            jobs.remove(id);
+            throw new RemoteException("Cannot start bulk job: " + ex.getMessage());
+        }
+        return id;
+    }
+
+    @Override
+    public BulkChunk nextBulkChunk(long jobId, long maxWaitMillis) throws RemoteException {
+        BulkJob job = job(jobId);
+        if (!job.getSpec().isStreaming()) {
+            throw new RemoteException("Bulk job " + jobId + " writes to " + job.getSpec().getOutputPath());
+        }
+        BulkChunk chunk;
+        try {
+            chunk = job.poll(Math.max(0, Math.min(maxWaitMillis, MAX_WAIT_MILLIS)));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted");
+        }
+        if (chunk == null) {
+            BulkJobStatus status = job.status();
+            // Results queued before a failure are still delivered first
+            if (status.getState() == BulkJobStatus.State.FAILED || status.getState() == BulkJobStatus.State.CANCELLED) {
+                throw new RemoteException("Bulk job " + jobId + " " + status.getState() + ": " + status.getMessage());
+            }
+        }
+        return chunk;
+    }
+
+    @Override
+    public BulkJobStatus getBulkJobStatus(long jobId) throws RemoteException {
+        return job(jobId).status();
+    }
+
+    @Override
+    public void cancelBulkJob(long jobId) throws RemoteException {
+        BulkJob job = jobs.remove(jobId);
+        if (job != null) job.cancel("Cancelled by client");
+    }
+
+    /** Cancels every job and stops the pool; the caller unexports this object. */
+    public void close() {
+        for (BulkJob job : jobs.values()) job.cancel("Server stopping");
+        jobs.clear();
+        executor.shutdownNow();
+    }
+
+    private BulkJob job(long jobId) throws RemoteException {
+        BulkJob job = jobs.get(jobId);
+        if (job == null) throw new RemoteException("Unknown bulk job " + jobId);
+        return job;
+    }
+
+    private Path resolve(String path) throws RemoteException {
+        Path p = root.resolve(path).normalize();
+        if (!p.startsWith(root)) throw new RemoteException("Path outside the bulk directory: " + path);
+        return p;
+    }
+
+    /**
+     * The output's directory must really be inside the root and the output must not be the
+     * input under another name, including a symlink or hard link to it. The sinks open it with
+     * {@link LinkOption#NOFOLLOW_LINKS}, so a link planted later is refused too.
+     */
+    private Path output(String path, Path input) throws RemoteException {
+        Path p = resolve(path);
+        boolean inside;
+        boolean overwritesInput;
+        try {
+            inside = p.getParent() != null && p.getParent().toRealPath().startsWith(root.toRealPath());
+            overwritesInput = inside && Files.exists(p, LinkOption.NOFOLLOW_LINKS) && Files.isSameFile(p, input);
+        } catch (IOException ex) {
+            throw new RemoteException("Cannot write " + path);
+        }
+        if (!inside) throw new RemoteException("Path outside the bulk directory: " + path);
+        if (overwritesInput) throw new RemoteException("Output must not overwrite the input");
+        return p;
+    }
+
+    private void purgeFinished() {
+        long cutoff = System.currentTimeMillis() - RETENTION_MILLIS;
+        for (Iterator<BulkJob> it = jobs.values().iterator(); it.hasNext(); ) {
+            long finished = it.next().getFinishedAt();
+            if (finished != 0 && finished < cutoff) it.remove();
+        }
+    }
+}
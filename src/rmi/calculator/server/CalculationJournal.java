@@ -0,0 +1,267 @@
+package rmi.calculator.server;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import rmi.calculator.common.BinaryProtocol;
+import rmi.calculator.common.OpCode;
+
+/**
+ * Durable record of every calculation: fixed-size binary records appended to memory-mapped
+ * segment files ({@code journal-NNNNNN.bin}), rolled when full. A writer claims a slot with one
+ * atomic increment and fills it in place, so concurrent calls never contend on a lock; a
+ * background thread forces dirty pages to disk every {@code syncMillis} (group commit), so at
+ * most that much history is lost on a power failure. Client ids are stored as indexes into
+ * {@code clients.txt} next to the segments. {@link JournalQuery} reads the files offline.
+ *
+ * <p>Record layout (big-endian, {@link #RECORD_SIZE} bytes), after a
+ * {@link #HEADER_SIZE}-byte segment header:
+ * <pre>
+ *  0 long   epoch microseconds; 0 marks an unwritten slot, either the unused tail or a hole left
+ *          by a writer that died between claiming and completing it
+ *  8 int    client index
+ * 12 byte   op: an {@link OpCode} code, a plugin {@link Operation} code, or a {@link BinaryProtocol}
+ *          opcode (evaluate, batch, reductions)
+ * 13 byte   flags: {@link #FLAG_ERROR}, {@link #FLAG_ARRAY}
+ * 16 double a (array calls: element count)
+ * 24 double b
+ * 32 double result (array calls: error count)
+ * 40 long   latency in nanoseconds
+ * </pre>
+ */
+public final class CalculationJournal implements AutoCloseable {
+    public static final int MAGIC = 0x434A4E4C; // "CJNL"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 48;
+    public static final int OFF_TIME = 0;
+    public static final int OFF_CLIENT = 8;
+    public static final int OFF_OP = 12;
+    public static final int OFF_FLAGS = 13;
+    public static final int OFF_A = 16;
+    public static final int OFF_B = 24;
+    public static final int OFF_RESULT = 32;
+    public static final int OFF_LATENCY = 40;
+    public static final int FLAG_ERROR = 1;
+    public static final int FLAG_ARRAY = 2;
+    public static final String CLIENTS_FILE = "clients.txt";
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+    public static final long DEFAULT_SYNC_MILLIS = 100;
+
+    private static final String OTHER_CLIENTS = "(other)";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final ServerLogger logger;
+    private final ScheduledExecutorService syncer;
+    private final ConcurrentHashMap<String, Integer> clients = new ConcurrentHashMap<>();
+    private final BufferedWriter clientsOut;
+    private final long epochMicrosBase = System.currentTimeMillis() * 1000;
+    private final long nanoBase = System.nanoTime();
+
+    private volatile Segment current;
+    private final List<Segment> rolled = new ArrayList<>(); // guarded by this; forced once more by the next sync
+    private int segmentIndex;
+    private volatile boolean closed;
+
+    public CalculationJournal(Path dir, long segmentBytes, long syncMillis, ServerLogger logger) throws IOException {
+        if (segmentBytes < HEADER_SIZE + RECORD_SIZE || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Journal segment size out of range: " + segmentBytes);
+        }
+        this.dir = Files.createDirectories(dir);
+        this.segmentBytes = segmentBytes;
+        this.logger = logger;
+        Path clientsFile = dir.resolve(CLIENTS_FILE);
+        if (Files.exists(clientsFile)) {
+            for (String name : readClients(dir)) clients.put(name, clients.size());
+        }
+        this.clientsOut = Files.newBufferedWriter(clientsFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        for (Path p : segments(dir)) segmentIndex = Math.max(segmentIndex, segmentNumber(p));
+        this.current = openSegment();
+        this.syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        syncer.scheduleWithFixedDelay(this::sync, syncMillis, Math.max(1, syncMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /** Appends one record; never throws, a failing journal disables itself and logs why. */
+    public void record(String clientId, int op, int flags, double a, double b, double result, long latencyNanos) {
+        if (closed) return;
+        int client = clientIndex(clientId);
+        while (true) {
+            Segment s = current;
+            int slot = s.next.getAndIncrement();
+            if (slot < s.capacity) {
+                s.write(slot, epochMicros(), client, op, flags, a, b, result, latencyNanos);
+                return;
+            }
+            if (!roll(s)) return;
+        }
+    }
+
+    private long epochMicros() {
+        return epochMicrosBase + (System.nanoTime() - nanoBase) / 1000;
+    }
+
+    private boolean roll(Segment full) {
+        synchronized (this) {
+            if (closed) return false;
+            if (current != full) return true;
+            try {
+                rolled.add(full);
+                current = openSegment();
+                return true;
+            } catch (IOException ex) {
+                closed = true;
+                logger.error("Journal disabled: cannot open a new segment in " + dir, ex);
+                return false;
+            }
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = dir.resolve(String.format("journal-%06d.bin", ++segmentIndex));
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buf.putInt(0, MAGIC);
+            buf.putShort(4, (short) VERSION);
+            buf.putShort(6, (short) RECORD_SIZE);
+            buf.putLong(8, epochMicros());
+            return new Segment(buf, (int) ((segmentBytes - HEADER_SIZE) / RECORD_SIZE));
+        }
+    }
+
+    private int clientIndex(String clientId) {
+        if (clientId == null) clientId = "(anonymous)";
+        Integer index = clients.get(clientId);
+        return index != null ? index : addClient(clientId);
+    }
+
+    private synchronized int addClient(String clientId) {
+        Integer index = clients.get(clientId);
+        if (index != null) return index;
+        if (clients.size() >= ServerMetrics.MAX_TRACKED_CLIENTS && !OTHER_CLIENTS.equals(clientId)) {
+            return clientIndex(OTHER_CLIENTS);
+        }
+        int next = clients.size();
+        try {
+            clientsOut.write(clientId.replace('\n', ' ').replace('\r', ' '));
+            clientsOut.newLine();
+            clientsOut.flush();
+        } catch (IOException ex) {
+            logger.error("Cannot append to " + dir.resolve(CLIENTS_FILE), ex);
+        }
+        clients.put(clientId, next);
+        return next;
+    }
+
+    /** Forces everything appended so far to disk. */
+    public void sync() {
+        List<Segment> full;
+        synchronized (this) {
+            full = new ArrayList<>(rolled);
+            rolled.clear();
+        }
+        for (Segment s : full) s.buf.force();
+        current.buf.force();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        syncer.shutdownNow();
+        sync();
+        try {
+            clientsOut.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Segment files of a journal directory, oldest first. */
+    public static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("journal-\\d+\\.bin")).sorted().toList();
+        }
+    }
+
+    /** Client ids by index, as recorded in {@link #CLIENTS_FILE}. */
+    public static List<String> readClients(Path dir) throws IOException {
+        Path file = dir.resolve(CLIENTS_FILE);
+        return Files.exists(file) ? Files.readAllLines(file, StandardCharsets.UTF_8) : new ArrayList<>();
+    }
+
+    /** Display name of a record's op, e.g. {@code sin}, {@code sin[]} or {@code polyval}. */
+    public static String opName(int op, int flags) {
+        String name = switch (op) {
+            case BinaryProtocol.EVALUATE -> "evaluate";
+            case BinaryProtocol.BATCH -> "batch";
+            case BinaryProtocol.SUM -> "sum";
+            case BinaryProtocol.MEAN -> "mean";
+            case BinaryProtocol.MIN -> "min";
+            case BinaryProtocol.MAX -> "max";
+            case BinaryProtocol.DOT -> "dot";
+            case BinaryProtocol.POLYVAL -> "polyval";
+            default -> {
+                try {
+                    yield OpCode.fromCode(op).opName();
+                } catch (IllegalArgumentException ex) {
+                    yield "op" + op;
+                }
+            }
+        };
+        return (flags & FLAG_ARRAY) != 0 ? name + "[]" : name;
+    }
+
+    private static int segmentNumber(Path p) {
+        String name = p.getFileName().toString();
+        return Integer.parseInt(name.substring("journal-".length(), name.length() - ".bin".length()));
+    }
+
+    private static final class Segment {
+        final MappedByteBuffer buf;
+        final int capacity;
+        final AtomicInteger next = new AtomicInteger();
+
+        Segment(MappedByteBuffer buf, int capacity) {
+            this.buf = buf;
+            this.capacity = capacity;
+        }
+
+        void write(int slot, long micros, int client, int op, int flags, double a, double b, double result,
+                   long latencyNanos) {
+            int pos = HEADER_SIZE + slot * RECORD_SIZE;
+            buf.putInt(pos + OFF_CLIENT, client);
+            buf.put(pos + OFF_OP, (byte) op);
+            buf.put(pos + OFF_FLAGS, (byte) flags);
+            buf.putDouble(pos + OFF_A, a);
+            buf.putDouble(pos + OFF_B, b);
+            buf.putDouble(pos + OFF_RESULT, result);
+            buf.putLong(pos + OFF_LATENCY, latencyNanos);
+            buf.putLong(pos + OFF_TIME, micros); // last: a nonzero time marks the record complete
+        }
+    }
+}
@@ -1,16 +1,43 @@
 package rmi.calculator.server;
 
+import java.awt.GraphicsEnvironment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import javax.swing.*;
 
 public class CalculatorServer {
-    public static void main(String[] args) {
-        final int port = 5050;
-        final String binding = "CalculatorService";
+    public static void main(String[] args) throws Exception {
+        final ServerConfig config = ServerConfig.load(args);
+        config.applyTransportProperties();
+        if (config.isHeadless() || GraphicsEnvironment.isHeadless()) {
+            runHeadless(config);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
-            ServerUI ui = new ServerUI(port, binding);
+            ServerUI ui = new ServerUI(config);
             ui.setVisible(true);
+            if (config.isAutostart()) ui.startServer();
         });
     }
-}
-
 
+    private static void runHeadless(ServerConfig config) throws Exception {
+        ServerLogger logger = new ServerLogger(System.out::print);
+        ServerRuntime runtime = new ServerRuntime(config, logger);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            runtime.stop();
+            logger.close();
+        }, "server-shutdown"));
+        try {
+            runtime.start();
+        } catch (Exception ex) {
+            logger.error("Failed to start server", ex);
+            logger.close();
+            System.exit(1);
+        }
+        String ready = "READY port=" + config.getPort() + " binding=" + config.getBindingName();
+        if (config.getReadyFile() != null) {
+            Files.write(config.getReadyFile(), (ready + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        System.out.println(ready);
+    }
+}
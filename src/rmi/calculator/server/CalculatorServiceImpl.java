@@ -1,111 +1,906 @@
 package rmi.calculator.server;
 
+import java.math.BigDecimal;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+import rmi.calculator.common.BatchOp;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.BinaryProtocol;
 import rmi.calculator.common.CalculatorService;
+import rmi.calculator.common.FunctionService;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.OtlpJsonExporter;
+import rmi.calculator.common.PrecisionMode;
+import rmi.calculator.common.ServiceDrainingException;
+import rmi.calculator.common.SessionExpiredException;
+import rmi.calculator.common.SessionInfo;
+import rmi.calculator.common.SessionService;
+import rmi.calculator.common.TraceContext;
+import rmi.calculator.common.TraceSpan;
+import rmi.calculator.common.TracedResult;
 
-public class CalculatorServiceImpl extends UnicastRemoteObject implements CalculatorService {
+public class CalculatorServiceImpl extends UnicastRemoteObject implements CalculatorService, SessionService,
+        FunctionService {
     private final ServerLogger logger;
+    private final ResultCache cache; // null disables memoization
+    private final ServerMetrics metrics;
+    private final Set<Capability> capabilities;
+    private final boolean[] offered; // indexed by opcode
+    private final ServerMetrics.OpMetrics[] scalarMetrics; // indexed by opcode
+    private final ServerMetrics.OpMetrics vectorMetrics;
+    private final ServerMetrics.OpMetrics batchMetrics;
+    private final ServerMetrics.OpMetrics evaluateMetrics;
+    private final ServerMetrics.OpMetrics tabulateMetrics;
+    private final ExpressionCompiler expressions = new ExpressionCompiler();
+    private final ArrayComputeEngine arrays = new ArrayComputeEngine();
+    private final SessionRegistry sessions;
+    private final AdmissionController admission;
+    private final CalculationJournal journal; // null disables the journal
+    private final OperationRegistry operations;
+    private final OtlpJsonExporter traces; // null: spans only go back to the calling client
+    private final FunctionRegistry functions;
+    private final AtomicInteger inFlight = new AtomicInteger(); // calls between enter and exit; also the drain monitor
+    private volatile boolean draining;
 
+    /** A stand-alone service with a default result cache, as benchmarks and tools use it. */
     public CalculatorServiceImpl(ServerLogger logger) throws RemoteException {
-        super();
-        this.logger = logger;
+        this(new ServiceSettings(logger).cache(new ResultCache(ResultCache.DEFAULT_CAPACITY, ResultCache.Eviction.CLOCK)));
+    }
+
+    public CalculatorServiceImpl(ServiceSettings settings) throws RemoteException {
+        super(settings.getSockets().getPort(), settings.getSockets().getClientFactory(),
+                settings.getSockets().getServerFactory());
+        this.logger = settings.getLogger();
+        this.cache = settings.getCache();
+        this.metrics = settings.getMetrics();
+        this.capabilities = EnumSet.copyOf(settings.getCapabilities());
+        this.sessions = settings.getSessions();
+        this.admission = settings.getAdmission();
+        this.journal = settings.getJournal();
+        this.operations = settings.getOperations(metrics);
+        this.traces = settings.getTraces();
+        this.functions = settings.getFunctions();
+        this.offered = new boolean[OpCode.values().length + 1];
+        for (OpCode op : OpCode.values()) offered[op.code()] = capabilities.contains(Capability.of(op));
+        this.scalarMetrics = new ServerMetrics.OpMetrics[OpCode.values().length + 1];
+        for (OpCode op : OpCode.values()) scalarMetrics[op.code()] = metrics.op(op.opName());
+        this.vectorMetrics = metrics.op("vector");
+        this.batchMetrics = metrics.op("batch");
+        this.evaluateMetrics = metrics.op("evaluate");
+        this.tabulateMetrics = metrics.op("tabulate");
+    }
+
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Set<Capability> getCapabilities() {
+        return EnumSet.copyOf(capabilities);
+    }
+
+    public AdmissionController getAdmission() {
+        return admission;
+    }
+
+    public SessionRegistry getSessions() {
+        return sessions;
+    }
+
+    public OperationRegistry getOperations() {
+        return operations;
+    }
+
+    public FunctionRegistry getFunctions() {
+        return functions;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Stops accepting calls (new ones fail with {@link ServiceDrainingException}) and waits up to
+     * {@code timeoutMillis} for the running ones to finish. Returns how many are still running.
+     */
+    public int drain(long timeoutMillis) throws InterruptedException {
+        draining = true;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (inFlight) {
+            while (inFlight.get() > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) break;
+                TimeUnit.NANOSECONDS.timedWait(inFlight, left);
+            }
+        }
+        return inFlight.get();
+    }
+
+    /**
+     * Counts the call in flight, then admits it; every entry point pairs this with {@link #exit}.
+     * Counting first means {@link #drain} either sees the call or the call sees the drain.
+     */
+    private boolean enter(String clientId) throws RemoteException {
+        inFlight.incrementAndGet();
+        try {
+            if (draining) throw new ServiceDrainingException("Service is shutting down or being replaced");
+            return admission.acquire(clientId);
+        } catch (RemoteException | RuntimeException ex) {
+            exit(false);
+            throw ex;
+        }
+    }
+
+    private void exit(boolean permit) {
+        if (permit) admission.release();
+        if (inFlight.decrementAndGet() == 0 && draining) {
+            synchronized (inFlight) {
+                inFlight.notifyAll();
+            }
+        }
     }
 
     @Override
     public double add(double a, double b, String clientId) throws RemoteException {
-        logRequest(clientId, "add", a, b);
-        double res = a + b;
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.ADD, a, b, clientId);
     }
 
     @Override
     public double sub(double a, double b, String clientId) throws RemoteException {
-        logRequest(clientId, "sub", a, b);
-        double res = a - b;
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.SUB, a, b, clientId);
     }
 
     @Override
     public double mul(double a, double b, String clientId) throws RemoteException {
-        logRequest(clientId, "mul", a, b);
-        double res = a * b;
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.MUL, a, b, clientId);
     }
 
     @Override
     public double div(double a, double b, String clientId) throws RemoteException {
-        logRequest(clientId, "div", a, b);
-        if (b == 0.0) {
-            RemoteException ex = new RemoteException("Division by zero");
-            logger.error(withClient(clientId, "div error: division by zero"), ex);
-            throw ex;
-        }
-        double res = a / b;
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.DIV, a, b, clientId);
     }
 
     @Override
     public double pow(double a, double b, String clientId) throws RemoteException {
-        logRequest(clientId, "pow", a, b);
-        double res = Math.pow(a, b);
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.POW, a, b, clientId);
     }
 
     @Override
     public double sqrt(double a, String clientId) throws RemoteException {
-        logRequest(clientId, "sqrt", a, null);
-        if (a < 0.0) {
-            RemoteException ex = new RemoteException("Square root of negative number");
-            logger.error(withClient(clientId, "sqrt error: negative input"), ex);
-            throw ex;
-        }
-        double res = Math.sqrt(a);
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.SQRT, a, 0.0, clientId);
     }
 
     @Override
     public double sin(double a, String clientId) throws RemoteException {
-        logRequest(clientId, "sin", a, null);
-        double res = Math.sin(a);
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.SIN, a, 0.0, clientId);
     }
 
     @Override
     public double cos(double a, String clientId) throws RemoteException {
-        logRequest(clientId, "cos", a, null);
-        double res = Math.cos(a);
-        logResult(clientId, res);
-        return res;
+        return scalar(OpCode.COS, a, 0.0, clientId);
     }
 
     @Override
     public double tan(double a, String clientId) throws RemoteException {
-        logRequest(clientId, "tan", a, null);
-        double res = Math.tan(a);
-        logResult(clientId, res);
+        return scalar(OpCode.TAN, a, 0.0, clientId);
+    }
+
+    @Override
+    public BatchResult add(double[] a, double[] b, String clientId) throws RemoteException {
+        return elementWise(OpCode.ADD, a, b, clientId);
+    }
+
+    @Override
+    public BatchResult sub(double[] a, double[] b, String clientId) throws RemoteException {
+        return elementWise(OpCode.SUB, a, b, clientId);
+    }
+
+    @Override
+    public BatchResult mul(double[] a, double[] b, String clientId) throws RemoteException {
+        return elementWise(OpCode.MUL, a, b, clientId);
+    }
+
+    @Override
+    public BatchResult div(double[] a, double[] b, String clientId) throws RemoteException {
+        return elementWise(OpCode.DIV, a, b, clientId);
+    }
+
+    @Override
+    public BatchResult pow(double[] a, double[] b, String clientId) throws RemoteException {
+        return elementWise(OpCode.POW, a, b, clientId);
+    }
+
+    @Override
+    public BatchResult sqrt(double[] a, String clientId) throws RemoteException {
+        return elementWise(OpCode.SQRT, a, null, clientId);
+    }
+
+    @Override
+    public BatchResult sin(double[] a, String clientId) throws RemoteException {
+        return elementWise(OpCode.SIN, a, null, clientId);
+    }
+
+    @Override
+    public BatchResult cos(double[] a, String clientId) throws RemoteException {
+        return elementWise(OpCode.COS, a, null, clientId);
+    }
+
+    @Override
+    public BatchResult tan(double[] a, String clientId) throws RemoteException {
+        return elementWise(OpCode.TAN, a, null, clientId);
+    }
+
+    @Override
+    public BatchResult batch(List<BatchOp> ops, String clientId) throws RemoteException {
+        if (ops == null) throw new RemoteException("Batch must not be null");
+        boolean permit = enter(clientId);
+        try {
+            return batchAs(ops, clientId);
+        } finally {
+            exit(permit);
+        }
+    }
+
+    private BatchResult batchAs(List<BatchOp> ops, String clientId) {
+        long t0 = System.nanoTime();
+        metrics.countClient(clientId);
+        int n = ops.size();
+        boolean log = logger.isInfoEnabled();
+        if (log) logger.info(withClient(clientId, "op=batch n=" + n));
+        double[] values = new double[n];
+        String[] errors = null;
+        for (int i = 0; i < n; i++) {
+            BatchOp op = ops.get(i);
+            try {
+                // A deserialized list can carry nulls; like any bad element they fail only their own slot
+                if (op == null || op.getOp() == null) throw new ArithmeticException("Missing operation");
+                if (!offered[op.getOp().code()]) throw new ArithmeticException(notOffered(op.getOp()));
+                values[i] = apply(op.getOp(), op.getA(), op.getB());
+            } catch (ArithmeticException ex) {
+                if (errors == null) errors = new String[n];
+                errors[i] = ex.getMessage();
+                values[i] = Double.NaN;
+            }
+        }
+        BatchResult result = new BatchResult(values, errors);
+        if (log) logBatchResult(clientId, result);
+        long elapsed = System.nanoTime() - t0;
+        batchMetrics.record(elapsed, errors != null);
+        if (journal != null) journalArray(clientId, BinaryProtocol.BATCH, 0, result, elapsed);
+        return result;
+    }
+
+    @Override
+    public double evaluate(String expression, String clientId) throws RemoteException {
+        boolean permit = enter(clientId);
+        try {
+            metrics.countClient(clientId);
+            return evaluateAs(expression, clientId);
+        } finally {
+            exit(permit);
+        }
+    }
+
+    private double evaluateAs(String expression, String clientId) throws RemoteException {
+        return evaluateAs(expression, clientId, null);
+    }
+
+    private double evaluateAs(String expression, String clientId, CallTrace trace) throws RemoteException {
+        long t0 = System.nanoTime();
+        boolean log = logger.isInfoEnabled();
+        if (log) logger.info(withClient(clientId, "op=evaluate expr=" + expression));
+        if (trace != null) trace.phase("log.request");
+        try {
+            CompiledExpression compiled = expressions.compile(expression);
+            for (OpCode op : compiled.getOperations()) {
+                if (!offered[op.code()]) throw new ArithmeticException(notOffered(op));
+            }
+            if (trace != null) trace.phase("compile");
+            double res = compiled.evaluate();
+            if (trace != null) trace.phase("compute");
+            if (log) logger.result(clientId, res);
+            if (trace != null) trace.phase("log.result");
+            long elapsed = System.nanoTime() - t0;
+            evaluateMetrics.record(elapsed, false);
+            if (journal != null) {
+                journal.record(clientId, BinaryProtocol.EVALUATE, 0, Double.NaN, Double.NaN, res, elapsed);
+            }
+            if (trace != null) trace.phase("record");
+            return res;
+        } catch (ExpressionException ex) {
+            evaluateFailed(clientId, t0);
+            logger.error(withClient(clientId, "evaluate error: invalid expression"), ex);
+            throw new RemoteException("Invalid expression: " + ex.getMessage());
+        } catch (IllegalArgumentException | ArithmeticException ex) {
+            evaluateFailed(clientId, t0);
+            logger.error(withClient(clientId, "evaluate error: " + ex.getMessage()), ex);
+            throw new RemoteException(ex.getMessage());
+        }
+    }
+
+    private void evaluateFailed(String clientId, long t0) {
+        long elapsed = System.nanoTime() - t0;
+        evaluateMetrics.record(elapsed, true);
+        if (journal != null) {
+            journal.record(clientId, BinaryProtocol.EVALUATE, CalculationJournal.FLAG_ERROR, Double.NaN, Double.NaN,
+                    Double.NaN, elapsed);
+        }
+    }
+
+    @Override
+    public long registerFunction(String expression, String[] variables, String clientId) throws RemoteException {
+        FunctionRegistry.checkVariables(variables);
+        boolean permit = enter(clientId);
+        try {
+            metrics.countClient(clientId);
+            CompiledExpression compiled;
+            try {
+                compiled = expressions.compile(expression, variables);
+            } catch (ExpressionException ex) {
+                throw new RemoteException("Invalid expression: " + ex.getMessage());
+            }
+            for (OpCode op : compiled.getOperations()) {
+                if (!offered[op.code()]) throw new RemoteException(notOffered(op));
+            }
+            FunctionRegistry.Function f = functions.register(compiled, clientId);
+            if (logger.isInfoEnabled()) logger.info(withClient(clientId, "registered function " + f));
+            return f.getHandle();
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public void unregisterFunction(long handle) {
+        functions.remove(handle);
+    }
+
+    @Override
+    public BatchResult tabulate(long handle, double start, double end, int steps, String clientId)
+            throws RemoteException {
+        if (steps >= MAX_POINTS) {
+            throw new RemoteException(steps + 1 + " points exceed " + MAX_POINTS + " per call; fetch them in chunks");
+        }
+        return tabulate(handle, start, end, steps, new double[0], 0, steps + 1, clientId);
+    }
+
+    @Override
+    public BatchResult tabulate(long handle, double start, double end, int steps, double[] fixed, int from, int count,
+                                String clientId) throws RemoteException {
+        FunctionRegistry.Function f = functions.get(handle);
+        double[] others = fixed == null ? new double[0] : fixed;
+        if (others.length != f.arity() - 1) {
+            throw new RemoteException("Function " + f + " needs " + (f.arity() - 1) + " fixed value(s), got " + others.length);
+        }
+        if (steps < 1) throw new RemoteException("steps must be >= 1");
+        if (!Double.isFinite(start) || !Double.isFinite(end)) throw new RemoteException("Range bounds must be finite");
+        if (from < 0 || count < 0 || (long) from + count > (long) steps + 1) {
+            throw new RemoteException("Points " + from + "+" + count + " outside 0.." + steps);
+        }
+        if (count > MAX_POINTS) throw new RemoteException(count + " points exceed " + MAX_POINTS + " per call");
+        for (OpCode op : f.getOperations()) {
+            if (!offered[op.code()]) throw new RemoteException(notOffered(op));
+        }
+        boolean permit = enter(clientId);
+        try {
+            long t0 = System.nanoTime();
+            metrics.countClient(clientId);
+            boolean log = logger.isInfoEnabled();
+            if (log) {
+                logger.info(withClient(clientId, "op=tabulate fn=#" + Long.toHexString(handle) + " range=[" + start
+                        + ", " + end + "] steps=" + steps + " points=" + from + "+" + count));
+            }
+            BatchResult result = arrays.tabulate(f.getExpression(), start, end, steps, others, from, count);
+            if (log) logBatchResult(clientId, result);
+            tabulateMetrics.record(System.nanoTime() - t0, result.errorCount() > 0);
+            return result;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public List<OperationInfo> operations() {
+        List<OperationInfo> offeredOps = new ArrayList<>();
+        for (OperationInfo info : operations.catalog()) {
+            if (capabilities.contains(info.getCapability())) offeredOps.add(info);
+        }
+        return offeredOps;
+    }
+
+    @Override
+    public double invoke(int opcode, double[] args, String clientId) throws RemoteException {
+        OperationRegistry.Entry e = resolve(opcode, args);
+        if (e.isBuiltIn()) return scalar(OpCode.fromCode(opcode), args[0], args.length == 2 ? args[1] : 0.0, clientId);
+        boolean permit = enter(clientId);
+        try {
+            metrics.countClient(clientId);
+            return invokeAs(e, args, clientId, null);
+        } finally {
+            exit(permit);
+        }
+    }
+
+    /** The catalog entry for a call, once its arity and, for plugins, its capability check out. */
+    private OperationRegistry.Entry resolve(int opcode, double[] args) throws RemoteException {
+        OperationRegistry.Entry e = operations.lookup(opcode);
+        if (e == null) throw new RemoteException("Unknown opcode: " + opcode);
+        OperationInfo info = e.getInfo();
+        int n = args == null ? 0 : args.length;
+        if (n != info.getArity()) {
+            throw new RemoteException(info.getName() + " expects " + info.getArity() + " argument(s), got " + n);
+        }
+        if (!e.isBuiltIn() && !capabilities.contains(info.getCapability())) {
+            throw new RemoteException(info.getName() + " is not offered by this server");
+        }
+        return e;
+    }
+
+    @Override
+    public TracedResult invokeTraced(int opcode, double[] args, String clientId, TraceContext trace)
+            throws RemoteException {
+        if (trace == null) return new TracedResult(invoke(opcode, args, clientId), List.of());
+        CallTrace t = new CallTrace(trace);
+        String name = "invoke";
+        try {
+            OperationRegistry.Entry e = resolve(opcode, args);
+            name = e.getInfo().getName();
+            boolean permit = enter(clientId);
+            try {
+                t.phase("admission");
+                metrics.countClient(clientId);
+                double res = e.isBuiltIn()
+                        ? scalarAs(OpCode.fromCode(opcode), args[0], args.length == 2 ? args[1] : 0.0,
+                                PrecisionMode.STRICT, clientId, t)
+                        : invokeAs(e, args, clientId, t);
+                return new TracedResult(res, traced(t, name, clientId, null));
+            } finally {
+                exit(permit);
+            }
+        } catch (RemoteException ex) {
+            traced(t, name, clientId, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    @Override
+    public TracedResult evaluateTraced(String expression, String clientId, TraceContext trace) throws RemoteException {
+        if (trace == null) return new TracedResult(evaluate(expression, clientId), List.of());
+        CallTrace t = new CallTrace(trace);
+        try {
+            boolean permit = enter(clientId);
+            try {
+                t.phase("admission");
+                metrics.countClient(clientId);
+                double res = evaluateAs(expression, clientId, t);
+                return new TracedResult(res, traced(t, "evaluate", clientId, null));
+            } finally {
+                exit(permit);
+            }
+        } catch (RemoteException ex) {
+            traced(t, "evaluate", clientId, ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /** Closes the server span and hands the spans to the local exporter, if there is one. */
+    private List<TraceSpan> traced(CallTrace t, String name, String clientId, String error) {
+        List<TraceSpan> spans = t.finish(name, clientId, error);
+        if (traces != null) traces.export(spans);
+        return spans;
+    }
+
+    /** Binary protocol frames carry two operands; unary plugin ops ignore {@code b}. */
+    double invoke(int opcode, double a, double b, String clientId) throws RemoteException {
+        OperationRegistry.Entry e = operations.lookup(opcode);
+        if (e == null) throw new RemoteException("Unknown opcode: " + opcode);
+        int arity = e.getInfo().getArity();
+        if (arity > 2) throw new RemoteException(e.getInfo().getName() + " needs " + arity + " arguments");
+        return invoke(opcode, arity == 2 ? new double[] {a, b} : new double[] {a}, clientId);
+    }
+
+    private double invokeAs(OperationRegistry.Entry e, double[] args, String clientId, CallTrace trace)
+            throws RemoteException {
+        String name = e.getInfo().getName();
+        int code = e.getInfo().getCode();
+        double a = args[0];
+        double b = args.length > 1 ? args[1] : 0.0;
+        long t0 = System.nanoTime();
+        boolean log = logger.isInfoEnabled();
+        if (log) logger.info(withClient(clientId, "op=" + name + " args=" + Arrays.toString(args)));
+        if (trace != null) trace.phase("log.request");
+        try {
+            double res = e.apply(args);
+            if (trace != null) trace.phase("compute");
+            if (log) logger.result(clientId, res);
+            if (trace != null) trace.phase("log.result");
+            long elapsed = System.nanoTime() - t0;
+            e.getMetrics().record(elapsed, false);
+            if (journal != null) journal.record(clientId, code, 0, a, b, res, elapsed);
+            if (trace != null) trace.phase("record");
+            return res;
+        } catch (RuntimeException ex) {
+            long elapsed = System.nanoTime() - t0;
+            e.getMetrics().record(elapsed, true);
+            if (journal != null) journal.record(clientId, code, CalculationJournal.FLAG_ERROR, a, b, Double.NaN, elapsed);
+            // Domain errors are expected; anything else is a bug in the plugin
+            String message = ex instanceof ArithmeticException ? ex.getMessage() : name + " failed: " + ex;
+            logger.error(withClient(clientId, name + " error: " + message), ex);
+            throw new RemoteException(message);
+        }
+    }
+
+    @Override
+    public long openSession(String clientId) throws RemoteException {
+        SessionRegistry.Session s = sessions.open(clientId, metrics.clientCounter(clientId));
+        logger.info(withClient(clientId, "session " + Long.toHexString(s.getHandle()) + " opened"));
+        return s.getHandle();
+    }
+
+    @Override
+    public void closeSession(long session) {
+        sessions.close(session);
+    }
+
+    @Override
+    public double compute(long session, int opcode, double a, double b) throws RemoteException {
+        return compute(session, opcode, a, b, null);
+    }
+
+    @Override
+    public double compute(long session, int opcode, double a, double b, PrecisionMode precision)
+            throws RemoteException {
+        SessionRegistry.Session s = session(session);
+        boolean permit = enter(s.clientId);
+        try {
+            return scalarAs(opCode(opcode), a, b, precision != null ? precision : s.precision, s.clientId);
+        } catch (RemoteException ex) {
+            s.errors.increment();
+            throw ex;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public double evaluate(long session, String expression) throws RemoteException {
+        SessionRegistry.Session s = session(session);
+        boolean permit = enter(s.clientId);
+        try {
+            return evaluateAs(expression, s.clientId);
+        } catch (RemoteException ex) {
+            s.errors.increment();
+            throw ex;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public double accumulate(long session, int opcode, double operand) throws RemoteException {
+        SessionRegistry.Session s = session(session);
+        OpCode op = opCode(opcode);
+        boolean permit = enter(s.clientId);
+        try {
+            synchronized (s) {
+                // On error the accumulator keeps its previous value
+                double value = scalarAs(op, s.getAccumulator(), op.arity() == 2 ? operand : 0.0, s.precision,
+                        s.clientId);
+                s.setAccumulator(value);
+                return value;
+            }
+        } catch (RemoteException ex) {
+            s.errors.increment();
+            throw ex;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public BigDecimal computeDecimal(long session, int opcode, BigDecimal a, BigDecimal b) throws RemoteException {
+        SessionRegistry.Session s = session(session);
+        boolean permit = enter(s.clientId);
+        try {
+            return decimalAs(opCode(opcode), a, b, s.clientId);
+        } catch (RemoteException ex) {
+            s.errors.increment();
+            throw ex;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public void setPrecision(long session, PrecisionMode precision) throws RemoteException {
+        if (precision == null) throw new RemoteException("precision must not be null");
+        session(session).precision = precision;
+    }
+
+    @Override
+    public void setAccumulator(long session, double value) throws RemoteException {
+        session(session).setAccumulator(value);
+    }
+
+    @Override
+    public SessionInfo getSessionInfo(long session) throws RemoteException {
+        return sessions.get(session).info();
+    }
+
+    /** Resolves a handle and counts the call against the session and its client. */
+    private SessionRegistry.Session session(long handle) throws SessionExpiredException {
+        SessionRegistry.Session s = sessions.get(handle);
+        s.calls.increment();
+        s.clientCounter.increment();
+        return s;
+    }
+
+    private static OpCode opCode(int code) throws RemoteException {
+        try {
+            return OpCode.fromCode(code);
+        } catch (IllegalArgumentException ex) {
+            throw new RemoteException(ex.getMessage());
+        }
+    }
+
+    private BatchResult elementWise(OpCode op, double[] a, double[] b, String clientId) throws RemoteException {
+        if (a == null || (op.arity() == 2 && b == null)) {
+            throw new RemoteException("Missing operand array for " + op.opName());
+        }
+        if (b != null && a.length != b.length) {
+            throw new RemoteException("Array length mismatch: " + a.length + " vs " + b.length);
+        }
+        if (!offered[op.code()]) throw new RemoteException(notOffered(op));
+        boolean permit = enter(clientId);
+        try {
+            long t0 = System.nanoTime();
+            metrics.countClient(clientId);
+            boolean log = logger.isInfoEnabled();
+            if (log) logger.info(withClient(clientId, "op=" + op.opName() + "[] n=" + a.length));
+            BatchResult result = arrays.elementWise(op, a, b);
+            if (log) logBatchResult(clientId, result);
+            long elapsed = System.nanoTime() - t0;
+            vectorMetrics.record(elapsed, result.errorCount() > 0);
+            if (journal != null) journalArray(clientId, op.code(), CalculationJournal.FLAG_ARRAY, result, elapsed);
+            return result;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    @Override
+    public double sum(double[] a, String clientId) throws RemoteException {
+        return reduce(BinaryProtocol.SUM, "sum", a, null, false, clientId, () -> arrays.sum(a));
+    }
+
+    @Override
+    public double mean(double[] a, String clientId) throws RemoteException {
+        return reduce(BinaryProtocol.MEAN, "mean", a, null, true, clientId, () -> arrays.mean(a));
+    }
+
+    @Override
+    public double min(double[] a, String clientId) throws RemoteException {
+        return reduce(BinaryProtocol.MIN, "min", a, null, true, clientId, () -> arrays.min(a));
+    }
+
+    @Override
+    public double max(double[] a, String clientId) throws RemoteException {
+        return reduce(BinaryProtocol.MAX, "max", a, null, true, clientId, () -> arrays.max(a));
+    }
+
+    @Override
+    public double dot(double[] a, double[] b, String clientId) throws RemoteException {
+        if (b == null) throw new RemoteException("Missing operand array for dot");
+        return reduce(BinaryProtocol.DOT, "dot", a, b, false, clientId, () -> arrays.dot(a, b));
+    }
+
+    @Override
+    public double[] polyval(double[] coefficients, double[] x, String clientId) throws RemoteException {
+        if (coefficients == null || coefficients.length == 0) throw new RemoteException("polyval needs at least one coefficient");
+        boolean permit = enter(clientId);
+        try {
+            long t0 = reductionStart("polyval", x, null, false, clientId);
+            double[] values = arrays.polyval(coefficients, x);
+            long elapsed = System.nanoTime() - t0;
+            metrics.op("polyval").record(elapsed, false);
+            if (journal != null) {
+                journal.record(clientId, BinaryProtocol.POLYVAL, 0, x.length, coefficients.length, Double.NaN, elapsed);
+            }
+            return values;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    private double reduce(byte code, String name, double[] a, double[] b, boolean nonEmpty, String clientId,
+                          DoubleSupplier kernel) throws RemoteException {
+        boolean permit = enter(clientId);
+        try {
+            long t0 = reductionStart(name, a, b, nonEmpty, clientId);
+            double result = reductionDone(name, kernel.getAsDouble(), t0, clientId);
+            if (journal != null) {
+                journal.record(clientId, code, 0, a.length, Double.NaN, result, System.nanoTime() - t0);
+            }
+            return result;
+        } finally {
+            exit(permit);
+        }
+    }
+
+    /** Validates a reduction's operands and logs the request; returns the start timestamp. */
+    private long reductionStart(String name, double[] a, double[] b, boolean nonEmpty, String clientId)
+            throws RemoteException {
+        if (a == null) throw new RemoteException("Missing operand array for " + name);
+        if (b != null && a.length != b.length) {
+            throw new RemoteException("Array length mismatch: " + a.length + " vs " + b.length);
+        }
+        if (nonEmpty && a.length == 0) throw new RemoteException(name + " of an empty array");
+        if (!capabilities.contains(Capability.MATH)) throw new RemoteException(name + " is not offered by this server");
+        long t0 = System.nanoTime();
+        metrics.countClient(clientId);
+        if (logger.isInfoEnabled()) logger.info(withClient(clientId, "op=" + name + "[] n=" + a.length));
+        return t0;
+    }
+
+    private double reductionDone(String name, double result, long t0, String clientId) {
+        metrics.op(name).record(System.nanoTime() - t0, false);
+        if (logger.isInfoEnabled()) logger.result(clientId, result);
+        return result;
+    }
+
+    /**
+     * Single-value path shared by all scalar methods and the binary front end: admit, log, compute
+     * (memoized when pure), record.
+     */
+    double scalar(OpCode op, double a, double b, String clientId) throws RemoteException {
+        boolean permit = enter(clientId);
+        try {
+            metrics.countClient(clientId);
+            return scalarAs(op, a, b, PrecisionMode.STRICT, clientId);
+        } finally {
+            exit(permit);
+        }
+    }
+
+    private double scalarAs(OpCode op, double a, double b, PrecisionMode precision, String clientId)
+            throws RemoteException {
+        return scalarAs(op, a, b, precision, clientId, null);
+    }
+
+    private double scalarAs(OpCode op, double a, double b, PrecisionMode precision, String clientId, CallTrace trace)
+            throws RemoteException {
+        if (!offered[op.code()]) throw new RemoteException(notOffered(op));
+        long t0 = System.nanoTime();
+        boolean log = logger.isInfoEnabled();
+        if (log) {
+            if (op.arity() == 2) logger.request(clientId, op.opName(), a, b);
+            else logger.request(clientId, op.opName(), a);
+        }
+        if (trace != null) trace.phase("log.request");
+        try {
+            double res;
+            switch (precision) {
+                case FAST: res = FastMath.apply(op, a, b); break;
+                case DECIMAL: res = DecimalMath.apply(op, a, b); break;
+                default: res = memoizable(op) ? cached(op, a, b) : apply(op, a, b);
+            }
+            if (trace != null) trace.phase("compute");
+            if (log) logger.result(clientId, res);
+            if (trace != null) trace.phase("log.result");
+            long elapsed = System.nanoTime() - t0;
+            scalarMetrics[op.code()].record(elapsed, false);
+            if (journal != null) journal.record(clientId, op.code(), 0, a, b, res, elapsed);
+            if (trace != null) trace.phase("record");
+            return res;
+        } catch (ArithmeticException ex) {
+            long elapsed = System.nanoTime() - t0;
+            scalarMetrics[op.code()].record(elapsed, true);
+            if (journal != null) {
+                journal.record(clientId, op.code(), CalculationJournal.FLAG_ERROR, a, b, Double.NaN, elapsed);
+            }
+            logger.error(withClient(clientId, op.opName() + " error: " + ex.getMessage()), ex);
+            throw new RemoteException(ex.getMessage());
+        }
+    }
+
+    private BigDecimal decimalAs(OpCode op, BigDecimal a, BigDecimal b, String clientId) throws RemoteException {
+        if (a == null || (op.arity() == 2 && b == null)) throw new RemoteException("Missing operand for " + op.opName());
+        if (!offered[op.code()]) throw new RemoteException(notOffered(op));
+        long t0 = System.nanoTime();
+        boolean log = logger.isInfoEnabled();
+        if (log) {
+            logger.info(withClient(clientId, "op=" + op.opName() + " decimal a=" + a + (op.arity() == 2 ? " b=" + b : "")));
+        }
+        try {
+            BigDecimal res = DecimalMath.apply(op, a, op.arity() == 2 ? b : BigDecimal.ZERO);
+            if (log) logger.info(withClient(clientId, "result=" + res));
+            long elapsed = System.nanoTime() - t0;
+            scalarMetrics[op.code()].record(elapsed, false);
+            if (journal != null) {
+                journal.record(clientId, op.code(), 0, a.doubleValue(), op.arity() == 2 ? b.doubleValue() : 0.0,
+                        res.doubleValue(), elapsed);
+            }
+            return res;
+        } catch (ArithmeticException ex) {
+            scalarMetrics[op.code()].record(System.nanoTime() - t0, true);
+            logger.error(withClient(clientId, op.opName() + " error: " + ex.getMessage()), ex);
+            throw new RemoteException(ex.getMessage());
+        }
+    }
+
+    private static String notOffered(OpCode op) {
+        return op.opName() + " is not offered by this server";
+    }
+
+    private static boolean memoizable(OpCode op) {
+        // add/sub/mul/div are cheaper than a cache probe
+        switch (op) {
+            case POW: case SQRT: case SIN: case COS: case TAN: return true;
+            default: return false;
+        }
+    }
+
+    private double cached(OpCode op, double a, double b) {
+        if (cache == null) return apply(op, a, b);
+        long bits = cache.getBits(op.code(), a, b);
+        if (bits != ResultCache.MISS) return Double.longBitsToDouble(bits);
+        double res = apply(op, a, b);
+        cache.put(op.code(), a, b, res);
         return res;
     }
 
-    private void logRequest(String clientId, String op, Double a, Double b) {
-        String msg = String.format("[%s] op=%s a=%s b=%s", clientId, op,
-                a == null ? "" : a, b == null ? "" : b);
-        logger.info(msg);
+    /**
+     * Scalar kernel shared by the array and batch paths, and the {@code STRICT} precision tier.
+     * Domain errors are thrown as {@link ArithmeticException} so callers can record them per element.
+     */
+    public static double apply(OpCode op, double a, double b) {
+        switch (op) {
+            case ADD: return a + b;
+            case SUB: return a - b;
+            case MUL: return a * b;
+            case DIV:
+                if (b == 0.0) throw new ArithmeticException("Division by zero");
+                return a / b;
+            case POW: return Math.pow(a, b);
+            case SQRT:
+                if (a < 0.0) throw new ArithmeticException("Square root of negative number");
+                return Math.sqrt(a);
+            case SIN: return Math.sin(a);
+            case COS: return Math.cos(a);
+            case TAN: return Math.tan(a);
+            default: throw new ArithmeticException("Unsupported op: " + op);
+        }
+    }
+
+    private void journalArray(String clientId, int op, int flags, BatchResult result, long elapsed) {
+        int errors = result.errorCount();
+        journal.record(clientId, op, errors > 0 ? flags | CalculationJournal.FLAG_ERROR : flags,
+                result.size(), Double.NaN, errors, elapsed);
     }
 
-    private void logResult(String clientId, double result) {
-        logger.info(String.format("[%s] result=%s", clientId, result));
+    private void logBatchResult(String clientId, BatchResult result) {
+        logger.info(withClient(clientId, "batch results=" + result.size() + " errors=" + result.errorCount()));
     }
 
     private String withClient(String clientId, String message) {
-        return String.format("[%s] %s", clientId, message);
+        return "[" + clientId + "] " + message;
     }
 }
 
@@ -0,0 +1,115 @@
+package rmi.calculator.server;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/** JMX view over {@link ServerMetrics} and the result cache. */
+public class CalculatorStats implements CalculatorStatsMBean {
+    private final ServerMetrics metrics;
+    private final ResultCache cache;
+    private ObjectName objectName;
+
+    public CalculatorStats(ServerMetrics metrics, ResultCache cache) {
+        this.metrics = metrics;
+        this.cache = cache;
+    }
+
+    public void register(String bindingName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("rmi.calculator:type=CalculatorStats,binding=" + ObjectName.quote(bindingName));
+        try {
+            server.registerMBean(this, name);
+        } catch (InstanceAlreadyExistsException ex) {
+            server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        }
+        objectName = name;
+    }
+
+    public void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException ignored) {
+        } catch (JMException ex) {
+            throw new IllegalStateException(ex);
+        }
+        objectName = null;
+    }
+
+    @Override
+    public long getTotalRequests() {
+        return metrics.totalRequests();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return metrics.totalErrors();
+    }
+
+    @Override
+    public double getRequestsPerSecond() {
+        long elapsed = System.currentTimeMillis() - metrics.getStartedAt();
+        return elapsed <= 0 ? 0.0 : metrics.totalRequests() * 1000.0 / elapsed;
+    }
+
+    @Override
+    public String[] getOperationNames() {
+        List<ServerMetrics.OpMetrics> ops = metrics.operations();
+        String[] names = new String[ops.size()];
+        for (int i = 0; i < names.length; i++) names[i] = ops.get(i).name();
+        return names;
+    }
+
+    @Override
+    public String[] getOperationSummaries() {
+        List<ServerMetrics.OpMetrics> ops = metrics.operations();
+        String[] lines = new String[ops.size()];
+        for (int i = 0; i < lines.length; i++) lines[i] = ops.get(i).toString();
+        return lines;
+    }
+
+    @Override
+    public String[] getClientCounts() {
+        Map<String, Long> counts = metrics.clientCounts();
+        String[] lines = new String[counts.size()];
+        int i = 0;
+        for (Map.Entry<String, Long> e : counts.entrySet()) lines[i++] = e.getKey() + "=" + e.getValue();
+        return lines;
+    }
+
+    @Override
+    public String getCacheStats() {
+        return cache == null ? "disabled" : cache.stats().toString();
+    }
+
+    @Override
+    public long getCount(String operation) {
+        ServerMetrics.OpMetrics m = metrics.find(operation);
+        return m == null ? 0 : m.count();
+    }
+
+    @Override
+    public long getErrors(String operation) {
+        ServerMetrics.OpMetrics m = metrics.find(operation);
+        return m == null ? 0 : m.errors();
+    }
+
+    @Override
+    public double getPercentileMicros(String operation, double percentile) {
+        ServerMetrics.OpMetrics m = metrics.find(operation);
+        return m == null ? 0.0 : m.latency().percentile(percentile) / 1000.0;
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+        if (cache != null) cache.resetStats();
+    }
+}
@@ -0,0 +1,27 @@
+package rmi.calculator.server;
+
+public interface CalculatorStatsMBean {
+    long getTotalRequests();
+
+    long getTotalErrors();
+
+    double getRequestsPerSecond();
+
+    String[] getOperationNames();
+
+    /** One line per operation: count, errors and p50/p99/p999/max latency. */
+    String[] getOperationSummaries();
+
+    /** One "clientId=count" line per client. */
+    String[] getClientCounts();
+
+    String getCacheStats();
+
+    long getCount(String operation);
+
+    long getErrors(String operation);
+
+    double getPercentileMicros(String operation, double percentile);
+
+    void reset();
+}
@@ -0,0 +1,51 @@
+package rmi.calculator.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import rmi.calculator.common.TraceContext;
+import rmi.calculator.common.TraceSpan;
+
+/**
+ * Server-side timing of one traced call. Each {@link #phase} closes the interval since the
+ * previous mark as a child span, so the phases tile the server span without gaps. Untraced
+ * calls carry none: the call paths take a nullable trace and skip every mark.
+ */
+final class CallTrace {
+    private final TraceContext parent; // the client's span
+    private final TraceContext context;
+    private final long startEpochNanos = TraceSpan.epochNanos();
+    private final long startNanos = System.nanoTime();
+    private final List<TraceSpan> phases = new ArrayList<>(6);
+    private long markNanos = startNanos;
+
+    CallTrace(TraceContext parent) {
+        this.parent = parent;
+        this.context = parent.child();
+    }
+
+    /** Records the time since the previous mark as phase {@code name}. */
+    void phase(String name) {
+        long now = System.nanoTime();
+        phases.add(new TraceSpan(name, TraceSpan.Kind.INTERNAL, context.child(), context.spanId(),
+                epoch(markNanos), epoch(now)));
+        markNanos = now;
+    }
+
+    /** The server span, named {@code name}, followed by its phases. */
+    List<TraceSpan> finish(String name, String clientId, String error) {
+        long now = System.nanoTime();
+        TraceSpan server = new TraceSpan(name, TraceSpan.Kind.SERVER, context, parent.spanId(), startEpochNanos,
+                epoch(now));
+        server.attribute("rpc.system", "java_rmi").attribute("enduser.id", clientId)
+                .attribute("thread.name", Thread.currentThread().getName());
+        if (error != null) server.error(error);
+        List<TraceSpan> spans = new ArrayList<>(phases.size() + 1);
+        spans.add(server);
+        spans.addAll(phases);
+        return spans;
+    }
+
+    private long epoch(long nanos) {
+        return startEpochNanos + (nanos - startNanos);
+    }
+}
@@ -0,0 +1,135 @@
+package rmi.calculator.server;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import rmi.calculator.common.OpCode;
+
+/**
+ * Immutable AST produced by {@link ExpressionCompiler}. Safe to share between threads;
+ * variable values are passed in positionally on every evaluation.
+ */
+public final class CompiledExpression {
+    private final String source;
+    private final List<String> variables;
+    private final Node root;
+    private final EnumSet<OpCode> operations;
+
+    CompiledExpression(String source, List<String> variables, Node root, EnumSet<OpCode> operations) {
+        this.source = source;
+        this.variables = Collections.unmodifiableList(variables);
+        this.root = root;
+        this.operations = operations;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<String> getVariables() {
+        return variables;
+    }
+
+    /** Every operation the source text uses, including ones folded away at compile time. */
+    public EnumSet<OpCode> getOperations() {
+        return EnumSet.copyOf(operations);
+    }
+
+    public boolean isConstant() {
+        return root instanceof Const;
+    }
+
+    public double evaluate(double... values) {
+        if (values.length != variables.size()) {
+            throw new IllegalArgumentException("Expected " + variables.size() + " variable value(s), got " + values.length);
+        }
+        return root.eval(values);
+    }
+
+    abstract static class Node {
+        /** Levels from this node to its deepest leaf; evaluation recurses this far. */
+        final int depth;
+
+        Node(int depth) {
+            this.depth = depth;
+        }
+
+        abstract double eval(double[] vars);
+    }
+
+    static final class Const extends Node {
+        final double value;
+
+        Const(double value) {
+            super(1);
+            this.value = value;
+        }
+
+        @Override
+        double eval(double[] vars) {
+            return value;
+        }
+    }
+
+    static final class Var extends Node {
+        final int index;
+
+        Var(int index) {
+            super(1);
+            this.index = index;
+        }
+
+        @Override
+        double eval(double[] vars) {
+            return vars[index];
+        }
+    }
+
+    static final class Neg extends Node {
+        final Node operand;
+
+        Neg(Node operand) {
+            super(operand.depth + 1);
+            this.operand = operand;
+        }
+
+        @Override
+        double eval(double[] vars) {
+            return -operand.eval(vars);
+        }
+    }
+
+    static final class Unary extends Node {
+        final OpCode op;
+        final Node operand;
+
+        Unary(OpCode op, Node operand) {
+            super(operand.depth + 1);
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        double eval(double[] vars) {
+            return CalculatorServiceImpl.apply(op, operand.eval(vars), 0.0);
+        }
+    }
+
+    static final class Binary extends Node {
+        final OpCode op;
+        final Node left;
+        final Node right;
+
+        Binary(OpCode op, Node left, Node right) {
+            super(Math.max(left.depth, right.depth) + 1);
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        double eval(double[] vars) {
+            return CalculatorServiceImpl.apply(op, left.eval(vars), right.eval(vars));
+        }
+    }
+}
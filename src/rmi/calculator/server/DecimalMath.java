@@ -0,0 +1,155 @@
+package rmi.calculator.server;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import rmi.calculator.common.OpCode;
+
+/**
+ * Kernels for {@link rmi.calculator.common.PrecisionMode#DECIMAL}. Every result, add, sub and
+ * mul included, is rounded to {@link #CONTEXT} (34 digits, half-even), so operands with far-apart
+ * exponents such as {@code 1E+50000000 + 1} cost no more than ordinary ones. Trig reduces modulo
+ * 2*pi with a cached 64-digit pi and sums a Taylor series with cached inverse factorials,
+ * accurate to 34 digits for |x| up to {@code 1e25}; larger arguments are rejected. A fractional exponent
+ * falls back to {@code Math.pow} and is only as accurate as a double.
+ *
+ * <p>{@link #apply(OpCode, double, double)} reads each double as the shortest decimal that
+ * prints the same ({@link BigDecimal#valueOf(double)}). When both operands are integers below
+ * 2^53 and the double result is provably exact (checked with error-free transformations), that
+ * result is returned without building a BigDecimal: it is the same value the decimal path
+ * would round to.
+ */
+public final class DecimalMath {
+    public static final MathContext CONTEXT = MathContext.DECIMAL128;
+
+    private static final MathContext WORK = new MathContext(CONTEXT.getPrecision() + 8, RoundingMode.HALF_EVEN);
+    private static final BigDecimal PI =
+            new BigDecimal("3.141592653589793238462643383279502884197169399375105820974944592");
+    private static final BigDecimal TWO_PI = PI.add(PI);
+    private static final BigDecimal HALF_PI = PI.divide(BigDecimal.valueOf(2));
+    private static final BigDecimal EPSILON = BigDecimal.ONE.movePointLeft(WORK.getPrecision() + 2);
+    private static final int SERIES_TERMS = 60;
+    private static final BigDecimal[] INV_FACTORIAL = new BigDecimal[SERIES_TERMS];
+    private static final double EXACT_LIMIT = 0x1p53;
+    // Reducing x modulo TWO_PI loses about log10(x) of pi's 63 decimals; 1e25 keeps 38 of them
+    private static final BigDecimal TRIG_LIMIT = BigDecimal.ONE.movePointRight(25);
+
+    static {
+        BigDecimal f = BigDecimal.ONE;
+        for (int n = 0; n < SERIES_TERMS; n++) {
+            if (n > 0) f = f.multiply(BigDecimal.valueOf(n));
+            INV_FACTORIAL[n] = BigDecimal.ONE.divide(f, WORK);
+        }
+    }
+
+    private DecimalMath() {
+    }
+
+    /** The decimal result for double operands, rounded once to the nearest double. */
+    public static double apply(OpCode op, double a, double b) {
+        if (isExactInteger(a) && (op.arity() == 1 || isExactInteger(b))) {
+            double r = exactOrNaN(op, a, b);
+            if (r == r) return r + 0.0; // decimals have no negative zero
+        }
+        return apply(op, decimal(a), op.arity() == 2 ? decimal(b) : BigDecimal.ZERO).doubleValue();
+    }
+
+    public static BigDecimal apply(OpCode op, BigDecimal a, BigDecimal b) {
+        switch (op) {
+            case ADD: return a.add(b, CONTEXT);
+            case SUB: return a.subtract(b, CONTEXT);
+            case MUL: return a.multiply(b, CONTEXT);
+            case DIV:
+                if (b.signum() == 0) throw new ArithmeticException("Division by zero");
+                return a.divide(b, CONTEXT);
+            case POW: return pow(a, b);
+            case SQRT:
+                if (a.signum() < 0) throw new ArithmeticException("Square root of negative number");
+                return a.sqrt(CONTEXT);
+            case SIN: return sin(a).round(CONTEXT);
+            case COS: return sin(HALF_PI.subtract(a, WORK)).round(CONTEXT);
+            case TAN: {
+                BigDecimal c = sin(HALF_PI.subtract(a, WORK));
+                if (c.signum() == 0) throw new ArithmeticException("Tangent undefined");
+                return sin(a).divide(c, CONTEXT);
+            }
+            default: throw new ArithmeticException("Unsupported op: " + op);
+        }
+    }
+
+    private static boolean isExactInteger(double x) {
+        return x == Math.rint(x) && Math.abs(x) < EXACT_LIMIT;
+    }
+
+    /** The double result when it is provably the exact one, otherwise NaN. */
+    private static double exactOrNaN(OpCode op, double a, double b) {
+        switch (op) {
+            case ADD: {
+                double s = a + b;
+                return Math.abs(s) < EXACT_LIMIT ? s : Double.NaN;
+            }
+            case SUB: {
+                double s = a - b;
+                return Math.abs(s) < EXACT_LIMIT ? s : Double.NaN;
+            }
+            case MUL: {
+                double p = a * b;
+                return Math.abs(p) < EXACT_LIMIT ? p : Double.NaN;
+            }
+            case DIV: {
+                if (b == 0.0) return Double.NaN; // the decimal path raises the error
+                double q = a / b;
+                return Math.fma(q, b, -a) == 0.0 ? q : Double.NaN;
+            }
+            case POW: {
+                // Math.pow is exact for integer arguments whose result is representable
+                if (b < 0) return Double.NaN;
+                double p = Math.pow(a, b);
+                return Math.abs(p) < EXACT_LIMIT ? p : Double.NaN;
+            }
+            case SQRT: {
+                if (a < 0) return Double.NaN;
+                double r = Math.sqrt(a);
+                return Math.fma(r, r, -a) == 0.0 ? r : Double.NaN;
+            }
+            default:
+                return Double.NaN;
+        }
+    }
+
+    private static BigDecimal decimal(double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) throw new ArithmeticException("Not a finite number: " + v);
+        return BigDecimal.valueOf(v);
+    }
+
+    private static BigDecimal pow(BigDecimal a, BigDecimal b) {
+        BigDecimal n = b.stripTrailingZeros();
+        if (n.scale() <= 0 && n.abs().compareTo(BigDecimal.valueOf(999_999_999)) <= 0) {
+            if (a.signum() == 0 && n.signum() < 0) throw new ArithmeticException("Division by zero");
+            return a.pow(n.intValueExact(), CONTEXT);
+        }
+        double r = Math.pow(a.doubleValue(), b.doubleValue());
+        if (Double.isNaN(r) || Double.isInfinite(r)) throw new ArithmeticException("pow result is not a finite number");
+        return new BigDecimal(r, CONTEXT);
+    }
+
+    /** Taylor series after reducing x into [-pi/2, pi/2], at working precision. */
+    private static BigDecimal sin(BigDecimal x) {
+        if (x.abs().compareTo(TRIG_LIMIT) > 0) throw new ArithmeticException("Argument too large for decimal trig");
+        BigDecimal r = x.remainder(TWO_PI, WORK);
+        if (r.compareTo(PI) > 0) r = r.subtract(TWO_PI, WORK);
+        else if (r.compareTo(PI.negate()) < 0) r = r.add(TWO_PI, WORK);
+        if (r.compareTo(HALF_PI) > 0) r = PI.subtract(r, WORK);
+        else if (r.compareTo(HALF_PI.negate()) < 0) r = PI.negate().subtract(r, WORK);
+        BigDecimal r2 = r.multiply(r, WORK);
+        BigDecimal power = r;
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int n = 1; n < SERIES_TERMS; n += 2) {
+            BigDecimal term = power.multiply(INV_FACTORIAL[n], WORK);
+            sum = (n & 2) == 0 ? sum.add(term, WORK) : sum.subtract(term, WORK);
+            if (term.abs().compareTo(EPSILON) < 0) break;
+            power = power.multiply(r2, WORK);
+        }
+        return sum;
+    }
+}
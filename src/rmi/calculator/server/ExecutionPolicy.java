@@ -0,0 +1,102 @@
+package rmi.calculator.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where {@link BinaryProtocolServer} runs decoded requests:
+ * <ul>
+ *   <li>{@code inline}: on the selector thread. Cheapest for the microsecond-scale scalar ops,
+ *       but one slow call (a large array, a queued admission) delays every connection.</li>
+ *   <li>{@code pool:N}: on N platform threads with a bounded queue; when it is full the selector
+ *       runs the request itself, which stops it reading and pushes back on clients.</li>
+ *   <li>{@code virtual}: one virtual thread per request (Java 21 and later).</li>
+ * </ul>
+ */
+public final class ExecutionPolicy {
+    public enum Kind { INLINE, POOL, VIRTUAL }
+
+    public static final ExecutionPolicy INLINE = new ExecutionPolicy(Kind.INLINE, 0);
+    private static final int QUEUE_PER_THREAD = 64;
+
+    private final Kind kind;
+    private final int threads;
+
+    private ExecutionPolicy(Kind kind, int threads) {
+        this.kind = kind;
+        this.threads = threads;
+    }
+
+    public static ExecutionPolicy pool(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("pool needs at least one thread");
+        return new ExecutionPolicy(Kind.POOL, threads);
+    }
+
+    public static ExecutionPolicy virtual() {
+        if (virtualFactory() == null) throw new IllegalArgumentException("virtual threads need Java 21 or later");
+        return new ExecutionPolicy(Kind.VIRTUAL, 0);
+    }
+
+    /** Parses {@code inline}, {@code pool}, {@code pool:N} or {@code virtual}. */
+    public static ExecutionPolicy parse(String spec) {
+        String s = spec.trim().toLowerCase();
+        if (s.isEmpty() || s.equals("inline")) return INLINE;
+        if (s.equals("virtual")) return virtual();
+        if (s.equals("pool")) return pool(Runtime.getRuntime().availableProcessors());
+        if (s.startsWith("pool:")) {
+            try {
+                return pool(Integer.parseInt(s.substring(5)));
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid pool size: " + spec);
+            }
+        }
+        throw new IllegalArgumentException("Unknown execution policy '" + spec + "', expected inline, pool:N or virtual");
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** A fresh executor for this policy, or null for {@link Kind#INLINE}. */
+    public ExecutorService newExecutor(String name) {
+        switch (kind) {
+            case POOL: {
+                AtomicInteger n = new AtomicInteger();
+                return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), r -> {
+                            Thread t = new Thread(r, name + "-" + n.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        }, new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+            case VIRTUAL:
+                try {
+                    return (ExecutorService) virtualFactory().invoke(null);
+                } catch (IllegalAccessException | InvocationTargetException ex) {
+                    throw new IllegalStateException("Cannot create virtual thread executor", ex);
+                }
+            default:
+                return null;
+        }
+    }
+
+    /** Looked up reflectively so the build keeps targeting Java 17. */
+    private static Method virtualFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.POOL ? "pool:" + threads : kind.name().toLowerCase();
+    }
+}
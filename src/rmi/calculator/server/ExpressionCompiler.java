@@ -0,0 +1,305 @@
+package rmi.calculator.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import rmi.calculator.common.OpCode;
+
+/**
+ * Recursive-descent compiler from infix text to {@link CompiledExpression}, with a
+ * bounded LRU cache keyed by expression text and variable list so repeated expressions skip parsing.
+ *
+ * <pre>
+ * expr    := term (('+' | '-') term)*
+ * term    := unary (('*' | '/') unary)*
+ * unary   := ('-' | '+') unary | power
+ * power   := primary ('^' unary)?
+ * primary := number | name | name '(' expr (',' expr)* ')' | '(' expr ')' | '√' primary
+ * </pre>
+ *
+ * Functions are the calculator ops ({@code sqrt sin cos tan pow}); {@code pi} and {@code e}
+ * are constants. Constant sub-trees are folded at compile time. Nesting (brackets, calls, signs,
+ * exponents) and the depth of the resulting tree are both capped at {@link #MAX_DEPTH}, so
+ * neither parsing nor evaluation can overflow the stack.
+ */
+public class ExpressionCompiler {
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    public static final int MAX_DEPTH = 256;
+
+    private final Map<Key, CompiledExpression> cache;
+
+    public ExpressionCompiler() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public ExpressionCompiler(final int cacheSize) {
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<Key, CompiledExpression>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledExpression> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Compiles {@code text}, reusing a cached AST when the same text (and variable list)
+     * was compiled before.
+     */
+    public CompiledExpression compile(String text, String... variables) {
+        if (text == null) throw new ExpressionException("Expression must not be null", 0);
+        Key key = new Key(text, new ArrayList<>(Arrays.asList(variables)));
+        CompiledExpression compiled = cache.get(key);
+        if (compiled == null) {
+            compiled = new Parser(text, key.variables).parse();
+            cache.put(key, compiled);
+        }
+        return compiled;
+    }
+
+    public int cachedCount() {
+        return cache.size();
+    }
+
+    /** Text and variables kept apart, so no expression text can spell another entry's key. */
+    private static final class Key {
+        final String text;
+        final List<String> variables;
+
+        Key(String text, List<String> variables) {
+            this.text = text;
+            this.variables = variables;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return text.equals(other.text) && variables.equals(other.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * text.hashCode() + variables.hashCode();
+        }
+    }
+
+    private static final class Parser {
+        private final String text;
+        private final List<String> variables;
+        private final EnumSet<OpCode> operations = EnumSet.noneOf(OpCode.class);
+        private int pos;
+        private int depth;
+
+        Parser(String text, List<String> variables) {
+            this.text = text;
+            this.variables = new ArrayList<>(variables);
+        }
+
+        CompiledExpression parse() {
+            CompiledExpression.Node root = parseExpr();
+            skipSpaces();
+            if (pos < text.length()) throw error("Unexpected '" + text.charAt(pos) + "'");
+            return new CompiledExpression(text, variables, root, operations);
+        }
+
+        private CompiledExpression.Node parseExpr() {
+            CompiledExpression.Node node = parseTerm();
+            while (true) {
+                if (accept('+')) node = binary(OpCode.ADD, node, parseTerm());
+                else if (accept('-')) node = binary(OpCode.SUB, node, parseTerm());
+                else return node;
+            }
+        }
+
+        private CompiledExpression.Node parseTerm() {
+            CompiledExpression.Node node = parseUnary();
+            while (true) {
+                if (accept('*')) node = binary(OpCode.MUL, node, parseUnary());
+                else if (accept('/')) node = binary(OpCode.DIV, node, parseUnary());
+                else return node;
+            }
+        }
+
+        private CompiledExpression.Node parseUnary() {
+            if (accept('-')) {
+                CompiledExpression.Node operand = nested();
+                if (operand instanceof CompiledExpression.Const) {
+                    return new CompiledExpression.Const(-((CompiledExpression.Const) operand).value);
+                }
+                return checked(new CompiledExpression.Neg(operand));
+            }
+            if (accept('+')) return nested();
+            return parsePower();
+        }
+
+        private CompiledExpression.Node parsePower() {
+            CompiledExpression.Node base = parsePrimary();
+            if (accept('^')) return binary(OpCode.POW, base, nested());
+            return base;
+        }
+
+        /** A unary operand one nesting level down. */
+        private CompiledExpression.Node nested() {
+            enter();
+            CompiledExpression.Node node = parseUnary();
+            depth--;
+            return node;
+        }
+
+        private CompiledExpression.Node parsePrimary() {
+            skipSpaces();
+            if (pos >= text.length()) throw error("Unexpected end of expression");
+            char c = text.charAt(pos);
+            if (c == '(') {
+                pos++;
+                enter();
+                CompiledExpression.Node inner = parseExpr();
+                expect(')');
+                depth--;
+                return inner;
+            }
+            if (c == '√') {
+                pos++;
+                enter();
+                CompiledExpression.Node operand = parsePrimary();
+                depth--;
+                return unary(OpCode.SQRT, operand);
+            }
+            if (Character.isDigit(c) || c == '.') return parseNumber();
+            if (Character.isLetter(c)) return parseName();
+            throw error("Unexpected '" + c + "'");
+        }
+
+        private CompiledExpression.Node parseNumber() {
+            int start = pos;
+            while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) pos++;
+            if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                int mark = pos++;
+                if (pos < text.length() && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) pos++;
+                if (pos < text.length() && Character.isDigit(text.charAt(pos))) {
+                    while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+                } else {
+                    pos = mark; // not an exponent; the trailing 'e' is reported by the caller
+                }
+            }
+            String literal = text.substring(start, pos);
+            try {
+                return new CompiledExpression.Const(Double.parseDouble(literal));
+            } catch (NumberFormatException ex) {
+                pos = start;
+                throw error("Invalid number '" + literal + "'");
+            }
+        }
+
+        private CompiledExpression.Node parseName() {
+            int start = pos;
+            while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) pos++;
+            String name = text.substring(start, pos);
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == '(') {
+                pos++;
+                return parseCall(name, start);
+            }
+            switch (name) {
+                case "pi": return new CompiledExpression.Const(Math.PI);
+                case "e": return new CompiledExpression.Const(Math.E);
+                case "Infinity": return new CompiledExpression.Const(Double.POSITIVE_INFINITY);
+                case "NaN": return new CompiledExpression.Const(Double.NaN);
+                default:
+                    int index = variables.indexOf(name);
+                    if (index < 0) {
+                        pos = start;
+                        throw error("Unknown variable '" + name + "'");
+                    }
+                    return new CompiledExpression.Var(index);
+            }
+        }
+
+        private CompiledExpression.Node parseCall(String name, int start) {
+            List<CompiledExpression.Node> args = new ArrayList<>(2);
+            enter();
+            args.add(parseExpr());
+            while (accept(',')) args.add(parseExpr());
+            expect(')');
+            depth--;
+            OpCode op;
+            switch (name) {
+                case "sqrt": op = OpCode.SQRT; break;
+                case "sin": op = OpCode.SIN; break;
+                case "cos": op = OpCode.COS; break;
+                case "tan": op = OpCode.TAN; break;
+                case "pow": op = OpCode.POW; break;
+                default:
+                    pos = start;
+                    throw error("Unknown function '" + name + "'");
+            }
+            if (args.size() != op.arity()) {
+                pos = start;
+                throw error(name + " expects " + op.arity() + " argument(s)");
+            }
+            return op.arity() == 1 ? unary(op, args.get(0)) : binary(op, args.get(0), args.get(1));
+        }
+
+        private CompiledExpression.Node unary(OpCode op, CompiledExpression.Node operand) {
+            operations.add(op);
+            if (operand instanceof CompiledExpression.Const) {
+                Double folded = fold(op, ((CompiledExpression.Const) operand).value, 0.0);
+                if (folded != null) return new CompiledExpression.Const(folded);
+            }
+            return checked(new CompiledExpression.Unary(op, operand));
+        }
+
+        private CompiledExpression.Node binary(OpCode op, CompiledExpression.Node left, CompiledExpression.Node right) {
+            operations.add(op);
+            if (left instanceof CompiledExpression.Const && right instanceof CompiledExpression.Const) {
+                Double folded = fold(op, ((CompiledExpression.Const) left).value, ((CompiledExpression.Const) right).value);
+                if (folded != null) return new CompiledExpression.Const(folded);
+            }
+            return checked(new CompiledExpression.Binary(op, left, right));
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) throw error("Expression nested more than " + MAX_DEPTH + " levels deep");
+        }
+
+        /** Long operator chains stay flat while parsing but build a deep tree; evaluation recurses it. */
+        private CompiledExpression.Node checked(CompiledExpression.Node node) {
+            if (node.depth > MAX_DEPTH) throw error("Expression more than " + MAX_DEPTH + " operations deep");
+            return node;
+        }
+
+        // Domain errors are left in the tree so they surface at evaluation time
+        private Double fold(OpCode op, double a, double b) {
+            try {
+                return CalculatorServiceImpl.apply(op, a, b);
+            } catch (ArithmeticException ex) {
+                return null;
+            }
+        }
+
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!accept(c)) throw error("Expected '" + c + "'");
+        }
+
+        private void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        private ExpressionException error(String message) {
+            return new ExpressionException(message, pos);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package rmi.calculator.server;
+
+public class ExpressionException extends IllegalArgumentException {
+    private final int position;
+
+    public ExpressionException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,89 @@
+package rmi.calculator.server;
+
+import rmi.calculator.common.OpCode;
+
+/**
+ * Kernels for {@link rmi.calculator.common.PrecisionMode#FAST}.
+ *
+ * <p>sin/cos reduce the argument by multiples of pi/2 (Cody-Waite, two constants, exact for
+ * |x| up to {@link #REDUCTION_LIMIT}) and evaluate degree-9/10 Taylor polynomials on
+ * [-pi/4, pi/4], picking the quadrant without branches. Absolute error is below 2e-9; tan is
+ * sin/cos of the same reduction, so its relative error grows near the poles. Larger or
+ * non-finite arguments go to {@code Math}. pow with an integer exponent of magnitude up to 64
+ * is repeated squaring (relative error below 2e-15 while intermediates stay in the normal
+ * range); sqrt and the arithmetic ops already are single instructions and stay exact.
+ */
+public final class FastMath {
+    public static final double REDUCTION_LIMIT = 0x1p19;
+
+    private static final double TWO_OVER_PI = 0.6366197723675814;
+    private static final double PIO2_HI = 1.57079632673412561417e+00; // first 33 bits of pi/2
+    private static final double PIO2_LO = 6.07710050650619224932e-11; // pi/2 - PIO2_HI
+
+    private FastMath() {
+    }
+
+    public static double apply(OpCode op, double a, double b) {
+        switch (op) {
+            case POW: return pow(a, b);
+            case SIN: return sin(a);
+            case COS: return cos(a);
+            case TAN: return tan(a);
+            default: return CalculatorServiceImpl.apply(op, a, b);
+        }
+    }
+
+    public static double sin(double x) {
+        return quadrant(x, 0);
+    }
+
+    public static double cos(double x) {
+        return quadrant(x, 1);
+    }
+
+    public static double tan(double x) {
+        if (!(Math.abs(x) <= REDUCTION_LIMIT)) return Math.tan(x);
+        double k = Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+        double z = r * r;
+        double s = sinPoly(r, z);
+        double c = cosPoly(z);
+        return ((long) k & 1) == 0 ? s / c : -c / s;
+    }
+
+    /** sin(x + shift * pi/2). */
+    private static double quadrant(double x, int shift) {
+        if (!(Math.abs(x) <= REDUCTION_LIMIT)) return shift == 0 ? Math.sin(x) : Math.cos(x);
+        double k = Math.rint(x * TWO_OVER_PI);
+        double r = (x - k * PIO2_HI) - k * PIO2_LO;
+        long q = (long) k + shift;
+        double z = r * r;
+        double s = sinPoly(r, z);
+        double c = cosPoly(z);
+        double v = (q & 1) == 0 ? s : c;
+        return (q & 2) == 0 ? v : -v;
+    }
+
+    private static double sinPoly(double r, double z) {
+        return r + r * z * (-1.6666666666666666e-1 + z * (8.333333333333333e-3
+                + z * (-1.984126984126984e-4 + z * 2.7557319223985893e-6)));
+    }
+
+    private static double cosPoly(double z) {
+        return 1.0 + z * (-0.5 + z * (4.1666666666666664e-2 + z * (-1.388888888888889e-3
+                + z * (2.48015873015873e-5 + z * -2.755731922398589e-7))));
+    }
+
+    public static double pow(double a, double b) {
+        if (b != Math.rint(b) || !(Math.abs(b) <= 64)) return Math.pow(a, b);
+        long n = (long) Math.abs(b);
+        double result = 1.0;
+        double base = a;
+        while (n != 0) {
+            if ((n & 1) != 0) result *= base;
+            base *= base;
+            n >>>= 1;
+        }
+        return b < 0 ? 1.0 / result : result;
+    }
+}
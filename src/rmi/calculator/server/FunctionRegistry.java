@@ -0,0 +1,132 @@
+package rmi.calculator.server;
+
+import java.rmi.RemoteException;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.UnknownFunctionException;
+
+/**
+ * Registered user functions by handle. Handles are random 64-bit values, so one client cannot
+ * guess another's. Each entry holds the compiled expression, so tabulating it again never parses
+ * again. As with {@link SessionRegistry}, idle functions expire lazily: on lookup, or when a
+ * registration sweeps a full table.
+ */
+public class FunctionRegistry {
+    public static final int DEFAULT_MAX_FUNCTIONS = 1024;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60_000;
+
+    private static final Set<String> RESERVED = Set.of("pi", "e", "Infinity", "NaN", "sqrt", "sin", "cos", "tan", "pow");
+
+    public static final class Function {
+        private final long handle;
+        private final CompiledExpression expression;
+        private final EnumSet<OpCode> operations;
+        private final String clientId;
+        private volatile long lastUsed;
+
+        Function(long handle, CompiledExpression expression, String clientId, long now) {
+            this.handle = handle;
+            this.expression = expression;
+            this.operations = expression.getOperations();
+            this.clientId = clientId;
+            this.lastUsed = now;
+        }
+
+        public long getHandle() {
+            return handle;
+        }
+
+        public CompiledExpression getExpression() {
+            return expression;
+        }
+
+        public int arity() {
+            return expression.getVariables().size();
+        }
+
+        /** Every operation the expression uses, for capability checks. */
+        public EnumSet<OpCode> getOperations() {
+            return operations;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + Long.toHexString(handle) + " (" + String.join(", ", expression.getVariables()) + ") = "
+                    + expression.getSource();
+        }
+    }
+
+    private final Map<Long, Function> functions = new ConcurrentHashMap<>();
+    private final int maxFunctions;
+    private final long idleTimeoutMillis;
+
+    public FunctionRegistry() {
+        this(DEFAULT_MAX_FUNCTIONS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public FunctionRegistry(int maxFunctions, long idleTimeoutMillis) {
+        if (maxFunctions < 1) throw new IllegalArgumentException("maxFunctions must be >= 1");
+        this.maxFunctions = maxFunctions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /** Rejects variable lists the compiler would misread: duplicates, non-identifiers, built-in names. */
+    public static void checkVariables(String[] variables) throws RemoteException {
+        if (variables == null || variables.length == 0) throw new RemoteException("A function needs at least one variable");
+        Set<String> seen = new HashSet<>();
+        for (String v : variables) {
+            if (v == null || !v.matches("[A-Za-z][A-Za-z0-9]*")) throw new RemoteException("Invalid variable name '" + v + "'");
+            if (RESERVED.contains(v)) throw new RemoteException("'" + v + "' is a built-in name");
+            if (!seen.add(v)) throw new RemoteException("Variable '" + v + "' is listed twice");
+        }
+    }
+
+    public synchronized Function register(CompiledExpression expression, String clientId) throws RemoteException {
+        long now = System.currentTimeMillis();
+        if (functions.size() >= maxFunctions) sweep(now);
+        if (functions.size() >= maxFunctions) throw new RemoteException("Too many registered functions (" + maxFunctions + ")");
+        long handle;
+        do {
+            handle = ThreadLocalRandom.current().nextLong();
+        } while (handle == 0 || functions.containsKey(handle));
+        Function f = new Function(handle, expression, clientId, now);
+        functions.put(handle, f);
+        return f;
+    }
+
+    public Function get(long handle) throws UnknownFunctionException {
+        Function f = functions.get(handle);
+        if (f == null) throw new UnknownFunctionException("Unknown or expired function handle");
+        long now = System.currentTimeMillis();
+        if (now - f.lastUsed > idleTimeoutMillis) {
+            functions.remove(handle, f);
+            throw new UnknownFunctionException("Function expired after " + idleTimeoutMillis / 1000 + " s idle");
+        }
+        f.lastUsed = now;
+        return f;
+    }
+
+    public boolean remove(long handle) {
+        return functions.remove(handle) != null;
+    }
+
+    public int size() {
+        return functions.size();
+    }
+
+    private void sweep(long now) {
+        for (Iterator<Function> it = functions.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastUsed > idleTimeoutMillis) it.remove();
+        }
+    }
+}
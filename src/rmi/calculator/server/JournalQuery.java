@@ -0,0 +1,245 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Offline reader for a {@link CalculationJournal} directory. Segments are mapped read-only and
+ * scanned record by record without decoding anything a filter rejects, so aggregating over
+ * millions of records takes well under a second.
+ *
+ * <pre>
+ * JournalQuery dir [--client=id] [--op=sin|sin[]|evaluate|...] [--from=time] [--to=time] [--errors] [--list[=N]]
+ * </pre>
+ * Times are ISO-8601 instants ({@code 2026-01-31T12:00:00Z}) or epoch milliseconds. Without
+ * {@code --list} it prints per-op and per-client totals with latency percentiles.
+ */
+public final class JournalQuery {
+    private final Path dir;
+    private final List<String> clientNames;
+    private int client = -1;
+    private int op = -1;
+    private int arrayFlag = -1;
+    private long fromMicros = Long.MIN_VALUE;
+    private long toMicros = Long.MAX_VALUE;
+    private boolean errorsOnly;
+
+    public JournalQuery(Path dir) throws IOException {
+        this.dir = dir;
+        this.clientNames = CalculationJournal.readClients(dir);
+    }
+
+    /** Restricts to one client; an id that never appears in the journal matches nothing. */
+    public JournalQuery client(String clientId) {
+        int index = clientNames.indexOf(clientId);
+        client = index < 0 ? Integer.MAX_VALUE : index;
+        return this;
+    }
+
+    public JournalQuery op(String name) {
+        for (int code = 0; code < 128; code++) {
+            for (int flags : new int[]{0, CalculationJournal.FLAG_ARRAY}) {
+                if (CalculationJournal.opName(code, flags).equals(name)) {
+                    op = code;
+                    arrayFlag = flags;
+                    return this;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown op: " + name);
+    }
+
+    public JournalQuery between(Instant from, Instant to) {
+        if (from != null) fromMicros = from.getEpochSecond() * 1_000_000 + from.getNano() / 1000;
+        if (to != null) toMicros = to.getEpochSecond() * 1_000_000 + to.getNano() / 1000;
+        return this;
+    }
+
+    public JournalQuery errorsOnly() {
+        errorsOnly = true;
+        return this;
+    }
+
+    /** Receives each matching record; {@code pos} indexes into {@code buf}. */
+    public interface RecordVisitor {
+        /** Returns false to stop the scan. */
+        boolean visit(MappedByteBuffer buf, int pos);
+    }
+
+    public void scan(RecordVisitor visitor) throws IOException {
+        for (Path segment : CalculationJournal.segments(dir)) {
+            if (!scan(segment, visitor)) return;
+        }
+    }
+
+    private boolean scan(Path segment, RecordVisitor visitor) throws IOException {
+        MappedByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (ch.size() < CalculationJournal.HEADER_SIZE) return true;
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (buf.getInt(0) != CalculationJournal.MAGIC || buf.getShort(6) != CalculationJournal.RECORD_SIZE) {
+            throw new IOException("Not a journal segment: " + segment);
+        }
+        int limit = buf.capacity() - CalculationJournal.RECORD_SIZE;
+        for (int pos = CalculationJournal.HEADER_SIZE; pos <= limit; pos += CalculationJournal.RECORD_SIZE) {
+            long time = buf.getLong(pos + CalculationJournal.OFF_TIME);
+            if (time == 0) continue; // a slot claimed but never completed, or the unused tail
+            if (time < fromMicros || time > toMicros) continue;
+            if (client >= 0 && buf.getInt(pos + CalculationJournal.OFF_CLIENT) != client) continue;
+            int flags = buf.get(pos + CalculationJournal.OFF_FLAGS);
+            if (op >= 0 && (buf.get(pos + CalculationJournal.OFF_OP) != op
+                    || (flags & CalculationJournal.FLAG_ARRAY) != arrayFlag)) continue;
+            if (errorsOnly && (flags & CalculationJournal.FLAG_ERROR) == 0) continue;
+            if (!visitor.visit(buf, pos)) return false;
+        }
+        return true;
+    }
+
+    public String clientName(int index) {
+        return index < clientNames.size() ? clientNames.get(index) : "#" + index;
+    }
+
+    /** Counts, errors and latency of the matching records, grouped by op and by client. */
+    public static final class Summary {
+        final Map<String, Group> byOp = new TreeMap<>();
+        final Map<String, Group> byClient = new TreeMap<>();
+        long firstMicros = Long.MAX_VALUE;
+        long lastMicros = Long.MIN_VALUE;
+        long records;
+
+        void print(PrintStream out) {
+            out.printf("%,d records%n", records);
+            if (records > 0) out.println("from " + instant(firstMicros) + " to " + instant(lastMicros));
+            print(out, "Op", byOp);
+            print(out, "Client", byClient);
+        }
+
+        private static void print(PrintStream out, String title, Map<String, Group> groups) {
+            if (groups.isEmpty()) return;
+            out.printf("%n%-24s %12s %10s %10s %10s %10s %10s%n", title, "Count", "Errors",
+                    "Mean (us)", "p50 (us)", "p99 (us)", "Max (us)");
+            for (Map.Entry<String, Group> e : groups.entrySet()) {
+                Group g = e.getValue();
+                LatencyHistogram h = g.latency;
+                out.printf("%-24s %,12d %,10d %10.1f %10.1f %10.1f %10.1f%n", e.getKey(), g.count, g.errors,
+                        h.mean() / 1000, h.percentile(50) / 1000.0, h.percentile(99) / 1000.0, h.max() / 1000.0);
+            }
+        }
+    }
+
+    static final class Group {
+        long count;
+        long errors;
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void add(boolean error, long latencyNanos) {
+            count++;
+            if (error) errors++;
+            latency.record(latencyNanos);
+        }
+    }
+
+    public Summary summarize() throws IOException {
+        Summary s = new Summary();
+        // Groups are indexed by the raw fields; building names per record would dominate the scan
+        Group[] ops = new Group[256 << 1];
+        Group[] clients = new Group[clientNames.size() + 1]; // last slot: ids missing from clients.txt
+        scan((buf, pos) -> {
+            long time = buf.getLong(pos + CalculationJournal.OFF_TIME);
+            int flags = buf.get(pos + CalculationJournal.OFF_FLAGS);
+            int array = (flags & CalculationJournal.FLAG_ARRAY) != 0 ? 1 : 0;
+            int key = (buf.get(pos + CalculationJournal.OFF_OP) & 0xFF) << 1 | array;
+            boolean error = (flags & CalculationJournal.FLAG_ERROR) != 0;
+            long latency = buf.getLong(pos + CalculationJournal.OFF_LATENCY);
+            group(ops, key).add(error, latency);
+            int client = buf.getInt(pos + CalculationJournal.OFF_CLIENT);
+            group(clients, Math.min(client & Integer.MAX_VALUE, clients.length - 1)).add(error, latency);
+            s.records++;
+            if (time < s.firstMicros) s.firstMicros = time;
+            if (time > s.lastMicros) s.lastMicros = time;
+            return true;
+        });
+        for (int k = 0; k < ops.length; k++) {
+            int flags = (k & 1) != 0 ? CalculationJournal.FLAG_ARRAY : 0;
+            if (ops[k] != null) s.byOp.put(CalculationJournal.opName(k >> 1, flags), ops[k]);
+        }
+        for (int k = 0; k < clients.length; k++) {
+            if (clients[k] != null) s.byClient.put(k < clientNames.size() ? clientNames.get(k) : "(unknown)", clients[k]);
+        }
+        return s;
+    }
+
+    private static Group group(Group[] groups, int index) {
+        Group g = groups[index];
+        if (g == null) groups[index] = g = new Group();
+        return g;
+    }
+
+    private void list(PrintStream out, long max) throws IOException {
+        long[] printed = {0};
+        scan((buf, pos) -> {
+            int flags = buf.get(pos + CalculationJournal.OFF_FLAGS);
+            int op = buf.get(pos + CalculationJournal.OFF_OP) & 0xFF;
+            out.printf("%s %-20s %-10s a=%s b=%s result=%s latency=%.1fus%s%n",
+                    instant(buf.getLong(pos + CalculationJournal.OFF_TIME)),
+                    clientName(buf.getInt(pos + CalculationJournal.OFF_CLIENT)),
+                    CalculationJournal.opName(op, flags),
+                    buf.getDouble(pos + CalculationJournal.OFF_A),
+                    buf.getDouble(pos + CalculationJournal.OFF_B),
+                    buf.getDouble(pos + CalculationJournal.OFF_RESULT),
+                    buf.getLong(pos + CalculationJournal.OFF_LATENCY) / 1000.0,
+                    (flags & CalculationJournal.FLAG_ERROR) != 0 ? " ERROR" : "");
+            return ++printed[0] < max;
+        });
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000), Math.floorMod(micros, 1_000_000) * 1000);
+    }
+
+    private static Instant parseTime(String s) {
+        return s.chars().allMatch(Character::isDigit) ? Instant.ofEpochMilli(Long.parseLong(s)) : Instant.parse(s);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: JournalQuery dir [--client=id] [--op=name] [--from=time] [--to=time]"
+                    + " [--errors] [--list[=N]]");
+            System.exit(2);
+        }
+        JournalQuery q = new JournalQuery(Paths.get(args[0]));
+        Instant from = null;
+        Instant to = null;
+        long list = -1;
+        for (int i = 1; i < args.length; i++) {
+            String a = args[i];
+            if (a.startsWith("--client=")) q.client(a.substring(9));
+            else if (a.startsWith("--op=")) q.op(a.substring(5));
+            else if (a.startsWith("--from=")) from = parseTime(a.substring(7));
+            else if (a.startsWith("--to=")) to = parseTime(a.substring(5));
+            else if (a.equals("--errors")) q.errorsOnly();
+            else if (a.equals("--list")) list = Long.MAX_VALUE;
+            else if (a.startsWith("--list=")) list = Long.parseLong(a.substring(7));
+            else throw new IllegalArgumentException("Unrecognized argument: " + a);
+        }
+        q.between(from, to);
+        long t0 = System.nanoTime();
+        if (list >= 0) {
+            q.list(System.out, list);
+        } else {
+            Summary s = q.summarize();
+            s.print(System.out);
+            System.err.printf("%nScanned in %d ms%n", (System.nanoTime() - t0) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package rmi.calculator.server;
+
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OperationService;
+
+/**
+ * A server-side operation plugin, discovered with {@link java.util.ServiceLoader}: list the
+ * implementing classes in {@code META-INF/services/rmi.calculator.server.Operation} of a jar on
+ * the server class path or in the {@code ops.dir} plugin directory. Implementations need a
+ * public no-argument constructor and must be thread-safe.
+ */
+public interface Operation {
+    /**
+     * Fixed opcode between {@link OperationService#FIRST_PLUGIN_CODE} and
+     * {@link OperationService#LAST_PLUGIN_CODE}; clients may cache it.
+     */
+    int code();
+
+    /** Lower-case identifier, unique on the server, e.g. {@code atan2}. */
+    String name();
+
+    int arity();
+
+    /** {@code args.length == arity()}. Domain errors are thrown as {@link ArithmeticException}. */
+    double apply(double[] args);
+
+    /** Capability a server must offer for this operation to be listed and invoked. */
+    default Capability capability() {
+        return Capability.MATH;
+    }
+}
@@ -0,0 +1,255 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OpCode;
+import rmi.calculator.common.OperationInfo;
+import rmi.calculator.common.OperationService;
+
+/**
+ * Opcode-indexed table of every operation {@link CalculatorServiceImpl#invoke} can run: the
+ * {@link OpCode} built-ins plus the {@link Operation}s {@link ServiceLoader} finds on the server
+ * class path and in the jars of an optional plugin directory. A lookup is one read of a volatile
+ * array; {@link #reload()} builds a complete new table and swaps it in, so a call never sees a
+ * half-loaded catalog. With {@link #watch} the directory is rescanned periodically and reloaded
+ * when a jar is added, replaced or removed.
+ */
+public class OperationRegistry implements AutoCloseable {
+    public static final long DEFAULT_SCAN_MILLIS = 2000;
+    public static final int MAX_ARITY = 8;
+    private static final int MAX_PROVIDER_FAILURES = 64;
+
+    /** One table slot. Built-ins carry no {@link Operation}: they run through the scalar kernel. */
+    public static final class Entry {
+        private final OperationInfo info;
+        private final Operation operation;
+        private final ServerMetrics.OpMetrics metrics;
+
+        Entry(OperationInfo info, Operation operation, ServerMetrics.OpMetrics metrics) {
+            this.info = info;
+            this.operation = operation;
+            this.metrics = metrics;
+        }
+
+        public OperationInfo getInfo() {
+            return info;
+        }
+
+        public boolean isBuiltIn() {
+            return operation == null;
+        }
+
+        double apply(double[] args) {
+            return operation.apply(args);
+        }
+
+        ServerMetrics.OpMetrics getMetrics() {
+            return metrics;
+        }
+    }
+
+    private final ServerLogger logger;
+    private final ServerMetrics metrics;
+    private final Path pluginDir; // null: class path only
+    private volatile Entry[] table;
+    private URLClassLoader current; // loader of the live plugin jars
+    private URLClassLoader retired; // previous loader, kept open for calls still running on it
+    private String fingerprint = "";
+    private ScheduledExecutorService watcher;
+
+    public OperationRegistry(ServerLogger logger, ServerMetrics metrics) {
+        this(logger, metrics, null);
+    }
+
+    public OperationRegistry(ServerLogger logger, ServerMetrics metrics, Path pluginDir) {
+        this.logger = logger;
+        this.metrics = metrics;
+        this.pluginDir = pluginDir;
+        reload();
+    }
+
+    public Path getPluginDir() {
+        return pluginDir;
+    }
+
+    /** The entry for {@code code}, or null. */
+    public Entry lookup(int code) {
+        Entry[] t = table;
+        return code >= 0 && code < t.length ? t[code] : null;
+    }
+
+    /** Every loaded operation in opcode order. */
+    public List<OperationInfo> catalog() {
+        List<OperationInfo> list = new ArrayList<>();
+        for (Entry e : table) {
+            if (e != null) list.add(e.info);
+        }
+        return list;
+    }
+
+    /** Rebuilds the table from the class path and the plugin directory; returns the plugin op count. */
+    public synchronized int reload() {
+        Entry[] next = new Entry[OperationService.LAST_PLUGIN_CODE + 1];
+        Set<String> names = new HashSet<>();
+        for (OpCode op : OpCode.values()) {
+            next[op.code()] = new Entry(new OperationInfo(op.code(), op.opName(), op.arity(), Capability.of(op)), null, null);
+            names.add(op.opName());
+        }
+        ClassLoader parent = OperationRegistry.class.getClassLoader();
+        int loaded = load(ServiceLoader.load(Operation.class, parent), null, next, names);
+        String scanned = pluginDir == null ? "" : fingerprint(pluginDir);
+        URLClassLoader loader = null;
+        List<URL> jars = pluginDir == null ? List.of() : jars(pluginDir);
+        if (!jars.isEmpty()) {
+            loader = new URLClassLoader(jars.toArray(new URL[0]), parent);
+            loaded += load(ServiceLoader.load(Operation.class, loader), loader, next, names);
+        }
+        table = next;
+        closeQuietly(retired);
+        retired = current;
+        current = loader;
+        fingerprint = scanned;
+        logger.info("Operations: " + loaded + " loaded beyond the built-ins"
+                + (jars.isEmpty() ? "" : " (" + jars.size() + " plugin jar(s))"));
+        return loaded;
+    }
+
+    /** Rescans the plugin directory every {@code scanMillis} and reloads when its jars change. */
+    public synchronized void watch(long scanMillis) {
+        if (pluginDir == null || watcher != null) return;
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ops-watch");
+            t.setDaemon(true);
+            return t;
+        });
+        watcher.scheduleWithFixedDelay(this::rescan, scanMillis, scanMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void rescan() {
+        try {
+            String scanned = fingerprint(pluginDir);
+            synchronized (this) {
+                if (scanned.equals(fingerprint)) return;
+            }
+            logger.info("Plugin directory " + pluginDir + " changed, reloading operations");
+            reload();
+        } catch (RuntimeException | LinkageError ex) {
+            logger.error("Operation reload failed", ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (watcher != null) watcher.shutdownNow();
+        watcher = null;
+        closeQuietly(retired);
+        closeQuietly(current);
+        retired = null;
+        current = null;
+    }
+
+    /**
+     * Adds the providers of {@code services} to {@code table}. With a plugin {@code loader}, only
+     * classes it defined count: the parent's providers are visible through it as well.
+     */
+    private int load(ServiceLoader<Operation> services, ClassLoader loader, Entry[] table, Set<String> names) {
+        int loaded = 0;
+        int failures = 0;
+        Iterator<Operation> it = services.iterator();
+        while (failures < MAX_PROVIDER_FAILURES) {
+            try {
+                if (!it.hasNext()) break;
+                Operation op = it.next();
+                if (loader != null && op.getClass().getClassLoader() != loader) continue;
+                String problem = validate(op, table, names);
+                if (problem != null) {
+                    logger.error("Skipping operation " + op.getClass().getName() + ": " + problem);
+                    continue;
+                }
+                OperationInfo info = new OperationInfo(op.code(), op.name(), op.arity(), op.capability());
+                table[op.code()] = new Entry(info, op, metrics.op(op.name()));
+                names.add(op.name());
+                loaded++;
+            } catch (ServiceConfigurationError | LinkageError | RuntimeException ex) {
+                failures++;
+                logger.error("Skipping operation provider: " + ex);
+            }
+        }
+        return loaded;
+    }
+
+    private static String validate(Operation op, Entry[] table, Set<String> names) {
+        int code = op.code();
+        if (code < OperationService.FIRST_PLUGIN_CODE || code > OperationService.LAST_PLUGIN_CODE) {
+            return "code " + code + " outside " + OperationService.FIRST_PLUGIN_CODE + ".."
+                    + OperationService.LAST_PLUGIN_CODE;
+        }
+        if (table[code] != null) return "code " + code + " already used by " + table[code].info.getName();
+        String name = op.name();
+        if (name == null || !name.matches("[a-z][a-z0-9_]*")) return "invalid name '" + name + "'";
+        if (names.contains(name)) return "name '" + name + "' already used";
+        if (op.arity() < 1 || op.arity() > MAX_ARITY) return "arity " + op.arity() + " outside 1.." + MAX_ARITY;
+        if (op.capability() == null) return "no capability";
+        return null;
+    }
+
+    private static List<URL> jars(Path dir) {
+        List<URL> urls = new ArrayList<>();
+        for (Path p : listJars(dir)) {
+            try {
+                urls.add(p.toUri().toURL());
+            } catch (MalformedURLException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return urls;
+    }
+
+    /** Names, sizes and modification times of the jars: any change means a reload. */
+    private static String fingerprint(Path dir) {
+        StringBuilder sb = new StringBuilder();
+        for (Path p : listJars(dir)) {
+            try {
+                sb.append(p.getFileName()).append(':').append(Files.size(p)).append(':')
+                        .append(Files.getLastModifiedTime(p).toMillis()).append(';');
+            } catch (IOException ex) {
+                sb.append(p.getFileName()).append(":?;"); // being replaced; the next scan sees it settled
+            }
+        }
+        return sb.toString();
+    }
+
+    private static List<Path> listJars(Path dir) {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".jar")).sorted().toList();
+        } catch (IOException ex) {
+            return List.of();
+        }
+    }
+
+    private void closeQuietly(URLClassLoader loader) {
+        if (loader == null) return;
+        try {
+            loader.close();
+        } catch (IOException ex) {
+            logger.error("Cannot close plugin class loader", ex);
+        }
+    }
+}
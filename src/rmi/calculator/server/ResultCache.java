@@ -0,0 +1,203 @@
+package rmi.calculator.server;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded memo table for pure operations, keyed on (opcode, raw bits of a, raw bits of b).
+ *
+ * <p>Entries live in parallel primitive arrays with linear probing over a short window, so a
+ * lookup allocates nothing. The table is split into independently locked segments to keep
+ * contention low between RMI threads. When a probe window is full a victim is chosen by the
+ * configured {@link Eviction} policy.
+ */
+public final class ResultCache {
+    /** Returned by {@link #getBits} on a miss; a signalling-NaN pattern that is never stored. */
+    public static final long MISS = 0x7ff0_dead_0000_0001L;
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final int PROBE_WINDOW = 8;
+
+    public enum Eviction {
+        /** Replace the entry in the home slot of the new key. Cheapest, no bookkeeping. */
+        OVERWRITE,
+        /** Second-chance: skip recently read entries within the probe window. */
+        CLOCK
+    }
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final Eviction eviction;
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ResultCache(int capacity, Eviction eviction) {
+        int segCount = Math.min(16, Integer.highestOneBit(Math.max(1, capacity / 64)));
+        int perSegment = Math.max(PROBE_WINDOW, nextPowerOfTwo((capacity + segCount - 1) / segCount));
+        this.segments = new Segment[segCount];
+        for (int i = 0; i < segCount; i++) segments[i] = new Segment(perSegment);
+        this.segmentMask = segCount - 1;
+        this.eviction = eviction;
+        this.capacity = perSegment * segCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public Eviction getEviction() {
+        return eviction;
+    }
+
+    /** Raw bits of the cached result, or {@link #MISS}. */
+    public long getBits(int opcode, double a, double b) {
+        long aBits = Double.doubleToRawLongBits(a);
+        long bBits = Double.doubleToRawLongBits(b);
+        int h = hash(opcode, aBits, bBits);
+        long bits = segments[h & segmentMask].get(opcode, aBits, bBits, h >>> 4);
+        if (bits == MISS) misses.increment(); else hits.increment();
+        return bits;
+    }
+
+    public void put(int opcode, double a, double b, double result) {
+        long aBits = Double.doubleToRawLongBits(a);
+        long bBits = Double.doubleToRawLongBits(b);
+        int h = hash(opcode, aBits, bBits);
+        // doubleToLongBits canonicalizes NaN, so MISS can never be stored
+        if (segments[h & segmentMask].put(opcode, aBits, bBits, Double.doubleToLongBits(result), h >>> 4, eviction)) {
+            evictions.increment();
+        }
+    }
+
+    public void clear() {
+        for (Segment s : segments) s.clear();
+    }
+
+    public Stats stats() {
+        int size = 0;
+        for (Segment s : segments) size += s.size();
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size, capacity);
+    }
+
+    public void resetStats() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    private static int hash(int opcode, long aBits, long bBits) {
+        // Doubles often have all-zero low mantissa bits, so finish with a full 64-bit mix
+        long h = aBits ^ Long.rotateLeft(bBits, 29) ^ ((long) opcode << 56);
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int nextPowerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    public static final class Stats {
+        public final long hits;
+        public final long misses;
+        public final long evictions;
+        public final int size;
+        public final int capacity;
+
+        Stats(long hits, long misses, long evictions, int size, int capacity) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.capacity = capacity;
+        }
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.1f%% evictions=%d size=%d/%d",
+                    hits, misses, hitRate() * 100, evictions, size, capacity);
+        }
+    }
+
+    private static final class Segment {
+        private final int mask;
+        private final int[] ops;      // 0 marks an empty slot
+        private final long[] aKeys;
+        private final long[] bKeys;
+        private final long[] values;
+        private final boolean[] referenced;
+        private int size;
+
+        Segment(int slots) {
+            this.mask = slots - 1;
+            this.ops = new int[slots];
+            this.aKeys = new long[slots];
+            this.bKeys = new long[slots];
+            this.values = new long[slots];
+            this.referenced = new boolean[slots];
+        }
+
+        synchronized long get(int opcode, long aBits, long bBits, int h) {
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int idx = (h + i) & mask;
+                int op = ops[idx];
+                if (op == 0) return MISS;
+                if (op == opcode && aKeys[idx] == aBits && bKeys[idx] == bBits) {
+                    referenced[idx] = true;
+                    return values[idx];
+                }
+            }
+            return MISS;
+        }
+
+        /** Returns true when an existing entry had to be evicted. */
+        synchronized boolean put(int opcode, long aBits, long bBits, long value, int h, Eviction eviction) {
+            int victim = -1;
+            for (int i = 0; i < PROBE_WINDOW; i++) {
+                int idx = (h + i) & mask;
+                int op = ops[idx];
+                if (op == 0 || (op == opcode && aKeys[idx] == aBits && bKeys[idx] == bBits)) {
+                    if (op == 0) size++;
+                    store(idx, opcode, aBits, bBits, value);
+                    return false;
+                }
+                if (victim < 0 && eviction == Eviction.CLOCK) {
+                    if (referenced[idx]) referenced[idx] = false;
+                    else victim = idx;
+                }
+            }
+            if (victim < 0) victim = h & mask;
+            store(victim, opcode, aBits, bBits, value);
+            return true;
+        }
+
+        private void store(int idx, int opcode, long aBits, long bBits, long value) {
+            ops[idx] = opcode;
+            aKeys[idx] = aBits;
+            bKeys[idx] = bBits;
+            values[idx] = value;
+            referenced[idx] = false;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            java.util.Arrays.fill(ops, 0);
+            java.util.Arrays.fill(referenced, false);
+            size = 0;
+        }
+    }
+}
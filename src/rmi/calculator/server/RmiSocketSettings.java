@@ -0,0 +1,36 @@
+package rmi.calculator.server;
+
+import java.rmi.server.RMIClientSocketFactory;
+import java.rmi.server.RMIServerSocketFactory;
+
+/** Port and socket factories the service object is exported with; null factories mean RMI defaults. */
+public final class RmiSocketSettings {
+    public static final RmiSocketSettings DEFAULTS = new RmiSocketSettings(0, null, null);
+
+    private final int port;
+    private final RMIClientSocketFactory clientFactory;
+    private final RMIServerSocketFactory serverFactory;
+
+    public RmiSocketSettings(int port, RMIClientSocketFactory clientFactory, RMIServerSocketFactory serverFactory) {
+        this.port = port;
+        this.clientFactory = clientFactory;
+        this.serverFactory = serverFactory;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public RMIClientSocketFactory getClientFactory() {
+        return clientFactory;
+    }
+
+    public RMIServerSocketFactory getServerFactory() {
+        return serverFactory;
+    }
+
+    @Override
+    public String toString() {
+        return serverFactory == null ? "default sockets" : serverFactory + " / " + clientFactory;
+    }
+}
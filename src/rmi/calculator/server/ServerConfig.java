@@ -0,0 +1,303 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.Properties;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OtlpJsonExporter;
+import rmi.calculator.common.TunedClientSocketFactory;
+
+/**
+ * Server settings, resolved in order: built-in defaults, a properties file
+ * ({@code --config=path}), {@code calculator.*} system properties, then {@code --key=value}
+ * command-line arguments.
+ *
+ * <pre>
+ * port=5050
+ * binding=CalculatorService
+ * services=math,trig             # capabilities to offer; each is also bound as MathService / TrigService
+ * hostname=auto                  # advertised RMI hostname; "auto" resolves the local address once
+ * headless=false                 # true: serve without Swing and bind at startup
+ * autostart=false                # GUI only: start serving as soon as the console opens
+ * ready.file=                    # written once the service is bound
+ * rmi.maxConnectionThreads=0     # 0 keeps the RMI transport default
+ * rmi.threadKeepAliveMillis=0
+ * rmi.servicePort=0              # port the service object is exported on; 0 picks a free one
+ * rmi.socketBufferKB=0           # socket send/receive buffers on both ends; 0 keeps OS defaults
+ * rmi.backlog=0                  # accept backlog; 0 keeps the JDK default
+ * rmi.maxConnections=0           # open connections (= transport threads); more are refused; 0 is unlimited
+ * rmi.connectTimeoutMillis=0     # client connect timeout carried in the stub; 0 waits for the OS
+ * cache.size=4096                # memo entries for pow/sqrt/sin/cos/tan; 0 disables the cache
+ * cache.eviction=CLOCK           # CLOCK or OVERWRITE
+ * session.max=4096               # concurrently open sessions
+ * session.idleTimeoutSeconds=1800 # sessions unused this long expire
+ * functions.max=1024             # registered user functions held at once
+ * functions.idleTimeoutSeconds=1800 # functions not tabulated this long expire
+ * admission.maxConcurrent=0      # calls running at once; 0 admits everything
+ * admission.maxQueue=256         # calls waiting for a slot, served fairly across clients
+ * admission.queueTimeoutMillis=1000 # waiting longer than this is rejected as busy
+ * admission.clientRate=0         # calls/s per client; 0 disables rate limiting
+ * admission.clientBurst=0        # calls above the rate a client may burst; 0 means one second's worth
+ * journal.dir=                   # durable binary journal of every calculation; empty disables it
+ * journal.segmentMB=64           # size of each memory-mapped journal segment
+ * journal.syncMillis=100         # group commit interval: journal pages are forced to disk this often
+ * bulk.dir=                      # directory bulk jobs read and write; empty disables BulkJobService
+ * bulk.threads=2                 # bulk jobs running at once
+ * binary.port=0                  # pipelined binary protocol port (clients default to 5060); 0 disables it
+ * binary.execution=inline        # where binary requests run: inline, pool:N or virtual (Java 21+)
+ * ops.dir=                       # plugin jars with extra operations; empty loads the class path only
+ * ops.scanMillis=2000            # how often ops.dir is checked for added, replaced or removed jars
+ * trace.file=                    # OTLP/JSON file for the spans of calls clients sampled; empty keeps them in the replies only
+ * drain.timeoutMillis=5000       # stop and swap wait this long for running calls before cutting them off
+ * </pre>
+ */
+public class ServerConfig {
+    private static volatile String resolvedLocalAddress;
+
+    private final Properties props;
+    private final String[] args;
+
+    private ServerConfig(Properties props, String[] args) {
+        this.props = props;
+        this.args = args;
+    }
+
+    public static ServerConfig load(String[] args) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("port", "5050");
+        props.setProperty("binding", "CalculatorService");
+        props.setProperty("hostname", "auto");
+        props.setProperty("headless", "false");
+        props.setProperty("autostart", "false");
+
+        Properties cli = new Properties();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Unrecognized argument: " + arg);
+            int eq = arg.indexOf('=');
+            if (eq < 0) cli.setProperty(arg.substring(2), "true");
+            else cli.setProperty(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        String file = cli.getProperty("config", System.getProperty("calculator.config"));
+        if (file != null) {
+            try (InputStream in = Files.newInputStream(Paths.get(file))) {
+                props.load(in);
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("calculator.")) {
+                props.setProperty(name.substring("calculator.".length()), System.getProperty(name));
+            }
+        }
+        props.putAll(cli);
+        return new ServerConfig(props, args.clone());
+    }
+
+    public static ServerConfig defaults() {
+        try {
+            return load(new String[0]);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Resolves the same arguments again, picking up edits to the config file and system properties. */
+    public ServerConfig reload() throws IOException {
+        return load(args);
+    }
+
+    public String get(String key, String def) {
+        return props.getProperty(key, def);
+    }
+
+    public int getInt(String key, int def) {
+        String v = props.getProperty(key);
+        if (v == null || v.trim().isEmpty()) return def;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid integer for '" + key + "': " + v);
+        }
+    }
+
+    public double getDouble(String key, double def) {
+        String v = props.getProperty(key);
+        if (v == null || v.trim().isEmpty()) return def;
+        try {
+            return Double.parseDouble(v.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number for '" + key + "': " + v);
+        }
+    }
+
+    public boolean getBoolean(String key, boolean def) {
+        String v = props.getProperty(key);
+        return v == null ? def : Boolean.parseBoolean(v.trim());
+    }
+
+    public int getPort() {
+        return getInt("port", 5050);
+    }
+
+    public String getBindingName() {
+        return get("binding", "CalculatorService");
+    }
+
+    public EnumSet<Capability> getCapabilities() {
+        EnumSet<Capability> caps = EnumSet.noneOf(Capability.class);
+        for (String name : get("services", "math,trig").split(",")) {
+            if (name.trim().isEmpty()) continue;
+            try {
+                caps.add(Capability.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unknown service '" + name.trim() + "', expected math or trig");
+            }
+        }
+        if (caps.isEmpty()) throw new IllegalArgumentException("services must name at least one of math, trig");
+        return caps;
+    }
+
+    public boolean isHeadless() {
+        return getBoolean("headless", false);
+    }
+
+    public boolean isAutostart() {
+        return getBoolean("autostart", false);
+    }
+
+    public SessionRegistry createSessionRegistry() {
+        return new SessionRegistry(getInt("session.max", SessionRegistry.DEFAULT_MAX_SESSIONS),
+                getInt("session.idleTimeoutSeconds", (int) (SessionRegistry.DEFAULT_IDLE_TIMEOUT_MILLIS / 1000)) * 1000L);
+    }
+
+    public FunctionRegistry createFunctionRegistry() {
+        return new FunctionRegistry(getInt("functions.max", FunctionRegistry.DEFAULT_MAX_FUNCTIONS),
+                getInt("functions.idleTimeoutSeconds", (int) (FunctionRegistry.DEFAULT_IDLE_TIMEOUT_MILLIS / 1000)) * 1000L);
+    }
+
+    public AdmissionController createAdmissionController() {
+        double rate = getDouble("admission.clientRate", 0);
+        int burst = getInt("admission.clientBurst", 0);
+        if (burst <= 0) burst = (int) Math.max(1, Math.ceil(rate));
+        return new AdmissionController(getInt("admission.maxConcurrent", 0), getInt("admission.maxQueue", 256),
+                getInt("admission.queueTimeoutMillis", 1000), rate, burst);
+    }
+
+    /** Opens the journal under {@code journal.dir}, or returns null when it is disabled. */
+    public CalculationJournal createJournal(ServerLogger logger) throws IOException {
+        String dir = get("journal.dir", "").trim();
+        if (dir.isEmpty()) return null;
+        long segmentMB = getInt("journal.segmentMB", (int) (CalculationJournal.DEFAULT_SEGMENT_BYTES >> 20));
+        return new CalculationJournal(Paths.get(dir), segmentMB << 20,
+                getInt("journal.syncMillis", (int) CalculationJournal.DEFAULT_SYNC_MILLIS), logger);
+    }
+
+    /** Loads operations from the class path and {@code ops.dir}, which is then watched for changes. */
+    public OperationRegistry createOperationRegistry(ServerLogger logger, ServerMetrics metrics) {
+        String dir = get("ops.dir", "").trim();
+        if (dir.isEmpty()) return new OperationRegistry(logger, metrics);
+        OperationRegistry registry = new OperationRegistry(logger, metrics, Paths.get(dir));
+        registry.watch(getInt("ops.scanMillis", (int) OperationRegistry.DEFAULT_SCAN_MILLIS));
+        return registry;
+    }
+
+    /** Exporter for server spans, or null when {@code trace.file} is unset. */
+    public OtlpJsonExporter createTraceExporter() throws IOException {
+        String file = get("trace.file", "").trim();
+        return file.isEmpty() ? null : new OtlpJsonExporter(Paths.get(file), "calculator-server");
+    }
+
+    /** Root of all bulk job paths, or null when bulk jobs are disabled. */
+    public Path getBulkDir() {
+        String dir = get("bulk.dir", "").trim();
+        return dir.isEmpty() ? null : Paths.get(dir);
+    }
+
+    public int getBulkThreads() {
+        return getInt("bulk.threads", 2);
+    }
+
+    /** Port of the optional {@link BinaryProtocolServer}, or 0 when it is disabled. */
+    public int getBinaryPort() {
+        return getInt("binary.port", 0);
+    }
+
+    /** How long a stopping or swapped-out service waits for its running calls. */
+    public long getDrainMillis() {
+        return getInt("drain.timeoutMillis", 5000);
+    }
+
+    public ExecutionPolicy getBinaryExecution() {
+        return ExecutionPolicy.parse(get("binary.execution", "inline"));
+    }
+
+    /**
+     * Socket factories for the registry and the service export. Any {@code rmi.*} socket
+     * setting switches to the tuned factories; with none set, RMI's defaults are kept.
+     */
+    public RmiSocketSettings createRmiSocketSettings() {
+        int port = getInt("rmi.servicePort", 0);
+        int buffer = getInt("rmi.socketBufferKB", 0) * 1024;
+        int backlog = getInt("rmi.backlog", 0);
+        int maxConnections = getInt("rmi.maxConnections", 0);
+        int connectTimeout = getInt("rmi.connectTimeoutMillis", 0);
+        if (buffer <= 0 && backlog <= 0 && maxConnections <= 0 && connectTimeout <= 0) {
+            return new RmiSocketSettings(port, null, null);
+        }
+        return new RmiSocketSettings(port, new TunedClientSocketFactory(buffer, connectTimeout),
+                new TunedServerSocketFactory(backlog, buffer, maxConnections));
+    }
+
+    public Path getReadyFile() {
+        String f = get("ready.file", "");
+        return f.isEmpty() ? null : Paths.get(f);
+    }
+
+    /** Builds the memo cache described by {@code cache.*}, or null when disabled. */
+    public ResultCache createResultCache() {
+        int size = getInt("cache.size", ResultCache.DEFAULT_CAPACITY);
+        if (size <= 0) return null;
+        String eviction = get("cache.eviction", ResultCache.Eviction.CLOCK.name()).trim().toUpperCase();
+        try {
+            return new ResultCache(size, ResultCache.Eviction.valueOf(eviction));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cache.eviction: " + eviction);
+        }
+    }
+
+    /**
+     * Hostname to advertise in exported stubs. An explicit value or an existing
+     * {@code java.rmi.server.hostname} is used as-is; "auto" resolves the local address only
+     * once per JVM so restarts do not pay for a DNS lookup again.
+     */
+    public String resolveHostname() throws UnknownHostException {
+        String configured = get("hostname", "auto");
+        if (!"auto".equals(configured)) return configured;
+        String existing = System.getProperty("java.rmi.server.hostname");
+        if (existing != null) return existing;
+        String local = resolvedLocalAddress;
+        if (local == null) {
+            local = InetAddress.getLocalHost().getHostAddress();
+            resolvedLocalAddress = local;
+        }
+        return local;
+    }
+
+    /** Transport thread settings must be set before the first export initializes RMI. */
+    public void applyTransportProperties() {
+        int maxThreads = getInt("rmi.maxConnectionThreads", 0);
+        if (maxThreads > 0) {
+            System.setProperty("sun.rmi.transport.tcp.maxConnectionThreads", Integer.toString(maxThreads));
+        }
+        int keepAlive = getInt("rmi.threadKeepAliveMillis", 0);
+        if (keepAlive > 0) {
+            System.setProperty("sun.rmi.transport.tcp.threadKeepAliveTime", Integer.toString(keepAlive));
+        }
+    }
+}
@@ -1,38 +1,73 @@
 package rmi.calculator.server;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import javax.swing.*;
+import rmi.calculator.common.AsyncLogBuffer;
+import rmi.calculator.common.LogLevel;
+import rmi.calculator.common.TextAreaAppender;
 
 public class ServerLogger {
-    private final JTextArea logArea;
-    private final SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    private final AsyncLogBuffer buffer;
 
     public ServerLogger(JTextArea logArea) {
-        this.logArea = logArea;
+        this(new TextAreaAppender(logArea, TextAreaAppender.DEFAULT_MAX_LINES));
+    }
+
+    public ServerLogger(AsyncLogBuffer.Appender appender) {
+        this.buffer = new AsyncLogBuffer("server-log", AsyncLogBuffer.DEFAULT_CAPACITY, appender);
+    }
+
+    /** Hot-path guard; when false the caller should skip request/result logging entirely. */
+    public boolean isInfoEnabled() {
+        return buffer.isInfoEnabled();
+    }
+
+    public void setLevel(LogLevel level) {
+        buffer.setLevel(level);
+    }
+
+    public LogLevel getLevel() {
+        return buffer.getLevel();
+    }
+
+    public void setSampleRate(int rate) {
+        buffer.setSampleRate(rate);
+    }
+
+    public int getSampleRate() {
+        return buffer.getSampleRate();
+    }
+
+    public long droppedCount() {
+        return buffer.droppedCount();
     }
 
     public void info(String message) {
-        append("INFO", message);
+        if (buffer.getLevel() == LogLevel.INFO) buffer.message(LogLevel.INFO, null, message);
+    }
+
+    public void request(String clientId, String op, double a) {
+        buffer.request(clientId, op, a);
+    }
+
+    public void request(String clientId, String op, double a, double b) {
+        buffer.request(clientId, op, a, b);
+    }
+
+    public void result(String clientId, double result) {
+        buffer.result(clientId, result);
     }
 
     public void error(String message) {
-        append("ERROR", message);
+        if (buffer.isErrorEnabled()) buffer.message(LogLevel.ERROR, null, message);
     }
 
     public void error(String message, Throwable t) {
-        append("ERROR", message + " | " + t.getClass().getSimpleName() + ": " + t.getMessage());
+        if (buffer.isErrorEnabled()) {
+            buffer.message(LogLevel.ERROR, null, message + " | " + t.getClass().getSimpleName() + ": " + t.getMessage());
+        }
     }
 
-    private void append(String level, String message) {
-        final String ts = sdf.format(new Date());
-        final String line = String.format("[%s] [%s] %s\n", ts, level, message);
-        if (SwingUtilities.isEventDispatchThread()) {
-            logArea.append(line);
-        } else {
-            SwingUtilities.invokeLater(() -> logArea.append(line));
-        }
+    public void close() {
+        buffer.close();
     }
 }
-
-
@@ -0,0 +1,124 @@
+package rmi.calculator.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation and per-client counters plus latency histograms. Callers resolve an
+ * {@link OpMetrics} handle once and record into it on the hot path; everything is
+ * {@link LongAdder} or atomic, so recording never takes a lock.
+ */
+public class ServerMetrics {
+    /** Distinct client ids tracked individually; further clients are counted as "(other)". */
+    static final int MAX_TRACKED_CLIENTS = 10_000;
+    private static final String OTHER_CLIENTS = "(other)";
+
+    private final ConcurrentHashMap<String, OpMetrics> ops = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> clients = new ConcurrentHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public OpMetrics op(String name) {
+        return ops.computeIfAbsent(name, OpMetrics::new);
+    }
+
+    /** Existing metrics for {@code name}, or null; unlike {@link #op} this never registers. */
+    public OpMetrics find(String name) {
+        return ops.get(name);
+    }
+
+    public void countClient(String clientId) {
+        clientCounter(clientId).increment();
+    }
+
+    /** The counter {@link #countClient} increments; holders such as sessions resolve it once. */
+    public LongAdder clientCounter(String clientId) {
+        if (clientId == null) clientId = "(anonymous)";
+        LongAdder counter = clients.get(clientId);
+        if (counter == null) {
+            String key = clients.size() < MAX_TRACKED_CLIENTS ? clientId : OTHER_CLIENTS;
+            counter = clients.computeIfAbsent(key, k -> new LongAdder());
+        }
+        return counter;
+    }
+
+    public List<OpMetrics> operations() {
+        return new ArrayList<>(new TreeMap<>(ops).values());
+    }
+
+    public Map<String, Long> clientCounts() {
+        Map<String, Long> out = new TreeMap<>();
+        clients.forEach((k, v) -> out.put(k, v.sum()));
+        return out;
+    }
+
+    public long totalRequests() {
+        long n = 0;
+        for (OpMetrics m : ops.values()) n += m.count();
+        return n;
+    }
+
+    public long totalErrors() {
+        long n = 0;
+        for (OpMetrics m : ops.values()) n += m.errors();
+        return n;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public void reset() {
+        ops.values().forEach(OpMetrics::reset);
+        clients.values().forEach(LongAdder::reset); // in place: sessions hold on to their counter
+    }
+
+    public static final class OpMetrics {
+        private final String name;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        OpMetrics(String name) {
+            this.name = name;
+        }
+
+        public void record(long nanos, boolean error) {
+            count.increment();
+            if (error) errors.increment();
+            latency.record(nanos);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public long errors() {
+            return errors.sum();
+        }
+
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        void reset() {
+            count.reset();
+            errors.reset();
+            latency.reset();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s count=%d errors=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                    name, count(), errors(), latency.percentile(50) / 1000.0, latency.percentile(99) / 1000.0,
+                    latency.percentile(99.9) / 1000.0, latency.max() / 1000.0);
+        }
+    }
+}
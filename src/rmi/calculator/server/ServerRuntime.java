@@ -0,0 +1,328 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.net.UnknownHostException;
+import java.nio.file.Path;
+import java.rmi.AlreadyBoundException;
+import java.rmi.NotBoundException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.RemoteObject;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.EnumSet;
+import javax.management.JMException;
+import rmi.calculator.common.BulkJobService;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OtlpJsonExporter;
+
+/**
+ * Owns the registry and the exported {@link CalculatorServiceImpl}. Used directly by the
+ * headless daemon and driven by the buttons of {@link ServerUI}.
+ */
+public class ServerRuntime {
+    private final ServerConfig config;
+    private final ServerLogger logger;
+    private final ResultCache cache; // server-wide, survives restarts
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final CalculatorStats stats;
+    private final AdmissionController admission; // server-wide, tunable over JMX
+    private final CalculationJournal journal; // null when journal.dir is unset
+    private final RmiSocketSettings sockets;
+    private final ExecutionPolicy binaryExecution;
+    private final OperationRegistry operations; // server-wide, survives restarts
+    private final OtlpJsonExporter traces; // null when trace.file is unset
+    private final FunctionRegistry functions; // server-wide, survives restarts and swaps
+
+    private CalculatorServiceImpl serviceImpl;
+    private Registry registry;
+    private BinaryProtocolServer binaryServer;
+    private BulkJobServiceImpl bulkService;
+    private EnumSet<Capability> swappedCapabilities; // adopted by the last successful swap, kept for restarts
+
+    public ServerRuntime(ServerConfig config, ServerLogger logger) {
+        this.config = config;
+        this.logger = logger;
+        this.cache = config.createResultCache();
+        this.sockets = config.createRmiSocketSettings();
+        this.binaryExecution = config.getBinaryExecution();
+        this.operations = config.createOperationRegistry(logger, metrics);
+        this.functions = config.createFunctionRegistry();
+        this.stats = new CalculatorStats(metrics, cache);
+        try {
+            stats.register(config.getBindingName());
+        } catch (JMException ex) {
+            logger.error("Cannot register JMX stats MBean", ex);
+        }
+        this.admission = config.createAdmissionController();
+        try {
+            admission.register(config.getBindingName());
+        } catch (JMException ex) {
+            logger.error("Cannot register JMX admission MBean", ex);
+        }
+        CalculationJournal j = null;
+        try {
+            j = config.createJournal(logger);
+        } catch (IOException ex) {
+            logger.error("Journal disabled", ex);
+        }
+        this.journal = j;
+        OtlpJsonExporter t = null;
+        try {
+            t = config.createTraceExporter();
+        } catch (IOException ex) {
+            logger.error("Trace export disabled", ex);
+        }
+        this.traces = t;
+    }
+
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CalculatorStats getStats() {
+        return stats;
+    }
+
+    public AdmissionController getAdmission() {
+        return admission;
+    }
+
+    public OperationRegistry getOperations() {
+        return operations;
+    }
+
+    /** The shared memo cache, or null when {@code cache.size=0}. */
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    public ServerConfig getConfig() {
+        return config;
+    }
+
+    public ServerLogger getLogger() {
+        return logger;
+    }
+
+    public synchronized boolean isRunning() {
+        return serviceImpl != null;
+    }
+
+    public synchronized CalculatorServiceImpl getService() {
+        return serviceImpl;
+    }
+
+    public synchronized void start() throws RemoteException, AlreadyBoundException, UnknownHostException {
+        if (serviceImpl != null) return;
+        long t0 = System.nanoTime();
+        // Ensure exported stub advertises a reachable address
+        System.setProperty("java.rmi.server.hostname", config.resolveHostname());
+        ensureRegistry();
+        EnumSet<Capability> capabilities = swappedCapabilities != null ? swappedCapabilities : config.getCapabilities();
+        CalculatorServiceImpl impl = new CalculatorServiceImpl(settings(capabilities, config.createSessionRegistry()));
+        try {
+            registry.bind(config.getBindingName(), impl);
+            // Marker bindings let clients discover capabilities with a registry listing
+            for (Capability c : capabilities) registry.rebind(c.bindingName(), impl);
+        } catch (AlreadyBoundException | RemoteException ex) {
+            unbindAll(impl);
+            UnicastRemoteObject.unexportObject(impl, true);
+            throw ex;
+        }
+        serviceImpl = impl;
+        startBulkService(capabilities);
+        startBinaryServer(impl);
+        if (journal != null) logger.info("Journaling to " + journal.getDirectory().toAbsolutePath());
+        if (traces != null) logger.info("Exporting sampled call spans to " + traces.getFile().toAbsolutePath());
+        long millis = (System.nanoTime() - t0) / 1_000_000;
+        logger.info("Server started and bound as '" + config.getBindingName() + "' on port " + config.getPort()
+                + " offering " + capabilities + " (hostname=" + System.getProperty("java.rmi.server.hostname")
+                + ", " + sockets + ", ready in " + millis + " ms)");
+    }
+
+    /**
+     * Unbinds first so no new client finds the service, lets running calls finish for up to
+     * {@code drain.timeoutMillis}, and only then unexports, cutting off whatever is left.
+     */
+    public synchronized void stop() {
+        if (serviceImpl == null) return;
+        try {
+            unbindAll(serviceImpl);
+        } catch (RemoteException ex) {
+            logger.error("Error during server stop", ex);
+        }
+        drain(serviceImpl);
+        if (binaryServer != null) {
+            binaryServer.close();
+            binaryServer = null;
+        }
+        stopBulkService();
+        try {
+            UnicastRemoteObject.unexportObject(serviceImpl, true);
+        } catch (RemoteException ex) {
+            logger.error("Error during server stop", ex);
+        }
+        serviceImpl = null;
+        if (cache != null) logger.info("Result cache: " + cache.stats());
+        if (journal != null) journal.sync();
+        logger.info("Server stopped");
+    }
+
+    /**
+     * Replaces the running service without a gap: a new instance, offering the capabilities of
+     * the re-read configuration, is exported and rebound over the old names, and the binary
+     * front end switches to it. Sessions and registered functions carry over. The old instance
+     * then drains and is unexported in the background; its callers are redirected by
+     * {@link ServiceDrainingException}.
+     */
+    public synchronized void swap() throws RemoteException {
+        CalculatorServiceImpl old = serviceImpl;
+        if (old == null) return;
+        EnumSet<Capability> capabilities = EnumSet.copyOf(old.getCapabilities());
+        try {
+            // Read into a local: nothing is adopted unless the new instance gets bound
+            capabilities = config.reload().getCapabilities();
+        } catch (IOException | IllegalArgumentException ex) {
+            logger.error("Cannot re-read configuration, keeping " + capabilities, ex);
+        }
+        CalculatorServiceImpl impl = new CalculatorServiceImpl(settings(capabilities, old.getSessions()));
+        try {
+            registry.rebind(config.getBindingName(), impl);
+            for (Capability c : capabilities) registry.rebind(c.bindingName(), impl);
+            for (Capability c : EnumSet.complementOf(capabilities)) {
+                try {
+                    if (isBound(c.bindingName(), old)) registry.unbind(c.bindingName());
+                } catch (NotBoundException ignored) {
+                }
+            }
+        } catch (RemoteException ex) {
+            // Put the old instance back under its name and every marker it offered
+            try {
+                unbindAll(impl);
+                registry.rebind(config.getBindingName(), old);
+                for (Capability c : old.getCapabilities()) registry.rebind(c.bindingName(), old);
+            } catch (RemoteException restore) {
+                ex.addSuppressed(restore);
+            }
+            UnicastRemoteObject.unexportObject(impl, true);
+            throw ex;
+        }
+        serviceImpl = impl;
+        swappedCapabilities = capabilities;
+        if (binaryServer != null) binaryServer.setService(impl);
+        Thread retire = new Thread(() -> {
+            drain(old);
+            try {
+                UnicastRemoteObject.unexportObject(old, true);
+            } catch (RemoteException ex) {
+                logger.error("Cannot unexport replaced service", ex);
+            }
+        }, "service-drain");
+        retire.setDaemon(true);
+        retire.start();
+        logger.info("Service swapped, now offering " + capabilities);
+    }
+
+    /** Everything but the capabilities and sessions is server-wide and shared by every instance. */
+    private ServiceSettings settings(EnumSet<Capability> capabilities, SessionRegistry sessions) {
+        return new ServiceSettings(logger)
+                .cache(cache)
+                .metrics(metrics)
+                .capabilities(capabilities)
+                .sessions(sessions)
+                .admission(admission)
+                .journal(journal)
+                .sockets(sockets)
+                .operations(operations)
+                .traces(traces)
+                .functions(functions);
+    }
+
+    private void drain(CalculatorServiceImpl impl) {
+        long millis = config.getDrainMillis();
+        try {
+            int left = impl.drain(millis);
+            if (left > 0) logger.error("Cutting off " + left + " call(s) still running after " + millis + " ms");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void startBulkService(EnumSet<Capability> capabilities) {
+        Path dir = config.getBulkDir();
+        if (dir == null) return;
+        try {
+            BulkJobServiceImpl bulk = new BulkJobServiceImpl(dir, capabilities, logger, metrics, config.getBulkThreads());
+            registry.rebind(BulkJobService.BINDING_NAME, bulk);
+            bulkService = bulk;
+            logger.info("Bulk jobs enabled under " + dir.toAbsolutePath());
+        } catch (RemoteException ex) {
+            logger.error("Cannot bind " + BulkJobService.BINDING_NAME, ex);
+        }
+    }
+
+    private void stopBulkService() {
+        if (bulkService == null) return;
+        bulkService.close();
+        try {
+            if (isBound(BulkJobService.BINDING_NAME, bulkService)) registry.unbind(BulkJobService.BINDING_NAME);
+        } catch (NotBoundException | RemoteException ignored) {
+        }
+        try {
+            UnicastRemoteObject.unexportObject(bulkService, true);
+        } catch (RemoteException ignored) {
+        }
+        bulkService = null;
+    }
+
+    /** The binary front end is optional; failing to open it leaves the RMI binding serving. */
+    private void startBinaryServer(CalculatorServiceImpl impl) {
+        int port = config.getBinaryPort();
+        if (port <= 0) return;
+        BinaryProtocolServer server = new BinaryProtocolServer(port, impl, logger, binaryExecution);
+        try {
+            server.start();
+            binaryServer = server;
+        } catch (IOException ex) {
+            logger.error("Cannot open binary protocol port " + port, ex);
+        }
+    }
+
+    private void unbindAll(CalculatorServiceImpl owner) throws RemoteException {
+        // Another server sharing this registry may own a name; only remove our own bindings
+        String[] names = new String[Capability.values().length + 1];
+        names[0] = config.getBindingName();
+        for (Capability c : Capability.values()) names[c.ordinal() + 1] = c.bindingName();
+        for (String name : names) {
+            try {
+                if (isBound(name, owner)) registry.unbind(name);
+            } catch (NotBoundException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Whether {@code name} is bound to {@code owner}. A registry in another JVM hands back a stub,
+     * which never equals the exported object itself, so the comparison is by stub.
+     */
+    private boolean isBound(String name, Remote owner) throws RemoteException {
+        try {
+            Remote bound = registry.lookup(name);
+            return bound == owner || RemoteObject.toStub(owner).equals(bound);
+        } catch (NotBoundException ex) {
+            return false;
+        }
+    }
+
+    private void ensureRegistry() throws RemoteException {
+        if (registry != null) return;
+        try {
+            registry = LocateRegistry.getRegistry(config.getPort());
+            registry.list();
+        } catch (RemoteException ex) {
+            registry = LocateRegistry.createRegistry(config.getPort(), null, sockets.getServerFactory());
+        }
+    }
+}
@@ -4,28 +4,26 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.rmi.AlreadyBoundException;
-import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
-import java.rmi.server.UnicastRemoteObject;
 import javax.swing.*;
+import rmi.calculator.common.LogLevel;
 
 public class ServerUI extends JFrame {
     private final JTextArea logArea = new JTextArea();
     private final JButton startButton = new JButton("Start Server");
     private final JButton stopButton = new JButton("Stop Server");
+    private final JButton swapButton = new JButton("Swap Service");
+    private final JButton cacheButton = new JButton("Cache Stats");
+    private final JComboBox<LogLevel> levelBox = new JComboBox<>(LogLevel.values());
+    private final JSpinner sampleSpinner = new JSpinner(new SpinnerNumberModel(1, 1, 10000, 1));
 
+    private final ServerConfig config;
     private ServerLogger logger;
-    private CalculatorServiceImpl serviceImpl;
-    private Registry registry;
-    private final int port;
-    private final String bindingName;
+    private ServerRuntime runtime;
 
-    public ServerUI(int port, String bindingName) {
+    public ServerUI(ServerConfig config) {
         super("RMI Scientific Calculator - Server");
-        this.port = port;
-        this.bindingName = bindingName;
+        this.config = config;
         initUI();
         wireActions();
     }
@@ -36,21 +34,35 @@ public class ServerUI extends JFrame {
         setLocationRelativeTo(null);
 
         logArea.setEditable(false);
+        logger = new ServerLogger(logArea);
+        runtime = new ServerRuntime(config, logger);
         JScrollPane scrollPane = new JScrollPane(logArea);
 
         JPanel btnPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         btnPanel.add(startButton);
         btnPanel.add(stopButton);
         stopButton.setEnabled(false);
+        btnPanel.add(swapButton);
+        swapButton.setEnabled(false);
+        btnPanel.add(cacheButton);
+        btnPanel.add(new JLabel("Log level:"));
+        btnPanel.add(levelBox);
+        btnPanel.add(new JLabel("Log 1 of N:"));
+        btnPanel.add(sampleSpinner);
 
         getContentPane().setLayout(new BorderLayout());
         getContentPane().add(btnPanel, BorderLayout.NORTH);
-        getContentPane().add(scrollPane, BorderLayout.CENTER);
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("Log", scrollPane);
+        tabs.addTab("Stats", new StatsPanel(runtime.getMetrics(), runtime.getCache()));
+        tabs.addTab("Admission", new AdmissionPanel(runtime.getAdmission()));
+        getContentPane().add(tabs, BorderLayout.CENTER);
 
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowClosing(WindowEvent e) {
-                stopServer();
+                runtime.stop();
+                logger.close();
                 dispose();
                 System.exit(0);
             }
@@ -60,59 +72,54 @@ public class ServerUI extends JFrame {
     private void wireActions() {
         startButton.addActionListener(e -> startServer());
         stopButton.addActionListener(e -> stopServer());
+        swapButton.addActionListener(e -> swapService());
+        cacheButton.addActionListener(e -> logCacheStats());
+        levelBox.addActionListener(e -> logger.setLevel((LogLevel) levelBox.getSelectedItem()));
+        sampleSpinner.addChangeListener(e -> logger.setSampleRate((Integer) sampleSpinner.getValue()));
     }
 
-    private void startServer() {
+    void startServer() {
         try {
-            logger = new ServerLogger(logArea);
-            // Ensure exported stub advertises a reachable LAN IP
-            String serverIp = java.net.InetAddress.getLocalHost().getHostAddress();
-            System.setProperty("java.rmi.server.hostname", serverIp);
-            ensureRegistry();
-            serviceImpl = new CalculatorServiceImpl(logger);
-            registry.bind(bindingName, serviceImpl);
-            logger.info("Server started and bound as '" + bindingName + "' on port " + port + " (hostname=" + System.getProperty("java.rmi.server.hostname") + ")");
+            runtime.start();
             startButton.setEnabled(false);
             stopButton.setEnabled(true);
+            swapButton.setEnabled(true);
         } catch (AlreadyBoundException ex) {
-            if (logger == null) logger = new ServerLogger(logArea);
-            logger.error("Name already bound: " + bindingName, ex);
+            logger.error("Name already bound: " + config.getBindingName(), ex);
         } catch (RemoteException ex) {
-            if (logger == null) logger = new ServerLogger(logArea);
             logger.error("Failed to start server", ex);
         } catch (java.net.UnknownHostException ex) {
-            if (logger == null) logger = new ServerLogger(logArea);
             logger.error("Cannot resolve local host for RMI hostname", ex);
         }
     }
 
+    /** Draining can take up to {@code drain.timeoutMillis}, so it runs off the event thread. */
     private void stopServer() {
-        if (registry != null) {
+        stopButton.setEnabled(false);
+        swapButton.setEnabled(false);
+        Thread t = new Thread(() -> {
+            runtime.stop();
+            SwingUtilities.invokeLater(() -> startButton.setEnabled(true));
+        }, "server-stop");
+        t.start();
+    }
+
+    /** Registry calls can block on the network, so the swap runs off the event thread too. */
+    private void swapService() {
+        swapButton.setEnabled(false);
+        Thread t = new Thread(() -> {
             try {
-                if (serviceImpl != null) {
-                    try {
-                        registry.unbind(bindingName);
-                    } catch (NotBoundException ignored) {
-                    }
-                    UnicastRemoteObject.unexportObject(serviceImpl, true);
-                }
+                runtime.swap();
             } catch (RemoteException ex) {
-                if (logger != null) logger.error("Error during server stop", ex);
+                logger.error("Service swap failed, the old service keeps serving", ex);
             }
-        }
-        if (logger != null) logger.info("Server stopped");
-        startButton.setEnabled(true);
-        stopButton.setEnabled(false);
+            SwingUtilities.invokeLater(() -> swapButton.setEnabled(runtime.isRunning()));
+        }, "service-swap");
+        t.start();
     }
 
-    private void ensureRegistry() throws RemoteException {
-        try {
-            registry = LocateRegistry.getRegistry(port);
-            registry.list();
-        } catch (RemoteException ex) {
-            registry = LocateRegistry.createRegistry(port);
-        }
+    private void logCacheStats() {
+        ResultCache cache = runtime.getCache();
+        logger.info(cache == null ? "Result cache disabled" : "Result cache: " + cache.stats());
     }
 }
-
-
@@ -0,0 +1,132 @@
+package rmi.calculator.server;
+
+import java.util.EnumSet;
+import java.util.Set;
+import rmi.calculator.common.Capability;
+import rmi.calculator.common.OtlpJsonExporter;
+
+/**
+ * What a {@link CalculatorServiceImpl} is built from. Only the logger is required; anything not
+ * set gets a stand-alone default when the service is constructed: no result cache, fresh metrics
+ * and session, operation and function registries, every capability, no admission limit, no
+ * journal or trace export, and RMI's default sockets.
+ */
+public final class ServiceSettings {
+    private final ServerLogger logger;
+    private ResultCache cache;
+    private ServerMetrics metrics;
+    private Set<Capability> capabilities = EnumSet.allOf(Capability.class);
+    private SessionRegistry sessions;
+    private AdmissionController admission;
+    private CalculationJournal journal;
+    private RmiSocketSettings sockets = RmiSocketSettings.DEFAULTS;
+    private OperationRegistry operations;
+    private OtlpJsonExporter traces;
+    private FunctionRegistry functions;
+
+    public ServiceSettings(ServerLogger logger) {
+        if (logger == null) throw new IllegalArgumentException("logger must not be null");
+        this.logger = logger;
+    }
+
+    /** Null disables memoization. */
+    public ServiceSettings cache(ResultCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    public ServiceSettings metrics(ServerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public ServiceSettings capabilities(Set<Capability> capabilities) {
+        if (capabilities == null || capabilities.isEmpty()) throw new IllegalArgumentException("capabilities must not be empty");
+        this.capabilities = EnumSet.copyOf(capabilities);
+        return this;
+    }
+
+    /** Shared with a service being replaced, so its sessions carry over. */
+    public ServiceSettings sessions(SessionRegistry sessions) {
+        this.sessions = sessions;
+        return this;
+    }
+
+    public ServiceSettings admission(AdmissionController admission) {
+        this.admission = admission;
+        return this;
+    }
+
+    /** Null disables the journal. */
+    public ServiceSettings journal(CalculationJournal journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    public ServiceSettings sockets(RmiSocketSettings sockets) {
+        this.sockets = sockets == null ? RmiSocketSettings.DEFAULTS : sockets;
+        return this;
+    }
+
+    public ServiceSettings operations(OperationRegistry operations) {
+        this.operations = operations;
+        return this;
+    }
+
+    /** Null sends spans only back to the calling client. */
+    public ServiceSettings traces(OtlpJsonExporter traces) {
+        this.traces = traces;
+        return this;
+    }
+
+    public ServiceSettings functions(FunctionRegistry functions) {
+        this.functions = functions;
+        return this;
+    }
+
+    ServerLogger getLogger() {
+        return logger;
+    }
+
+    ResultCache getCache() {
+        return cache;
+    }
+
+    ServerMetrics getMetrics() {
+        return metrics != null ? metrics : new ServerMetrics();
+    }
+
+    Set<Capability> getCapabilities() {
+        return capabilities;
+    }
+
+    SessionRegistry getSessions() {
+        return sessions != null ? sessions
+                : new SessionRegistry(SessionRegistry.DEFAULT_MAX_SESSIONS, SessionRegistry.DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    AdmissionController getAdmission() {
+        return admission != null ? admission : AdmissionController.unlimited();
+    }
+
+    CalculationJournal getJournal() {
+        return journal;
+    }
+
+    RmiSocketSettings getSockets() {
+        return sockets;
+    }
+
+    /** The default registry reports into {@code metrics}, the service's resolved metrics. */
+    OperationRegistry getOperations(ServerMetrics metrics) {
+        return operations != null ? operations : new OperationRegistry(logger, metrics);
+    }
+
+    OtlpJsonExporter getTraces() {
+        return traces;
+    }
+
+    FunctionRegistry getFunctions() {
+        return functions != null ? functions : new FunctionRegistry();
+    }
+}
@@ -0,0 +1,132 @@
+package rmi.calculator.server;
+
+import java.rmi.RemoteException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import rmi.calculator.common.PrecisionMode;
+import rmi.calculator.common.SessionExpiredException;
+import rmi.calculator.common.SessionInfo;
+
+/**
+ * Fixed table of sessions. A handle is {@code generation << 32 | slot}: lookups are one array
+ * read plus a handle comparison, and the generation bump on reuse makes stale handles fail
+ * instead of reaching the slot's next owner. Idle sessions are expired lazily, when they are
+ * next looked up or when {@link #open} sweeps the table, so no background thread is needed.
+ */
+public class SessionRegistry {
+    public static final int DEFAULT_MAX_SESSIONS = 4096;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 30 * 60_000;
+
+    private final AtomicReferenceArray<Session> slots;
+    private final int[] generations;
+    private final int[] free;
+    private int freeCount;
+    private final long idleTimeoutMillis;
+    private long lastSweep = System.currentTimeMillis();
+
+    public SessionRegistry(int maxSessions, long idleTimeoutMillis) {
+        if (maxSessions < 1) throw new IllegalArgumentException("maxSessions must be >= 1");
+        this.slots = new AtomicReferenceArray<>(maxSessions);
+        this.generations = new int[maxSessions];
+        this.free = new int[maxSessions];
+        // Random starting generations keep a restarted server from honouring its predecessor's handles
+        for (int i = 0; i < maxSessions; i++) {
+            free[i] = maxSessions - 1 - i;
+            generations[i] = ThreadLocalRandom.current().nextInt();
+        }
+        this.freeCount = maxSessions;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public synchronized Session open(String clientId, LongAdder clientCounter) throws RemoteException {
+        long now = System.currentTimeMillis();
+        if (freeCount == 0 || now - lastSweep > idleTimeoutMillis / 4) sweep(now);
+        if (freeCount == 0) throw new RemoteException("Too many open sessions (" + slots.length() + ")");
+        int slot = free[--freeCount];
+        int gen = ++generations[slot];
+        if (gen == 0) gen = generations[slot] = 1; // handle 0 is never issued
+        Session s = new Session(((long) gen << 32) | slot, clientId, clientCounter, now);
+        slots.set(slot, s);
+        return s;
+    }
+
+    public Session get(long handle) throws SessionExpiredException {
+        int slot = (int) handle;
+        Session s = slot >= 0 && slot < slots.length() ? slots.get(slot) : null;
+        if (s == null || s.handle != handle) throw new SessionExpiredException("Unknown or expired session");
+        long now = System.currentTimeMillis();
+        if (now - s.lastUsed > idleTimeoutMillis) {
+            remove(s);
+            throw new SessionExpiredException("Session expired after " + idleTimeoutMillis / 1000 + " s idle");
+        }
+        s.lastUsed = now;
+        return s;
+    }
+
+    public void close(long handle) {
+        int slot = (int) handle;
+        if (slot < 0 || slot >= slots.length()) return;
+        Session s = slots.get(slot);
+        if (s != null && s.handle == handle) remove(s);
+    }
+
+    public synchronized int size() {
+        return slots.length() - freeCount;
+    }
+
+    private synchronized void remove(Session s) {
+        int slot = (int) s.handle;
+        if (slots.compareAndSet(slot, s, null)) free[freeCount++] = slot;
+    }
+
+    private synchronized void sweep(long now) {
+        lastSweep = now;
+        for (int i = 0; i < slots.length(); i++) {
+            Session s = slots.get(i);
+            if (s != null && now - s.lastUsed > idleTimeoutMillis) remove(s);
+        }
+    }
+
+    /** Per-session identity, counters, precision and running accumulator. */
+    public static final class Session {
+        final long handle;
+        final String clientId;
+        final LongAdder clientCounter;
+        final long openedAt;
+        volatile long lastUsed;
+        final LongAdder calls = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        volatile PrecisionMode precision = PrecisionMode.STRICT;
+        private double accumulator;
+
+        Session(long handle, String clientId, LongAdder clientCounter, long now) {
+            this.handle = handle;
+            this.clientId = clientId;
+            this.clientCounter = clientCounter;
+            this.openedAt = now;
+            this.lastUsed = now;
+        }
+
+        public long getHandle() {
+            return handle;
+        }
+
+        public String getClientId() {
+            return clientId;
+        }
+
+        synchronized double getAccumulator() {
+            return accumulator;
+        }
+
+        synchronized void setAccumulator(double value) {
+            accumulator = value;
+        }
+
+        SessionInfo info() {
+            return new SessionInfo(handle, clientId, openedAt, lastUsed, calls.sum(), errors.sum(), getAccumulator(),
+                    precision);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package rmi.calculator.server;
+
+import rmi.calculator.common.Capability;
+
+/**
+ * Operations the server ships beyond {@link rmi.calculator.common.OpCode}. They are found through
+ * the same {@code META-INF/services} file a plugin jar would use, so they need no special casing.
+ */
+public final class StandardOperations {
+    private StandardOperations() {
+    }
+
+    private abstract static class Unary implements Operation {
+        private final int code;
+        private final String name;
+
+        Unary(int code, String name) {
+            this.code = code;
+            this.name = name;
+        }
+
+        @Override public int code() { return code; }
+        @Override public String name() { return name; }
+        @Override public int arity() { return 1; }
+
+        @Override
+        public double apply(double[] args) {
+            return apply(args[0]);
+        }
+
+        abstract double apply(double x);
+    }
+
+    public static final class Log extends Unary {
+        public Log() { super(64, "log"); }
+
+        @Override
+        double apply(double x) {
+            if (x <= 0) throw new ArithmeticException("log of a non-positive number");
+            return Math.log(x);
+        }
+    }
+
+    public static final class Log10 extends Unary {
+        public Log10() { super(65, "log10"); }
+
+        @Override
+        double apply(double x) {
+            if (x <= 0) throw new ArithmeticException("log10 of a non-positive number");
+            return Math.log10(x);
+        }
+    }
+
+    public static final class Exp extends Unary {
+        public Exp() { super(66, "exp"); }
+
+        @Override
+        double apply(double x) {
+            return Math.exp(x);
+        }
+    }
+
+    public static final class Asin extends Unary {
+        public Asin() { super(67, "asin"); }
+
+        @Override public Capability capability() { return Capability.TRIG; }
+
+        @Override
+        double apply(double x) {
+            if (x < -1 || x > 1) throw new ArithmeticException("asin argument outside [-1, 1]");
+            return Math.asin(x);
+        }
+    }
+
+    public static final class Acos extends Unary {
+        public Acos() { super(68, "acos"); }
+
+        @Override public Capability capability() { return Capability.TRIG; }
+
+        @Override
+        double apply(double x) {
+            if (x < -1 || x > 1) throw new ArithmeticException("acos argument outside [-1, 1]");
+            return Math.acos(x);
+        }
+    }
+
+    public static final class Atan extends Unary {
+        public Atan() { super(69, "atan"); }
+
+        @Override public Capability capability() { return Capability.TRIG; }
+
+        @Override
+        double apply(double x) {
+            return Math.atan(x);
+        }
+    }
+
+    /** atan2(y, x): the angle of the point (x, y). */
+    public static final class Atan2 implements Operation {
+        @Override public int code() { return 70; }
+        @Override public String name() { return "atan2"; }
+        @Override public int arity() { return 2; }
+        @Override public Capability capability() { return Capability.TRIG; }
+
+        @Override
+        public double apply(double[] args) {
+            return Math.atan2(args[0], args[1]);
+        }
+    }
+
+    public static final class Hypot implements Operation {
+        @Override public int code() { return 71; }
+        @Override public String name() { return "hypot"; }
+        @Override public int arity() { return 2; }
+
+        @Override
+        public double apply(double[] args) {
+            return Math.hypot(args[0], args[1]);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package rmi.calculator.server;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Map;
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+
+/** Live per-operation and per-client statistics, refreshed once a second while visible. */
+public class StatsPanel extends JPanel {
+    private static final String[] OP_COLUMNS = {"Operation", "Count", "Errors", "p50 (us)", "p99 (us)", "p999 (us)", "Max (us)"};
+    private static final String[] CLIENT_COLUMNS = {"Client", "Calls"};
+
+    private final ServerMetrics metrics;
+    private final ResultCache cache;
+    private final DefaultTableModel opModel = readOnlyModel(OP_COLUMNS);
+    private final DefaultTableModel clientModel = readOnlyModel(CLIENT_COLUMNS);
+    private final JLabel summary = new JLabel(" ");
+    private final Timer timer = new Timer(1000, e -> refresh());
+
+    public StatsPanel(ServerMetrics metrics, ResultCache cache) {
+        super(new BorderLayout(6, 6));
+        this.metrics = metrics;
+        this.cache = cache;
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(new JTable(opModel)), new JScrollPane(new JTable(clientModel)));
+        split.setResizeWeight(0.6);
+
+        JButton resetButton = new JButton("Reset");
+        resetButton.addActionListener(e -> {
+            metrics.reset();
+            if (cache != null) cache.resetStats();
+            refresh();
+        });
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(summary, BorderLayout.CENTER);
+        top.add(resetButton, BorderLayout.EAST);
+
+        add(top, BorderLayout.NORTH);
+        add(split, BorderLayout.CENTER);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        List<ServerMetrics.OpMetrics> ops = metrics.operations();
+        opModel.setRowCount(0);
+        for (ServerMetrics.OpMetrics m : ops) {
+            if (m.count() == 0) continue;
+            LatencyHistogram h = m.latency();
+            opModel.addRow(new Object[]{m.name(), m.count(), m.errors(), micros(h.percentile(50)),
+                    micros(h.percentile(99)), micros(h.percentile(99.9)), micros(h.max())});
+        }
+        clientModel.setRowCount(0);
+        for (Map.Entry<String, Long> e : metrics.clientCounts().entrySet()) {
+            clientModel.addRow(new Object[]{e.getKey(), e.getValue()});
+        }
+        summary.setText("Requests: " + metrics.totalRequests() + "   Errors: " + metrics.totalErrors()
+                + "   Cache: " + (cache == null ? "disabled" : cache.stats().toString()));
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1000.0);
+    }
+
+    private static DefaultTableModel readOnlyModel(String[] columns) {
+        return new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.rmi.server.RMIServerSocketFactory;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server half of a tuned RMI export: accept backlog, socket buffers and a cap on open
+ * connections. RMI serves every connection on its own thread, so the cap is also the bound on
+ * transport threads; a connection over the cap is closed on the accept thread before RMI
+ * spawns anything for it, and the client sees a connect failure it can retry elsewhere.
+ */
+public final class TunedServerSocketFactory implements RMIServerSocketFactory {
+    private final int backlog; // 0 keeps the JDK default
+    private final int bufferSize; // 0 keeps the OS default
+    private final int maxConnections; // 0 means unlimited
+    private final AtomicInteger open = new AtomicInteger();
+    private final LongAdder refused = new LongAdder();
+
+    public TunedServerSocketFactory(int backlog, int bufferSize, int maxConnections) {
+        this.backlog = backlog;
+        this.bufferSize = bufferSize;
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public ServerSocket createServerSocket(int port) throws IOException {
+        ServerSocket server = new LimitedServerSocket();
+        try {
+            server.setReuseAddress(true);
+            if (bufferSize > 0) server.setReceiveBufferSize(bufferSize); // inherited by accepted sockets
+            server.bind(new InetSocketAddress(port), backlog);
+            return server;
+        } catch (IOException ex) {
+            server.close();
+            throw ex;
+        }
+    }
+
+    public int getOpenConnections() {
+        return open.get();
+    }
+
+    public long getRefusedConnections() {
+        return refused.sum();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof TunedServerSocketFactory)) return false;
+        TunedServerSocketFactory f = (TunedServerSocketFactory) o;
+        return f.backlog == backlog && f.bufferSize == bufferSize && f.maxConnections == maxConnections;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(backlog, bufferSize, maxConnections);
+    }
+
+    @Override
+    public String toString() {
+        return "TunedServerSocketFactory[backlog=" + backlog + ", buffer=" + bufferSize
+                + ", maxConnections=" + maxConnections + "]";
+    }
+
+    private final class LimitedServerSocket extends ServerSocket {
+        LimitedServerSocket() throws IOException {
+        }
+
+        @Override
+        public Socket accept() throws IOException {
+            while (true) {
+                CountedSocket s = new CountedSocket();
+                implAccept(s);
+                int n = s.count();
+                if (maxConnections <= 0 || n <= maxConnections) {
+                    if (bufferSize > 0) s.setSendBufferSize(bufferSize);
+                    return s;
+                }
+                refused.increment();
+                s.close(); // gives the slot back
+            }
+        }
+    }
+
+    /** Frees its connection slot exactly once, however often RMI closes it. */
+    private final class CountedSocket extends Socket {
+        private final AtomicBoolean counted = new AtomicBoolean();
+
+        int count() {
+            counted.set(true);
+            return open.incrementAndGet();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (counted.compareAndSet(true, false)) open.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package rmi.calculator.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import rmi.calculator.common.ServerBusyException;
+
+/**
+ * {@link AdmissionController} with one concurrency slot held by the test, so queued calls are
+ * admitted one at a time and their order is observable.
+ */
+class AdmissionControllerTest {
+    private static final long LONG_TIMEOUT_MILLIS = 10_000;
+
+    @Test
+    void floodingClientDoesNotDelayOthers() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 16, LONG_TIMEOUT_MILLIS, 0, 1);
+        Assertions.assertTrue(admission.acquire("holder"));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        // Finish tags: flood 1, 2, 3; polite 1, queued after flood's first, so it ties and goes second
+        List<Thread> threads = new ArrayList<>();
+        threads.add(enqueue(admission, "flood", "flood-1", order));
+        threads.add(enqueue(admission, "flood", "flood-2", order));
+        threads.add(enqueue(admission, "flood", "flood-3", order));
+        threads.add(enqueue(admission, "polite", "polite-1", order));
+        admission.release();
+        for (Thread t : threads) t.join(LONG_TIMEOUT_MILLIS);
+        Assertions.assertEquals(List.of("flood-1", "polite-1", "flood-2", "flood-3"), order);
+        Assertions.assertEquals(0, admission.getRunning());
+        Assertions.assertEquals(4, admission.getQueuedCount());
+    }
+
+    @Test
+    void heavierClientGetsProportionallyMoreTurns() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 16, LONG_TIMEOUT_MILLIS, 0, 1);
+        admission.setClientWeight("heavy", 2.0);
+        Assertions.assertTrue(admission.acquire("holder"));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        // Finish tags: heavy 0.5, 1.0, 1.5, 2.0; light 1.0, 2.0
+        List<Thread> threads = new ArrayList<>();
+        threads.add(enqueue(admission, "light", "light-1", order));
+        threads.add(enqueue(admission, "light", "light-2", order));
+        threads.add(enqueue(admission, "heavy", "heavy-1", order));
+        threads.add(enqueue(admission, "heavy", "heavy-2", order));
+        threads.add(enqueue(admission, "heavy", "heavy-3", order));
+        threads.add(enqueue(admission, "heavy", "heavy-4", order));
+        admission.release();
+        for (Thread t : threads) t.join(LONG_TIMEOUT_MILLIS);
+        Assertions.assertEquals(List.of("heavy-1", "light-1", "heavy-2", "heavy-3", "light-2", "heavy-4"), order);
+    }
+
+    @Test
+    void queuedCallTimesOut() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 4, 50, 0, 1);
+        Assertions.assertTrue(admission.acquire("holder"));
+        long t0 = System.nanoTime();
+        ServerBusyException ex = Assertions.assertThrows(ServerBusyException.class, () -> admission.acquire("late"));
+        long waitedMillis = (System.nanoTime() - t0) / 1_000_000;
+        Assertions.assertTrue(waitedMillis >= 50, "gave up after " + waitedMillis + " ms");
+        Assertions.assertTrue(ex.getMessage().contains("not admitted within 50 ms"), ex.getMessage());
+        Assertions.assertEquals(0, admission.getQueued());
+        Assertions.assertEquals(1, admission.getRejectedCount());
+        // The timed-out waiter left the queue, so the slot goes to nobody and can be taken again
+        admission.release();
+        Assertions.assertEquals(0, admission.getRunning());
+        Assertions.assertTrue(admission.acquire("late"));
+    }
+
+    @Test
+    void fullQueueRejectsAtOnce() throws Exception {
+        AdmissionController admission = new AdmissionController(1, 1, LONG_TIMEOUT_MILLIS, 0, 1);
+        Assertions.assertTrue(admission.acquire("holder"));
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Thread queued = enqueue(admission, "patient", "patient", order);
+        long t0 = System.nanoTime();
+        Assertions.assertThrows(ServerBusyException.class, () -> admission.acquire("impatient"));
+        long waitedMillis = (System.nanoTime() - t0) / 1_000_000;
+        Assertions.assertTrue(waitedMillis < LONG_TIMEOUT_MILLIS / 2, "waited " + waitedMillis + " ms");
+        Assertions.assertEquals(1, admission.getRejectedCount());
+        Assertions.assertEquals(1, admission.getQueued());
+        admission.release();
+        queued.join(LONG_TIMEOUT_MILLIS);
+        Assertions.assertEquals(List.of("patient"), order);
+    }
+
+    /**
+     * Starts a thread that acquires for {@code clientId}, records {@code label} once admitted and
+     * releases; returns only after the call is in the queue, so queue order is the call order.
+     */
+    private static Thread enqueue(AdmissionController admission, String clientId, String label, List<String> order)
+            throws InterruptedException {
+        int queued = admission.getQueued();
+        Thread t = new Thread(() -> {
+            try {
+                if (admission.acquire(clientId)) {
+                    order.add(label);
+                    admission.release();
+                }
+            } catch (ServerBusyException ex) {
+                order.add(label + " rejected");
+            }
+        }, label);
+        t.start();
+        long deadline = System.nanoTime() + LONG_TIMEOUT_MILLIS * 1_000_000;
+        while (admission.getQueued() == queued) {
+            if (System.nanoTime() > deadline) Assertions.fail(label + " never queued");
+            Thread.sleep(1);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,180 @@
+package rmi.calculator.server;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import rmi.calculator.common.BatchResult;
+import rmi.calculator.common.OpCode;
+
+/**
+ * {@link ArrayComputeEngine} against the scalar path, {@link CalculatorServiceImpl#apply}, both
+ * sequentially and on a four-thread pool with arrays below and above its split threshold.
+ */
+class ArrayComputeEngineTest {
+    private static final int THRESHOLD = 64;
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterAll
+    static void shutDown() {
+        POOL.shutdown();
+    }
+
+    static List<Arguments> engines() {
+        List<Arguments> cases = new ArrayList<>();
+        for (int n : new int[] {0, 1, 7, THRESHOLD - 1, THRESHOLD + 1, 1000, 10_007}) {
+            cases.add(Arguments.of("sequential", ArrayComputeEngine.sequential(), n));
+            cases.add(Arguments.of("pool", new ArrayComputeEngine(POOL, THRESHOLD), n));
+        }
+        return cases;
+    }
+
+    @ParameterizedTest(name = "{0}, n={2}")
+    @MethodSource("engines")
+    void elementWiseMatchesScalarPath(String name, ArrayComputeEngine engine, int n) {
+        double[] a = operands(n, 1);
+        double[] b = operands(n, 2);
+        for (OpCode op : OpCode.values()) {
+            BatchResult result = engine.elementWise(op, a, op.arity() == 2 ? b : null);
+            Assertions.assertEquals(n, result.size());
+            for (int i = 0; i < n; i++) {
+                String where = op + " at " + i + " (" + a[i] + ", " + b[i] + ")";
+                try {
+                    double expected = CalculatorServiceImpl.apply(op, a[i], b[i]);
+                    Assertions.assertFalse(result.isError(i), where);
+                    Assertions.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(result.value(i)), where);
+                } catch (ArithmeticException ex) {
+                    Assertions.assertTrue(result.isError(i), where);
+                    Assertions.assertEquals(ex.getMessage(), result.error(i), where);
+                    Assertions.assertTrue(Double.isNaN(result.value(i)), where);
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest(name = "{0}, n={2}")
+    @MethodSource("engines")
+    void divisionByZeroAndNegativeRootAreErrorSlots(String name, ArrayComputeEngine engine, int n) {
+        if (n == 0) return;
+        double[] a = operands(n, 3);
+        double[] b = operands(n, 4);
+        a[n - 1] = -4.0;
+        b[n / 2] = 0.0;
+        b[n - 1] = -0.0;
+        BatchResult div = engine.elementWise(OpCode.DIV, a, b);
+        Assertions.assertEquals("Division by zero", div.error(n / 2));
+        Assertions.assertEquals("Division by zero", div.error(n - 1));
+        BatchResult sqrt = engine.elementWise(OpCode.SQRT, a, null);
+        Assertions.assertEquals("Square root of negative number", sqrt.error(n - 1));
+        Assertions.assertTrue(Double.isNaN(sqrt.value(n - 1)));
+    }
+
+    /**
+     * Reordered summation stays within {@code (n - 1) * 2^-53 * sum(|a_i|)} of the exact sum, the
+     * standard bound for floating-point summation in any order.
+     */
+    @ParameterizedTest(name = "{0}, n={2}")
+    @MethodSource("engines")
+    void sumAndDotAreWithinSummationBound(String name, ArrayComputeEngine engine, int n) {
+        double[] a = signed(n, 5);
+        double[] b = signed(n, 6);
+        double[] products = new double[n];
+        for (int i = 0; i < n; i++) products[i] = a[i] * b[i];
+        assertWithinBound(a, engine.sum(a));
+        // Each product is rounded once before summing, so the same bound holds over the rounded products
+        assertWithinBound(products, engine.dot(a, b));
+        if (n > 0) {
+            Assertions.assertEquals(engine.sum(a) / n, engine.mean(a));
+        }
+    }
+
+    @ParameterizedTest(name = "{0}, n={2}")
+    @MethodSource("engines")
+    void minAndMaxFollowMathMinMax(String name, ArrayComputeEngine engine, int n) {
+        double[] a = signed(n, 7);
+        assertSameBits(scalarMin(a), engine.min(a));
+        assertSameBits(scalarMax(a), engine.max(a));
+        if (n == 0) return;
+        for (int at : new int[] {0, n / 2, n - 1}) {
+            double[] withNaN = a.clone();
+            withNaN[at] = Double.NaN;
+            Assertions.assertTrue(Double.isNaN(engine.min(withNaN)), "NaN at " + at);
+            Assertions.assertTrue(Double.isNaN(engine.max(withNaN)), "NaN at " + at);
+        }
+        double[] zeros = new double[n];
+        zeros[n - 1] = -0.0;
+        assertSameBits(scalarMin(zeros), engine.min(zeros));
+        assertSameBits(scalarMax(zeros), engine.max(zeros));
+    }
+
+    @ParameterizedTest(name = "{0}, n={2}")
+    @MethodSource("engines")
+    void polyvalMatchesHorner(String name, ArrayComputeEngine engine, int n) {
+        double[] coefficients = {0.5, -1.25, 2.0, 0.75, -3.0, 1.0};
+        double[] x = signed(n, 8);
+        double[] values = engine.polyval(coefficients, x);
+        Assertions.assertEquals(n, values.length);
+        for (int i = 0; i < n; i++) {
+            double r = 0.0;
+            for (double c : coefficients) {
+                r = CalculatorServiceImpl.apply(OpCode.ADD, CalculatorServiceImpl.apply(OpCode.MUL, r, x[i]), c);
+            }
+            assertSameBits(r, values[i]);
+        }
+        Assertions.assertArrayEquals(new double[n], engine.polyval(new double[0], x));
+    }
+
+    /** Mostly ordinary values, with zeros, negatives, infinities and NaN mixed in. */
+    private static double[] operands(int n, long seed) {
+        double[] special = {0.0, -0.0, -1.0, -2.5, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN,
+                Double.MIN_VALUE, Double.MAX_VALUE};
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) {
+            out[i] = random.nextInt(8) == 0 ? special[random.nextInt(special.length)] : random.nextDouble(-100, 100);
+        }
+        return out;
+    }
+
+    private static double[] signed(int n, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) out[i] = random.nextDouble(-1e6, 1e6);
+        return out;
+    }
+
+    private static void assertWithinBound(double[] terms, double actual) {
+        BigDecimal exact = BigDecimal.ZERO;
+        double magnitude = 0;
+        for (double t : terms) {
+            exact = exact.add(new BigDecimal(t));
+            magnitude += Math.abs(t);
+        }
+        double bound = Math.max(terms.length - 1, 0) * Math.ulp(1.0) / 2 * magnitude * (1 + 1e-9);
+        double error = Math.abs(new BigDecimal(actual).subtract(exact).doubleValue());
+        Assertions.assertTrue(error <= bound, "error " + error + " exceeds bound " + bound);
+    }
+
+    private static double scalarMin(double[] a) {
+        double m = Double.POSITIVE_INFINITY;
+        for (double v : a) m = Math.min(m, v);
+        return m;
+    }
+
+    private static double scalarMax(double[] a) {
+        double m = Double.NEGATIVE_INFINITY;
+        for (double v : a) m = Math.max(m, v);
+        return m;
+    }
+
+    private static void assertSameBits(double expected, double actual) {
+        Assertions.assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual),
+                "expected " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,91 @@
+package rmi.calculator.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rmi.calculator.common.OpCode;
+
+/**
+ * {@link JournalQuery} over segments written by {@link CalculationJournal}, with holes punched
+ * where a writer claimed a slot and never completed it.
+ */
+class JournalQueryTest {
+    private static final int RECORDS_PER_SEGMENT = 4;
+
+    @TempDir
+    Path dir;
+
+    private ServerLogger logger;
+
+    @BeforeEach
+    void setUp() {
+        logger = new ServerLogger(lines -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.close();
+    }
+
+    @Test
+    void readsEveryRecordAcrossRolledSegments() throws IOException {
+        write(10);
+        Assertions.assertEquals(3, CalculationJournal.segments(dir).size());
+        Assertions.assertEquals(List.of(0.0, 1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0), operands(new JournalQuery(dir)));
+    }
+
+    @Test
+    void skipsHolesAndReadsPastThem() throws IOException {
+        write(10);
+        List<Path> segments = CalculationJournal.segments(dir);
+        punchHole(segments.get(0), 0);
+        punchHole(segments.get(0), 2);
+        punchHole(segments.get(1), 3);
+        Assertions.assertEquals(List.of(1.0, 3.0, 4.0, 5.0, 6.0, 8.0, 9.0), operands(new JournalQuery(dir)));
+        Assertions.assertEquals(7, new JournalQuery(dir).summarize().records);
+    }
+
+    @Test
+    void filtersStillApplyAfterAHole() throws IOException {
+        write(RECORDS_PER_SEGMENT);
+        punchHole(CalculationJournal.segments(dir).get(0), 1);
+        Assertions.assertEquals(List.of(2.0), operands(new JournalQuery(dir).errorsOnly()));
+        Assertions.assertEquals(List.of(0.0, 3.0), operands(new JournalQuery(dir).client("client-1")));
+    }
+
+    /** Records {@code n} sqrt calls with a = 0, 1, 2, ...; every third one is an error from client-2. */
+    private void write(int n) throws IOException {
+        long segmentBytes = CalculationJournal.HEADER_SIZE + RECORDS_PER_SEGMENT * CalculationJournal.RECORD_SIZE;
+        try (CalculationJournal journal = new CalculationJournal(dir, segmentBytes, 60_000, logger)) {
+            for (int i = 0; i < n; i++) {
+                boolean error = i % 3 == 2;
+                journal.record(error ? "client-2" : "client-1", OpCode.SQRT.code(),
+                        error ? CalculationJournal.FLAG_ERROR : 0, i, Double.NaN, Math.sqrt(i), 1000);
+            }
+        }
+    }
+
+    /** Zeroes a record's time, as if its writer died between claiming the slot and completing it. */
+    private static void punchHole(Path segment, int slot) throws IOException {
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            long pos = CalculationJournal.HEADER_SIZE + (long) slot * CalculationJournal.RECORD_SIZE
+                    + CalculationJournal.OFF_TIME;
+            ch.write(ByteBuffer.allocate(8), pos);
+        }
+    }
+
+    private static List<Double> operands(JournalQuery query) throws IOException {
+        List<Double> a = new ArrayList<>();
+        query.scan((buf, pos) -> a.add(buf.getDouble(pos + CalculationJournal.OFF_A)));
+        return a;
+    }
+}
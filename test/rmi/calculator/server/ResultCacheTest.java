@@ -0,0 +1,75 @@
+package rmi.calculator.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/** {@link ResultCache} under more distinct keys than it can hold. */
+class ResultCacheTest {
+    private static final int OP = 1;
+
+    @ParameterizedTest
+    @EnumSource(ResultCache.Eviction.class)
+    void staysWithinCapacityAndCountsEvictions(ResultCache.Eviction eviction) {
+        ResultCache cache = new ResultCache(1024, eviction);
+        int keys = cache.capacity() * 10;
+        for (int k = 0; k < keys; k++) cache.put(OP, k, -k, result(k));
+        ResultCache.Stats stats = cache.stats();
+        Assertions.assertTrue(stats.size <= cache.capacity(), stats.toString());
+        Assertions.assertTrue(stats.evictions > 0, stats.toString());
+        // Every insert of a new key either filled an empty slot or evicted an entry
+        Assertions.assertEquals(keys, stats.size + stats.evictions, stats.toString());
+    }
+
+    @ParameterizedTest
+    @EnumSource(ResultCache.Eviction.class)
+    void evictedKeysMissAndSurvivorsKeepTheirValue(ResultCache.Eviction eviction) {
+        ResultCache cache = new ResultCache(256, eviction);
+        int keys = cache.capacity() * 4;
+        for (int k = 0; k < keys; k++) cache.put(OP, k, -k, result(k));
+        int hits = 0;
+        for (int k = 0; k < keys; k++) {
+            long bits = cache.getBits(OP, k, -k);
+            if (bits == ResultCache.MISS) continue;
+            Assertions.assertEquals(Double.doubleToLongBits(result(k)), bits, "key " + k);
+            hits++;
+        }
+        Assertions.assertEquals(cache.stats().size, hits);
+        Assertions.assertEquals(keys - hits, cache.stats().misses);
+    }
+
+    @Test
+    void clockSparesARecentlyReadEntry() {
+        // Eight slots in one segment, all inside one probe window: any insert into a full table evicts
+        for (int read = 0; read < 8; read++) {
+            ResultCache cache = new ResultCache(8, ResultCache.Eviction.CLOCK);
+            Assertions.assertEquals(8, cache.capacity());
+            for (int k = 0; k < 8; k++) cache.put(OP, k, 0, result(k));
+            Assertions.assertEquals(0, cache.stats().evictions);
+            Assertions.assertNotEquals(ResultCache.MISS, cache.getBits(OP, read, 0));
+            cache.put(OP, 100, 0, result(100));
+            Assertions.assertEquals(1, cache.stats().evictions);
+            Assertions.assertEquals(Double.doubleToLongBits(result(read)), cache.getBits(OP, read, 0), "read key " + read);
+            Assertions.assertEquals(Double.doubleToLongBits(result(100)), cache.getBits(OP, 100, 0));
+        }
+    }
+
+    @Test
+    void overwriteReplacesTheHomeSlotOfTheNewKey() {
+        ResultCache cache = new ResultCache(8, ResultCache.Eviction.OVERWRITE);
+        for (int k = 0; k < 8; k++) cache.put(OP, k, 0, result(k));
+        cache.put(OP, 100, 0, result(100));
+        int survivors = 0;
+        for (int k = 0; k < 8; k++) {
+            if (cache.getBits(OP, k, 0) != ResultCache.MISS) survivors++;
+        }
+        Assertions.assertEquals(7, survivors);
+        Assertions.assertEquals(8, cache.stats().size);
+        Assertions.assertEquals(Double.doubleToLongBits(result(100)), cache.getBits(OP, 100, 0));
+    }
+
+    private static double result(int k) {
+        return k * 0.75 + 1;
+    }
+}